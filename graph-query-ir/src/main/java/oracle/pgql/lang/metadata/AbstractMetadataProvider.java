@@ -5,6 +5,7 @@ package oracle.pgql.lang.metadata;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import oracle.pgql.lang.ir.SchemaQualifiedName;
 
@@ -14,6 +15,8 @@ import oracle.pgql.lang.ir.SchemaQualifiedName;
  */
 public abstract class AbstractMetadataProvider {
 
+  private final CopyOnWriteArrayList<MetadataChangeListener> metadataChangeListeners = new CopyOnWriteArrayList<>();
+
   /**
    * Get the schema of the default graph, including its labels, properties and property types.
    * 
@@ -145,6 +148,21 @@ public abstract class AbstractMetadataProvider {
     return Optional.empty();
   }
 
+  /**
+   * Get the union types and the return types of all unary and binary operations at once. Implementations that
+   * implement this method do not need to implement {@link #getUnionType(String, String)} and the
+   * getOperationReturnType methods, which the parser then no longer calls.
+   *
+   * This is much cheaper for the parser than asking for the union type and every operation for every pair of types
+   * separately, in particular for type systems with many types. The result should not change over time.
+   *
+   * @return the type rules, or empty if the parser should use {@link #getUnionType(String, String)} and the
+   *         getOperationReturnType methods
+   */
+  public Optional<TypeRules> getTypeRules() {
+    return Optional.empty();
+  }
+
   /**
    * Gets the signatures of the functions that are available in the system, including the built-in and user-defined
    * functions.
@@ -163,4 +181,52 @@ public abstract class AbstractMetadataProvider {
   public Optional<List<DataTypeSynonym>> getDataTypeSynonyms() {
     return Optional.empty();
   }
+
+  /**
+   * Get the version of the metadata for a graph. The version identifies all the metadata that this provider returns for
+   * queries against the graph: the graph schema, the default types, the type rules, the function signatures and the
+   * data type synonyms. It should be different whenever any of these changes, for example an increasing number or a
+   * hash of the catalog.
+   *
+   * If a version is provided, the parser may reuse metadata derived from earlier calls to this provider as long as the
+   * version stays the same, even if the provider returns new objects for the same metadata. If no version is provided,
+   * the parser derives the metadata anew for every parse.
+   *
+   * @param graphName
+   *          the name of the graph with schema qualifier (schema qualifier can be null), or null for the default graph
+   * @return the version of the metadata
+   */
+  public Optional<String> getSchemaVersion(SchemaQualifiedName graphName) {
+    return Optional.empty();
+  }
+
+  /**
+   * Registers a listener that is notified when the metadata of this provider changes, so that caches of metadata or
+   * of parse results can be invalidated. Implementations notify the listeners through
+   * {@link #fireMetadataChanged(SchemaQualifiedName)}.
+   *
+   * @param listener
+   *          the listener to notify
+   */
+  public void addMetadataChangeListener(MetadataChangeListener listener) {
+    metadataChangeListeners.addIfAbsent(listener);
+  }
+
+  public void removeMetadataChangeListener(MetadataChangeListener listener) {
+    metadataChangeListeners.remove(listener);
+  }
+
+  /**
+   * Notifies the registered listeners that the metadata of this provider changed. Implementations should call this
+   * method after the change, so that listeners that query the provider see the new metadata.
+   *
+   * @param graphName
+   *          the graph of which the metadata changed, or null if the metadata of any graph may have changed, including
+   *          the default graph and metadata that is not specific to a graph such as function signatures
+   */
+  protected void fireMetadataChanged(SchemaQualifiedName graphName) {
+    for (MetadataChangeListener listener : metadataChangeListeners) {
+      listener.metadataChanged(this, graphName);
+    }
+  }
 }
@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang.metadata;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import oracle.pgql.lang.ir.SchemaQualifiedName;
+
+/**
+ * A metadata provider that caches the metadata of another provider, for providers that are expensive to call, for
+ * example because they query a remote catalog.
+ *
+ * The graph schemas (together with their versions, see {@link #getSchemaVersion(SchemaQualifiedName)}), the function
+ * signatures, the data type synonyms and the type rules are cached for a fixed time after they were loaded, after
+ * which the next call loads them again. Concurrent calls for metadata that is not cached wait for a single call to
+ * the other provider instead of all calling it. Failures are not cached. The other methods, which are typically cheap,
+ * are not cached.
+ *
+ * When the other provider notifies that its metadata changed, the affected metadata is removed from the cache and the
+ * listeners of this provider are notified in turn. Since the other provider holds on to this provider to notify it,
+ * {@link #close()} should be called once this provider is no longer used, unless the other provider is discarded as
+ * well.
+ */
+public class CachingMetadataProvider extends AbstractMetadataProvider implements Closeable {
+
+  private final AbstractMetadataProvider metadataProvider;
+
+  private final long timeToLiveNanos;
+
+  private final int maximumSize;
+
+  /**
+   * The cached metadata in least recently used order, guarded by itself.
+   */
+  private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final MetadataChangeListener metadataChangeListener = (provider, graphName) -> metadataChanged(graphName);
+
+  /**
+   * @param metadataProvider
+   *          the provider of which the metadata is cached
+   * @param timeToLive
+   *          how long metadata is cached after it was loaded
+   * @param unit
+   *          the unit of the time to live
+   * @param maximumSize
+   *          the maximum number of cached graph schemas plus the other cached metadata; metadata that is still loading
+   *          is not evicted, so the cache may temporarily hold more
+   */
+  public CachingMetadataProvider(AbstractMetadataProvider metadataProvider, long timeToLive, TimeUnit unit,
+      int maximumSize) {
+    if (timeToLive < 0) {
+      throw new IllegalArgumentException("Time to live should not be negative but was " + timeToLive);
+    }
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("Maximum cache size should be at least 1 but was " + maximumSize);
+    }
+    this.metadataProvider = metadataProvider;
+    this.timeToLiveNanos = unit.toNanos(timeToLive);
+    this.maximumSize = maximumSize;
+    metadataProvider.addMetadataChangeListener(metadataChangeListener);
+  }
+
+  public AbstractMetadataProvider getMetadataProvider() {
+    return metadataProvider;
+  }
+
+  /**
+   * Removes all metadata from the cache and notifies the listeners of this provider.
+   */
+  public void invalidateAll() {
+    synchronized (entries) {
+      entries.clear();
+    }
+    fireMetadataChanged(null);
+  }
+
+  /**
+   * Stops listening to changes of the metadata of the other provider, so that this provider can be garbage collected
+   * while the other provider is still in use. The cache keeps working, but is no longer invalidated when the metadata
+   * of the other provider changes.
+   */
+  @Override
+  public void close() {
+    metadataProvider.removeMetadataChangeListener(metadataChangeListener);
+  }
+
+  /**
+   * @return the number of cached graph schemas plus the other cached metadata
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private void metadataChanged(SchemaQualifiedName graphName) {
+    synchronized (entries) {
+      if (graphName == null) {
+        entries.clear();
+      } else {
+        entries.remove(new Key(KeyType.GRAPH, graphName));
+      }
+    }
+    fireMetadataChanged(graphName);
+  }
+
+  @Override
+  public Optional<GraphSchema> getGraphSchema() {
+    return getGraphMetadata(null).graphSchema;
+  }
+
+  @Override
+  public Optional<GraphSchema> getGraphSchema(SchemaQualifiedName graphName) {
+    return getGraphMetadata(graphName).graphSchema;
+  }
+
+  /**
+   * @return the version of the metadata of the other provider that was loaded together with the cached graph schema
+   */
+  @Override
+  public Optional<String> getSchemaVersion(SchemaQualifiedName graphName) {
+    return getGraphMetadata(graphName).schemaVersion;
+  }
+
+  private GraphMetadata getGraphMetadata(SchemaQualifiedName graphName) {
+    return get(new Key(KeyType.GRAPH, graphName), () -> {
+      // the version is loaded first, so that it is never newer than the schema
+      Optional<String> schemaVersion = metadataProvider.getSchemaVersion(graphName);
+      Optional<GraphSchema> graphSchema = graphName == null ? metadataProvider.getGraphSchema()
+          : metadataProvider.getGraphSchema(graphName);
+      return new GraphMetadata(schemaVersion, graphSchema);
+    });
+  }
+
+  @Override
+  public Optional<List<FunctionSignature>> getFunctionSignatures() {
+    return get(new Key(KeyType.FUNCTION_SIGNATURES, null), metadataProvider::getFunctionSignatures);
+  }
+
+  @Override
+  public Optional<List<DataTypeSynonym>> getDataTypeSynonyms() {
+    return get(new Key(KeyType.DATA_TYPE_SYNONYMS, null), metadataProvider::getDataTypeSynonyms);
+  }
+
+  @Override
+  public Optional<TypeRules> getTypeRules() {
+    return get(new Key(KeyType.TYPE_RULES, null), metadataProvider::getTypeRules);
+  }
+
+  @Override
+  public Optional<String> getDefaultStringType() {
+    return metadataProvider.getDefaultStringType();
+  }
+
+  @Override
+  public Optional<String> getDefaultShortIntegerType() {
+    return metadataProvider.getDefaultShortIntegerType();
+  }
+
+  @Override
+  public Optional<String> getDefaultLongIntegerType() {
+    return metadataProvider.getDefaultLongIntegerType();
+  }
+
+  @Override
+  public Optional<String> getDefaultDecimalType() {
+    return metadataProvider.getDefaultDecimalType();
+  }
+
+  @Override
+  public Optional<String> getOperationReturnType(UnaryOperation op, String type) {
+    return metadataProvider.getOperationReturnType(op, type);
+  }
+
+  @Override
+  public Optional<String> getOperationReturnType(BinaryOperation op, String typeA, String typeB) {
+    return metadataProvider.getOperationReturnType(op, typeA, typeB);
+  }
+
+  @Override
+  public Optional<String> getUnionType(String typeA, String typeB) {
+    return metadataProvider.getUnionType(typeA, typeB);
+  }
+
+  /**
+   * Returns the cached value or otherwise loads it. Only the first caller loads the value, while concurrent callers
+   * wait for it.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T get(Key key, Supplier<T> loader) {
+    Entry entry;
+    boolean isLoader = false;
+    synchronized (entries) {
+      entry = entries.get(key);
+      if (entry == null || entry.isExpired(System.nanoTime(), timeToLiveNanos)) {
+        entry = new Entry(loader);
+        entries.put(key, entry);
+        isLoader = true;
+        evict();
+      }
+    }
+
+    if (isLoader) {
+      entry.task.run();
+    }
+
+    try {
+      return (T) entry.getUninterruptibly();
+    } catch (ExecutionException e) {
+      synchronized (entries) {
+        entries.remove(key, entry); // the next call should try again
+      }
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Removes the least recently used metadata until the cache holds at most the maximum number of entries, skipping
+   * metadata that is still loading since other callers may be waiting for it. Must be called while holding the lock on
+   * the entries.
+   */
+  private void evict() {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (entries.size() > maximumSize && iterator.hasNext()) {
+      if (iterator.next().task.isDone()) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private enum KeyType {
+    GRAPH,
+    FUNCTION_SIGNATURES,
+    DATA_TYPE_SYNONYMS,
+    TYPE_RULES
+  }
+
+  private static class Key {
+
+    private final KeyType type;
+
+    /**
+     * The graph name for {@link KeyType#GRAPH}, or null for the default graph and for the other types of keys.
+     */
+    private final SchemaQualifiedName graphName;
+
+    Key(KeyType type, SchemaQualifiedName graphName) {
+      this.type = type;
+      this.graphName = graphName;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * type.hashCode() + Objects.hashCode(graphName);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return type == other.type && Objects.equals(graphName, other.graphName);
+    }
+  }
+
+  private static class Entry {
+
+    private final FutureTask<Object> task;
+
+    /**
+     * When the value was loaded; only valid once the task is done.
+     */
+    private volatile long loadedNanos;
+
+    Entry(Supplier<?> loader) {
+      task = new FutureTask<>(() -> {
+        Object value = loader.get();
+        loadedNanos = System.nanoTime();
+        return value;
+      });
+    }
+
+    /**
+     * @return whether the value was loaded more than the time to live ago; values that are still loading never expire
+     */
+    boolean isExpired(long nowNanos, long timeToLiveNanos) {
+      return task.isDone() && nowNanos - loadedNanos >= timeToLiveNanos;
+    }
+
+    Object getUninterruptibly() throws ExecutionException {
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try {
+            return task.get();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  private static class GraphMetadata {
+
+    private final Optional<String> schemaVersion;
+
+    private final Optional<GraphSchema> graphSchema;
+
+    GraphMetadata(Optional<String> schemaVersion, Optional<GraphSchema> graphSchema) {
+      this.schemaVersion = schemaVersion;
+      this.graphSchema = graphSchema;
+    }
+  }
+}
@@ -3,13 +3,30 @@
  */
 package oracle.pgql.lang.metadata;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
+/**
+ * The labels and properties of a graph.
+ *
+ * Lookups of labels by name and the property names are answered from indexes that are built on first use, so the lists
+ * of labels and properties should not be modified after the schema is constructed.
+ */
 public class GraphSchema {
 
   private final List<VertexLabel> vertexLabels;
   
   private final List<EdgeLabel> edgeLabels;
+
+  private volatile Index<VertexLabel> vertexLabelIndex;
+
+  private volatile Index<EdgeLabel> edgeLabelIndex;
   
   public GraphSchema(List<VertexLabel> vertexLabels, List<EdgeLabel> edgeLabels) {
     this.vertexLabels = vertexLabels;
@@ -23,4 +40,87 @@ public class GraphSchema {
   public List<EdgeLabel> getEdgeLabels() {
     return edgeLabels;
   }
+
+  /**
+   * Get a vertex label by name. A label with exactly the given name is preferred over a label of which the upper-cased
+   * name equals the given name, such that unquoted identifiers, which are upper-cased, match labels in any case.
+   *
+   * @param label
+   *          the name of the label
+   * @return the vertex label, or empty if the graph has no such label
+   */
+  public Optional<VertexLabel> getVertexLabel(String label) {
+    return getVertexLabelIndex().get(label);
+  }
+
+  /**
+   * Get an edge label by name (see {@link #getVertexLabel(String)}).
+   *
+   * @param label
+   *          the name of the label
+   * @return the edge label, or empty if the graph has no such label
+   */
+  public Optional<EdgeLabel> getEdgeLabel(String label) {
+    return getEdgeLabelIndex().get(label);
+  }
+
+  /**
+   * @return the names of the properties of all vertex labels, without duplicates and in order of appearance
+   */
+  public List<String> getVertexPropertyNames() {
+    return getVertexLabelIndex().propertyNames;
+  }
+
+  /**
+   * @return the names of the properties of all edge labels, without duplicates and in order of appearance
+   */
+  public List<String> getEdgePropertyNames() {
+    return getEdgeLabelIndex().propertyNames;
+  }
+
+  private Index<VertexLabel> getVertexLabelIndex() {
+    Index<VertexLabel> index = vertexLabelIndex;
+    if (index == null) {
+      index = new Index<>(vertexLabels);
+      vertexLabelIndex = index;
+    }
+    return index;
+  }
+
+  private Index<EdgeLabel> getEdgeLabelIndex() {
+    Index<EdgeLabel> index = edgeLabelIndex;
+    if (index == null) {
+      index = new Index<>(edgeLabels);
+      edgeLabelIndex = index;
+    }
+    return index;
+  }
+
+  private static class Index<T extends Label> {
+
+    private final Map<String, T> labelsByName = new HashMap<>();
+
+    private final Map<String, T> labelsByUpperCaseName = new HashMap<>();
+
+    private final List<String> propertyNames;
+
+    Index(List<T> labels) {
+      Set<String> propertyNames = new LinkedHashSet<>();
+      for (T label : labels) {
+        // the first of multiple labels with the same name wins
+        labelsByName.putIfAbsent(label.getLabel(), label);
+        labelsByUpperCaseName.putIfAbsent(label.getLabel().toUpperCase(), label);
+        propertyNames.addAll(label.getPropertyNames());
+      }
+      this.propertyNames = Collections.unmodifiableList(new ArrayList<>(propertyNames));
+    }
+
+    Optional<T> get(String label) {
+      T result = labelsByName.get(label);
+      if (result == null) {
+        result = labelsByUpperCaseName.get(label);
+      }
+      return Optional.ofNullable(result);
+    }
+  }
 }
@@ -3,12 +3,15 @@
  */
 package oracle.pgql.lang.metadata;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public abstract class Label {
 
   private final String label;
   private final List<Property> properties;
+  private volatile List<String> propertyNames;
 
   public Label(String label, List<Property> properties) {
     this.label = label;
@@ -22,4 +25,20 @@ public abstract class Label {
   public List<Property> getProperties() {
     return properties;
   }
+
+  /**
+   * @return the names of the properties, as an unmodifiable list that is computed once
+   */
+  public List<String> getPropertyNames() {
+    List<String> result = propertyNames;
+    if (result == null) {
+      result = new ArrayList<>(properties.size());
+      for (Property property : properties) {
+        result.add(property.getName());
+      }
+      result = Collections.unmodifiableList(result);
+      propertyNames = result;
+    }
+    return result;
+  }
 }
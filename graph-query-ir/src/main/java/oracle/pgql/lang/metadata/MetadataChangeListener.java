@@ -0,0 +1,24 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang.metadata;
+
+import oracle.pgql.lang.ir.SchemaQualifiedName;
+
+/**
+ * Listener for changes to the metadata of an {@link AbstractMetadataProvider}, see
+ * {@link AbstractMetadataProvider#addMetadataChangeListener(MetadataChangeListener)}.
+ */
+public interface MetadataChangeListener {
+
+  /**
+   * Called after the metadata of a provider changed.
+   *
+   * @param metadataProvider
+   *          the provider of which the metadata changed
+   * @param graphName
+   *          the graph of which the metadata changed, or null if the metadata of any graph may have changed, including
+   *          the default graph and metadata that is not specific to a graph such as function signatures
+   */
+  void metadataChanged(AbstractMetadataProvider metadataProvider, SchemaQualifiedName graphName);
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang.metadata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The union types and the return types of unary and binary operations of a type system, as tables. This is the bulk
+ * equivalent of {@link AbstractMetadataProvider#getUnionType(String, String)} and
+ * {@link AbstractMetadataProvider#getOperationReturnType(BinaryOperation, String, String)}, see
+ * {@link AbstractMetadataProvider#getTypeRules()}.
+ *
+ * Combinations of types that are not in the tables are incompatible or not supported by the operation.
+ */
+public class TypeRules {
+
+  private final List<UnionTypeRule> unionTypes = new ArrayList<>();
+
+  private final List<UnaryOperationRule> unaryOperations = new ArrayList<>();
+
+  private final List<BinaryOperationRule> binaryOperations = new ArrayList<>();
+
+  /**
+   * @param typeA
+   *          e.g. LONG
+   * @param typeB
+   *          e.g. INTEGER
+   * @param unionType
+   *          e.g. LONG
+   */
+  public void addUnionType(String typeA, String typeB, String unionType) {
+    unionTypes.add(new UnionTypeRule(typeA, typeB, unionType));
+  }
+
+  public void addOperation(UnaryOperation op, String type, String returnType) {
+    unaryOperations.add(new UnaryOperationRule(op, type, returnType));
+  }
+
+  public void addOperation(BinaryOperation op, String typeA, String typeB, String returnType) {
+    binaryOperations.add(new BinaryOperationRule(op, typeA, typeB, returnType));
+  }
+
+  public List<UnionTypeRule> getUnionTypes() {
+    return Collections.unmodifiableList(unionTypes);
+  }
+
+  public List<UnaryOperationRule> getUnaryOperations() {
+    return Collections.unmodifiableList(unaryOperations);
+  }
+
+  public List<BinaryOperationRule> getBinaryOperations() {
+    return Collections.unmodifiableList(binaryOperations);
+  }
+
+  public static class UnionTypeRule {
+
+    private final String typeA;
+
+    private final String typeB;
+
+    private final String unionType;
+
+    public UnionTypeRule(String typeA, String typeB, String unionType) {
+      this.typeA = typeA;
+      this.typeB = typeB;
+      this.unionType = unionType;
+    }
+
+    public String getTypeA() {
+      return typeA;
+    }
+
+    public String getTypeB() {
+      return typeB;
+    }
+
+    public String getUnionType() {
+      return unionType;
+    }
+  }
+
+  public static class UnaryOperationRule {
+
+    private final UnaryOperation operation;
+
+    private final String type;
+
+    private final String returnType;
+
+    public UnaryOperationRule(UnaryOperation operation, String type, String returnType) {
+      this.operation = operation;
+      this.type = type;
+      this.returnType = returnType;
+    }
+
+    public UnaryOperation getOperation() {
+      return operation;
+    }
+
+    public String getType() {
+      return type;
+    }
+
+    public String getReturnType() {
+      return returnType;
+    }
+  }
+
+  public static class BinaryOperationRule {
+
+    private final BinaryOperation operation;
+
+    private final String typeA;
+
+    private final String typeB;
+
+    private final String returnType;
+
+    public BinaryOperationRule(BinaryOperation operation, String typeA, String typeB, String returnType) {
+      this.operation = operation;
+      this.typeA = typeA;
+      this.typeB = typeB;
+      this.returnType = returnType;
+    }
+
+    public BinaryOperation getOperation() {
+      return operation;
+    }
+
+    public String getTypeA() {
+      return typeA;
+    }
+
+    public String getTypeB() {
+      return typeB;
+    }
+
+    public String getReturnType() {
+      return returnType;
+    }
+  }
+}
@@ -185,89 +185,87 @@ public class CommonTranslationUtil {
 
   protected static QueryExpression translateExp(IStrategoTerm t, TranslationContext ctx) throws PgqlException {
 
-    String cons = ((IStrategoAppl) t).getConstructor().getName();
+    ExpressionKind kind = ctx.getExpressionKind(((IStrategoAppl) t).getConstructor());
 
-    switch (cons) {
-      case "ExpressionPlusType":
+    switch (kind) {
+      case EXPRESSION_PLUS_TYPE:
         return translateExp(t.getSubterm(POS_EXP_PLUS_TYPE_EXP), ctx);
-      case "Sub":
+      case SUB:
         QueryExpression exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         QueryExpression exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.ArithmeticExpression.Sub(exp1, exp2);
-      case "Add":
+      case ADD:
         exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.ArithmeticExpression.Add(exp1, exp2);
-      case "Mul":
+      case MUL:
         exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.ArithmeticExpression.Mul(exp1, exp2);
-      case "Div":
+      case DIV:
         exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.ArithmeticExpression.Div(exp1, exp2);
-      case "Mod":
+      case MOD:
         exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.ArithmeticExpression.Mod(exp1, exp2);
-      case "UMin":
+      case UMIN:
         QueryExpression exp = translateExp(t.getSubterm(POS_UNARY_EXP), ctx);
         return new QueryExpression.ArithmeticExpression.UMin(exp);
-      case "And":
+      case AND:
         exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.LogicalExpression.And(exp1, exp2);
-      case "Or":
+      case OR:
         exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.LogicalExpression.Or(exp1, exp2);
-      case "Not":
+      case NOT:
         exp = translateExp(t.getSubterm(POS_UNARY_EXP), ctx);
         return new QueryExpression.LogicalExpression.Not(exp);
-      case "Eq":
+      case EQ:
         exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.RelationalExpression.Equal(exp1, exp2);
-      case "Neq":
+      case NEQ:
         exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.RelationalExpression.NotEqual(exp1, exp2);
-      case "Gt":
+      case GT:
         exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.RelationalExpression.Greater(exp1, exp2);
-      case "Gte":
+      case GTE:
         exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.RelationalExpression.GreaterEqual(exp1, exp2);
-      case "Lt":
+      case LT:
         exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.RelationalExpression.Less(exp1, exp2);
-      case "Lte":
+      case LTE:
         exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.RelationalExpression.LessEqual(exp1, exp2);
-      case "Cct":
+      case CCT:
         exp1 = translateExp(t.getSubterm(POS_BINARY_EXP_LEFT), ctx);
         exp2 = translateExp(t.getSubterm(POS_BINARY_EXP_RIGHT), ctx);
         return new QueryExpression.ConcatExpression(exp1, exp2);
-      case "Integer":
+      case INTEGER:
         long l = parseLong(t);
         return new QueryExpression.Constant.ConstInteger(l);
-      case "Decimal":
+      case DECIMAL:
         double d = Double.parseDouble(getString(t));
         return new QueryExpression.Constant.ConstDecimal(d);
-      case "String":
-      case "Identifier": // identifier "hello" in (n:hello) becomes string 'hello' in has_label(n,
-        // 'hello')
+      case STRING:
         String s = getString(t);
         return new QueryExpression.Constant.ConstString(s);
-      case "True":
+      case TRUE:
         return new QueryExpression.Constant.ConstBoolean(true);
-      case "False":
+      case FALSE:
         return new QueryExpression.Constant.ConstBoolean(false);
-      case "Date":
+      case DATE:
         s = getString(t);
         LocalDate date;
         try {
@@ -277,7 +275,7 @@ public class CommonTranslationUtil {
           date = LocalDate.MIN;
         }
         return new QueryExpression.Constant.ConstDate(date);
-      case "Time":
+      case TIME:
         s = getString(t);
         try {
           LocalTime time = LocalTime.parse(s, SqlDateTimeFormatter.SQL_TIME);
@@ -291,7 +289,7 @@ public class CommonTranslationUtil {
             return new QueryExpression.Constant.ConstTime(LocalTime.MIN);
           }
         }
-      case "Timestamp":
+      case TIMESTAMP:
         s = getString(t);
         try {
           LocalDateTime timestamp = LocalDateTime.parse(s, SqlDateTimeFormatter.SQL_TIMESTAMP);
@@ -307,26 +305,26 @@ public class CommonTranslationUtil {
             return new QueryExpression.Constant.ConstTimestamp(LocalDateTime.MIN);
           }
         }
-      case "Interval":
+      case INTERVAL:
         String value = getString(t.getSubterm(POS_INTERVAL_VALUE));
         DateTimeField dateTimeField = DateTimeField.valueOf(getString(t.getSubterm(POS_INTERVAL_DATETIME_FIELD)));
         return new Interval(value, dateTimeField);
-      case "VarRef":
+      case VAR_REF:
         QueryVariable var = getVariable(ctx, t);
         return new QueryExpression.VarRef(var);
-      case "BindVariable":
+      case BIND_VARIABLE:
         int parameterIndex = getInt(t);
         return new QueryExpression.BindVariable(parameterIndex);
-      case "PropRef":
+      case PROP_REF:
         IStrategoTerm varRefT = t.getSubterm(POS_PROPREF_VARREF);
         VarRef varRef = (VarRef) translateExp(varRefT, ctx);
         String propname = getString(t.getSubterm(POS_PROPREF_PROPNAME));
         return new QueryExpression.PropertyAccess(varRef.getVariable(), propname);
-      case "Cast":
+      case CAST:
         exp = translateExp(t.getSubterm(POS_CAST_EXP), ctx);
         String targetTypeName = getString(t.getSubterm(POS_CAST_TARGET_TYPE_NAME));
         return new QueryExpression.Function.Cast(exp, targetTypeName);
-      case "CharacterSubstring":
+      case CHARACTER_SUBSTRING:
         exp = translateExp(t.getSubterm(POS_SUBSTRING_EXP), ctx);
         QueryExpression startExp = translateExp(t.getSubterm(POS_SUBSTRING_START), ctx);
         IStrategoTerm lengthExpT = t.getSubterm(POS_SUBSTRING_LENGTH);
@@ -334,27 +332,26 @@ public class CommonTranslationUtil {
             ? translateExp(getSomeValue(lengthExpT).getSubterm(POS_LENGTH_EXP), ctx)
             : null;
         return new SubstringExpression(exp, startExp, lengthExp);
-      case "BetweenPredicate":
+      case BETWEEN_PREDICATE:
         exp1 = translateExp(t.getSubterm(POS_TERNARY_EXP1), ctx);
         exp2 = translateExp(t.getSubterm(POS_TERNARY_EXP2), ctx);
         QueryExpression exp3 = translateExp(t.getSubterm(POS_TERNARY_EXP3), ctx);
         return new BetweenPredicate(exp1, exp2, exp3);
-      case "SourceDestinationPredicate":
+      case SOURCE_DESTINATION_PREDICATE:
         VarRef vertexRef = (VarRef) translateExp(t.getSubterm(POS_SOURCE_DESTINATION_PREDICATE_VERTEX_REF), ctx);
         VarRef edgeRef = (VarRef) translateExp(t.getSubterm(POS_SOURCE_DESTINATION_PREDICATE_EDGE_REF), ctx);
         boolean isSourcePredicate = getBoolean(
             t.getSubterm(POS_SOURCE_DESTINATION_PREDICATE_IS_SOURCE).getSubterm(POS_EXP_PLUS_TYPE_EXP));
         return new SourceDestinationPredicate(vertexRef, edgeRef, isSourcePredicate);
-      case "Exists":
+      case EXISTS:
         IStrategoTerm subqueryT = t.getSubterm(POS_EXISTS_SUBQUERY);
         SelectQuery selectQuery = translateSubquery(ctx, subqueryT);
         return new QueryExpression.Function.Exists(selectQuery);
-      case "ScalarSubquery":
+      case SCALAR_SUBQUERY:
         subqueryT = t.getSubterm(POS_SCALARSUBQUERY_SUBQUERY);
         selectQuery = translateSubquery(ctx, subqueryT);
         return new ScalarSubquery(selectQuery);
-      case "CallStatement":
-      case "FunctionCall":
+      case FUNCTION_CALL:
         String schemaName = null;
         String packageName = null;
         IStrategoTerm optionalPackageDeclT = t.getSubterm(POS_FUNCTION_CALL_PACKAGE_NAME);
@@ -387,7 +384,7 @@ public class CommonTranslationUtil {
         }
 
         return new QueryExpression.FunctionCall(schemaName, packageName, functionName, args);
-      case "ExtractExp":
+      case EXTRACT_EXP:
         IStrategoAppl fieldT = (IStrategoAppl) t.getSubterm(POS_EXTRACT_FIELD);
         ExtractField field;
         switch (fieldT.getConstructor().getName()) {
@@ -421,22 +418,22 @@ public class CommonTranslationUtil {
         IStrategoTerm expT = t.getSubterm(POS_EXTRACT_EXP);
         exp = translateExp(expT, ctx);
         return new ExtractExpression(field, exp);
-      case "InPredicate":
+      case IN_PREDICATE:
         expT = t.getSubterm(POS_IN_PREDICATE_EXP);
         exp = translateExp(expT, ctx);
         IStrategoTerm inValueListT = t.getSubterm(POS_IN_PREDICATE_VALUES);
         QueryExpression inValueList = translateExp(inValueListT, ctx);
         return new InPredicate(exp, inValueList);
-      case "IsNull":
+      case IS_NULL:
         expT = t.getSubterm(POS_IS_NULL_EXP);
         exp = translateExp(expT, ctx);
         return new IsNull(exp);
-      case "IfElse":
+      case IF_ELSE:
         exp1 = translateExp(t.getSubterm(POS_IF_ELSE_EXP1), ctx);
         exp2 = translateExp(t.getSubterm(POS_IF_ELSE_EXP2), ctx);
         exp3 = translateExp(t.getSubterm(POS_IF_ELSE_EXP3), ctx);
         return new IfElse(exp1, exp2, exp3);
-      case "SimpleCase":
+      case SIMPLE_CASE:
         QueryExpression operandExp = translateExp(t.getSubterm(POS_SIMPLE_CASE_OPERAND), ctx);
         List<WhenThenExpression> whenThenExps = new ArrayList<>();
         for (IStrategoTerm whenThen : t.getSubterm(POS_SIMPLE_CASE_WHENTHEN_EXPS)) {
@@ -452,10 +449,9 @@ public class CommonTranslationUtil {
         IfElse ifElseAlterantiveRepresentation = (IfElse) translateExp(
             t.getSubterm(POS_SIMPLE_CASE_IFELSE_ALTERNATIVE_REPRESENTATION), ctx);
         return new SimpleCase(operandExp, whenThenExps, elseExp, ifElseAlterantiveRepresentation);
-      case "Null":
-      case "IllegalNull": // error recovery
+      case NULL:
         return null;
-      case "Array":
+      case ARRAY:
         IStrategoTerm arrayValues = t.getSubterm(0);
         int size = arrayValues.getSubtermCount();
 
@@ -540,29 +536,29 @@ public class CommonTranslationUtil {
           default:
             throw new IllegalArgumentException(arrayElementType.toString());
         }
-      case "COUNT":
-      case "MIN":
-      case "MAX":
-      case "SUM":
-      case "AVG":
-      case "ARRAY-AGG":
-      case "LISTAGG":
+      case COUNT:
+      case MIN:
+      case MAX:
+      case SUM:
+      case AVG:
+      case ARRAY_AGG:
+      case LISTAGG:
         exp = translateExp(t.getSubterm(POS_AGGREGATE_EXP), ctx);
         boolean distinct = aggregationHasDistinct(t);
-        switch (cons) {
-          case "COUNT":
+        switch (kind) {
+          case COUNT:
             return new QueryExpression.Aggregation.AggrCount(distinct, exp);
-          case "MIN":
+          case MIN:
             return new QueryExpression.Aggregation.AggrMin(distinct, exp);
-          case "MAX":
+          case MAX:
             return new QueryExpression.Aggregation.AggrMax(distinct, exp);
-          case "SUM":
+          case SUM:
             return new QueryExpression.Aggregation.AggrSum(distinct, exp);
-          case "AVG":
+          case AVG:
             return new QueryExpression.Aggregation.AggrAvg(distinct, exp);
-          case "ARRAY-AGG":
+          case ARRAY_AGG:
             return new QueryExpression.Aggregation.AggrArrayAgg(distinct, exp);
-          case "LISTAGG":
+          case LISTAGG:
             String separator = "";
             IStrategoTerm optionalSeparator = t.getSubterm(POS_AGGREGATE_SEPARATOR);
             if (isSome(optionalSeparator)) {
@@ -571,9 +567,9 @@ public class CommonTranslationUtil {
             }
             return new QueryExpression.Aggregation.AggrListagg(distinct, exp, separator);
           default:
-            throw new IllegalArgumentException(cons);
+            throw new IllegalArgumentException(kind.toString());
         }
-      case "JSON-ARRAYAGG":
+      case JSON_ARRAYAGG:
         exp = translateExp(t.getSubterm(POS_JSON_ARRAYAGG_EXP), ctx);
 
         boolean formatJson = isSome(t.getSubterm(POS_JSON_ARRAYAGG_FORMAT_JSON));
@@ -590,7 +586,7 @@ public class CommonTranslationUtil {
         String jsonReturnType = isSome(jsonReturnTypeT) ? getString(jsonReturnTypeT) : null;
 
         return new QueryExpression.Aggregation.AggrJsonArrayagg(exp, formatJson, orderBy, jsonOnNull, jsonReturnType);
-      case "Star":
+      case STAR:
         return new QueryExpression.Star();
       default:
         throw new UnsupportedOperationException("Expression unsupported: " + t);
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.metaborg.core.messages.IMessage;
+import org.metaborg.core.source.AffectedSourceHelper;
+import org.metaborg.core.source.ISourceRegion;
+
+import com.google.common.collect.Lists;
+
+import oracle.pgql.lang.PgqlDiagnostic.Severity;
+
+/**
+ * The error messages of a parse. The Spoofax messages are only turned into diagnostics or pretty-printed text when
+ * asked for, since many callers only check whether a query is valid.
+ */
+class ErrorMessages {
+
+  private static final String NON_BREAKING_WHITE_SPACE_ERROR = "Illegal character '\u00a0' (non-breaking white space)"
+      + "; use a normal space instead";
+
+  private static final String ERROR_MESSSAGE_INDENTATION = "\t";
+
+  private final Iterable<IMessage> messages;
+
+  private final String sourceText;
+
+  private volatile String text;
+
+  private volatile List<PgqlDiagnostic> diagnostics;
+
+  private ErrorMessages(Iterable<IMessage> messages, String sourceText, String text) {
+    this.messages = messages;
+    this.sourceText = sourceText;
+    this.text = text;
+  }
+
+  /**
+   * @param messages
+   *          the messages from Spoofax, which are in reverse order
+   * @param sourceText
+   *          the query string the messages refer to
+   */
+  static ErrorMessages of(Iterable<IMessage> messages, String sourceText) {
+    return new ErrorMessages(messages, sourceText, null);
+  }
+
+  /**
+   * @return messages consisting of a single error without a region, or null if the message is null
+   */
+  static ErrorMessages of(String message) {
+    return message == null ? null : new ErrorMessages(null, null, message);
+  }
+
+  String getText() {
+    String result = text;
+    if (result == null) {
+      result = prettyPrint(orderedMessages(), sourceText);
+      text = result;
+    }
+    return result;
+  }
+
+  List<PgqlDiagnostic> getDiagnostics() {
+    List<PgqlDiagnostic> result = diagnostics;
+    if (result == null) {
+      result = new ArrayList<>();
+      if (messages == null) {
+        result.add(new PgqlDiagnostic(Severity.ERROR, text));
+      } else {
+        for (IMessage message : orderedMessages()) {
+          result.add(toDiagnostic(message));
+        }
+      }
+      result = Collections.unmodifiableList(result);
+      diagnostics = result;
+    }
+    return result;
+  }
+
+  private List<IMessage> orderedMessages() {
+    // Reverse the messages to have them in the right order (top to bottom)
+    return Lists.reverse(Lists.newArrayList(messages.iterator()));
+  }
+
+  private static PgqlDiagnostic toDiagnostic(IMessage message) {
+    Severity severity;
+    switch (message.severity()) {
+      case NOTE:
+        severity = Severity.NOTE;
+        break;
+      case WARNING:
+        severity = Severity.WARNING;
+        break;
+      case ERROR:
+      default:
+        severity = Severity.ERROR;
+    }
+    ISourceRegion region = message.region();
+    if (region == null) { // null when query string is empty (e.g. "")
+      return new PgqlDiagnostic(severity, getMessage(message));
+    }
+    return new PgqlDiagnostic(severity, getMessage(message), region.startOffset(), region.endOffset(),
+        region.startRow() + 1, region.startColumn() + 1, region.endRow() + 1, region.endColumn() + 1);
+  }
+
+  private static String getMessage(IMessage message) {
+    String m = message.message();
+    if (m.contains(" ")) {
+      m = NON_BREAKING_WHITE_SPACE_ERROR;
+    }
+    return m;
+  }
+
+  /**
+   * Pretty-prints messages (i.e. compiler errors/warnings/notes) into a string.
+   */
+  private static String prettyPrint(List<IMessage> messages, String sourceText) {
+    StringBuilder sb = new StringBuilder();
+    int lineNumber = -1;
+
+    Iterator<IMessage> it = messages.iterator();
+    while (it.hasNext()) {
+      IMessage message = it.next();
+      if (message.region() != null) { // null when query string is empty (e.g. "")
+        int startRow = message.region().startRow() + 1;
+        if (lineNumber != startRow) {
+          if (lineNumber != -1) {
+            sb.append("\n");
+          }
+          lineNumber = startRow;
+          sb.append("Error(s) in line " + startRow + ":");
+        }
+      }
+
+      String affectedSourceText;
+      try {
+        affectedSourceText = AffectedSourceHelper.affectedSourceText(message.region(), sourceText,
+            ERROR_MESSSAGE_INDENTATION);
+      } catch (NullPointerException e) {
+        // workaround for Spoofax bug, see GM-5111
+        affectedSourceText = null;
+      }
+
+      sb.append("\n\n");
+
+      if (affectedSourceText != null) {
+        sb.append(affectedSourceText);
+      }
+
+      sb.append(ERROR_MESSSAGE_INDENTATION + getMessage(message));
+
+      if (it.hasNext()) {
+        sb.append("\n");
+      }
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.spoofax.interpreter.terms.IStrategoConstructor;
+
+/**
+ * The kinds of expressions in the analyzed AST, for dispatching in {@link CommonTranslationUtil#translateExp} without
+ * comparing constructor names.
+ *
+ * Spoofax interns constructors, so a term factory creates a single constructor object per name and arity. The kind of
+ * each constructor object is therefore resolved by name only once per translation and is looked up by identity
+ * afterwards (see {@link TranslationContext#getExpressionKind(IStrategoConstructor)}).
+ */
+enum ExpressionKind {
+
+  EXPRESSION_PLUS_TYPE("ExpressionPlusType"),
+  SUB("Sub"),
+  ADD("Add"),
+  MUL("Mul"),
+  DIV("Div"),
+  MOD("Mod"),
+  UMIN("UMin"),
+  AND("And"),
+  OR("Or"),
+  NOT("Not"),
+  EQ("Eq"),
+  NEQ("Neq"),
+  GT("Gt"),
+  GTE("Gte"),
+  LT("Lt"),
+  LTE("Lte"),
+  CCT("Cct"),
+  INTEGER("Integer"),
+  DECIMAL("Decimal"),
+  STRING("String", "Identifier"), // identifier "hello" in (n:hello) becomes string 'hello' in has_label(n, 'hello')
+  TRUE("True"),
+  FALSE("False"),
+  DATE("Date"),
+  TIME("Time"),
+  TIMESTAMP("Timestamp"),
+  INTERVAL("Interval"),
+  VAR_REF("VarRef"),
+  BIND_VARIABLE("BindVariable"),
+  PROP_REF("PropRef"),
+  CAST("Cast"),
+  CHARACTER_SUBSTRING("CharacterSubstring"),
+  BETWEEN_PREDICATE("BetweenPredicate"),
+  SOURCE_DESTINATION_PREDICATE("SourceDestinationPredicate"),
+  EXISTS("Exists"),
+  SCALAR_SUBQUERY("ScalarSubquery"),
+  FUNCTION_CALL("CallStatement", "FunctionCall"),
+  EXTRACT_EXP("ExtractExp"),
+  IN_PREDICATE("InPredicate"),
+  IS_NULL("IsNull"),
+  IF_ELSE("IfElse"),
+  SIMPLE_CASE("SimpleCase"),
+  NULL("Null", "IllegalNull"), // IllegalNull is for error recovery
+  ARRAY("Array"),
+  COUNT("COUNT"),
+  MIN("MIN"),
+  MAX("MAX"),
+  SUM("SUM"),
+  AVG("AVG"),
+  ARRAY_AGG("ARRAY-AGG"),
+  LISTAGG("LISTAGG"),
+  JSON_ARRAYAGG("JSON-ARRAYAGG"),
+  STAR("Star"),
+  UNSUPPORTED;
+
+  private static final Map<String, ExpressionKind> KINDS_BY_NAME = new HashMap<>();
+  static {
+    for (ExpressionKind kind : values()) {
+      for (String constructorName : kind.constructorNames) {
+        KINDS_BY_NAME.put(constructorName, kind);
+      }
+    }
+  }
+
+  private final String[] constructorNames;
+
+  private ExpressionKind(String... constructorNames) {
+    this.constructorNames = constructorNames;
+  }
+
+  /**
+   * @return the kind of expression of the constructor, resolved by name
+   */
+  static ExpressionKind of(IStrategoConstructor constructor) {
+    return KINDS_BY_NAME.getOrDefault(constructor.getName(), UNSUPPORTED);
+  }
+}
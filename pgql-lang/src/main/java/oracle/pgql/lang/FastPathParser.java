@@ -0,0 +1,925 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import oracle.pgql.lang.ir.Direction;
+import oracle.pgql.lang.ir.ExpAsVar;
+import oracle.pgql.lang.ir.GraphPattern;
+import oracle.pgql.lang.ir.OrderBy;
+import oracle.pgql.lang.ir.OrderByElem;
+import oracle.pgql.lang.ir.Projection;
+import oracle.pgql.lang.ir.QueryEdge;
+import oracle.pgql.lang.ir.QueryExpression;
+import oracle.pgql.lang.ir.QueryExpression.ArithmeticExpression.Add;
+import oracle.pgql.lang.ir.QueryExpression.ArithmeticExpression.Div;
+import oracle.pgql.lang.ir.QueryExpression.ArithmeticExpression.Mod;
+import oracle.pgql.lang.ir.QueryExpression.ArithmeticExpression.Mul;
+import oracle.pgql.lang.ir.QueryExpression.ArithmeticExpression.Sub;
+import oracle.pgql.lang.ir.QueryExpression.Constant.ConstBoolean;
+import oracle.pgql.lang.ir.QueryExpression.Constant.ConstDecimal;
+import oracle.pgql.lang.ir.QueryExpression.Constant.ConstInteger;
+import oracle.pgql.lang.ir.QueryExpression.Constant.ConstString;
+import oracle.pgql.lang.ir.QueryExpression.FunctionCall;
+import oracle.pgql.lang.ir.QueryExpression.LogicalExpression.And;
+import oracle.pgql.lang.ir.QueryExpression.LogicalExpression.Not;
+import oracle.pgql.lang.ir.QueryExpression.LogicalExpression.Or;
+import oracle.pgql.lang.ir.QueryExpression.PropertyAccess;
+import oracle.pgql.lang.ir.QueryExpression.RelationalExpression.Equal;
+import oracle.pgql.lang.ir.QueryExpression.RelationalExpression.Greater;
+import oracle.pgql.lang.ir.QueryExpression.RelationalExpression.GreaterEqual;
+import oracle.pgql.lang.ir.QueryExpression.RelationalExpression.Less;
+import oracle.pgql.lang.ir.QueryExpression.RelationalExpression.LessEqual;
+import oracle.pgql.lang.ir.QueryExpression.RelationalExpression.NotEqual;
+import oracle.pgql.lang.ir.QueryExpression.VarRef;
+import oracle.pgql.lang.ir.QueryVariable;
+import oracle.pgql.lang.ir.QueryVertex;
+import oracle.pgql.lang.ir.SelectQuery;
+import oracle.pgql.lang.ir.TableExpression;
+import oracle.pgql.lang.ir.VertexPairConnection;
+
+/**
+ * A hand-written parser for common shapes of PGQL 1.3 SELECT queries, which translates them directly into the
+ * {@link SelectQuery} that parsing, analysis and translation by Spoofax produce for them (see
+ * {@link Pgql#setFastPathParsing(boolean)}). Recognized are queries of the form
+ *
+ * <pre>
+ * SELECT [DISTINCT] item, ... FROM MATCH (v[:Label]) -[e[:Label]]-> (w[:Label]) ...
+ *   [WHERE exp] [ORDER BY exp [ASC|DESC], ...] [LIMIT n] [OFFSET n]
+ * </pre>
+ *
+ * in which all vertices and edges are named, edges are -[e]->, &lt;-[e]- or -[e]-, a SELECT item is a property
+ * reference, a variable reference or an expression with an alias, and expressions consist of property references,
+ * integer, decimal, string and boolean literals, arithmetic, comparison and logical operators, and parentheses.
+ *
+ * The parser is conservative: it gives up on anything it does not recognize, as well as on queries that Spoofax might
+ * analyze differently, reject or rewrite in ways that are not reproduced here (for example operations on literals of
+ * incompatible types, or references to SELECT aliases in WHERE). Such queries, including all invalid ones, are left
+ * to Spoofax, which then also produces the error messages.
+ */
+class FastPathParser {
+
+  /**
+   * Words that are not recognized as names of variables, aliases or labels, since they are keywords in (some part of)
+   * the PGQL grammar.
+   */
+  private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList("ALL", "AND", "ANY", "ARRAY_AGG", "AS",
+      "ASC", "AVG", "BETWEEN", "BY", "CASE", "CAST", "CHEAPEST", "COLUMNS", "COST", "COUNT", "CREATE", "DATE",
+      "DELETE", "DESC", "DESTINATION", "DISTINCT", "DROP", "EDGE", "ELSE", "END", "EXISTS", "EXTRACT", "FALSE",
+      "FETCH", "FIRST", "FROM", "GRAPH", "GRAPH_TABLE", "GROUP", "HAVING", "IN", "INSERT", "INTERVAL", "INTO", "IS",
+      "JSON_ARRAYAGG", "KEEP", "LABEL", "LABELED", "LABELS", "LATERAL", "LIMIT", "LISTAGG", "MATCH", "MAX", "MIN",
+      "NEXT", "NOT", "NULL", "OF", "OFFSET", "ON", "ONE", "ONLY", "OR", "ORDER", "PATH", "PER", "PROPERTIES",
+      "PROPERTY", "ROW", "ROWS", "SELECT", "SET", "SHORTEST", "SOURCE", "STEP", "SUBSTRING", "SUM", "THEN", "TIME",
+      "TIMESTAMP", "TOP", "TRUE", "UPDATE", "VERTEX", "WHEN", "WHERE"));
+
+  /**
+   * Words that are not allowed as identifiers at all, see REGULAR-IDENTIFIER in the grammar.
+   */
+  private static final Set<String> RESERVED_WORDS = new HashSet<>(
+      Arrays.asList("TRUE", "FALSE", "NULL", "NOT", "DISTINCT"));
+
+  /**
+   * The symbols in the recognized queries, with longer symbols before their prefixes. The '?' of bind variables is not
+   * among them, so that queries with bind variables are not recognized (see {@link #BIND_VARIABLE_COUNT}).
+   */
+  private static final List<String> SYMBOLS = Collections.unmodifiableList(Arrays.asList("<-[", "-[", "]->", "]-",
+      "<>", "<=", ">=", "!=", "(", ")", ",", ".", ":", "*", "/", "%", "+", "-", "=", "<", ">"));
+
+  /**
+   * The number of bind variables of every recognized query, since bind variables are not recognized.
+   */
+  static final int BIND_VARIABLE_COUNT = 0;
+
+  /**
+   * Whether recognized queries select all properties of a variable, which they do not since neither SELECT * nor
+   * SELECT n.* is recognized: '*' is only recognized as multiplication and a property name must be an identifier.
+   */
+  static final boolean SELECTS_ALL_PROPERTIES = false;
+
+  /**
+   * Integer literals with more digits may not fit in a long.
+   */
+  private static final int MAX_INTEGER_DIGITS = 18;
+
+  private final List<Token> tokens;
+
+  private int pos;
+
+  private final Map<String, PatternElement> vertices = new LinkedHashMap<>();
+
+  private final Map<String, PatternElement> edges = new LinkedHashMap<>();
+
+  private FastPathParser(List<Token> tokens) {
+    this.tokens = tokens;
+  }
+
+  /**
+   * @return the query, or null if the query is not recognized
+   */
+  static SelectQuery parse(String queryString) {
+    if (queryString.contains("/*") || queryString.contains("//") || queryString.indexOf('\\') != -1) {
+      return null; // comments and escape characters
+    }
+    try {
+      return new FastPathParser(tokenize(queryString)).parseQuery();
+    } catch (NotRecognized e) {
+      return null;
+    }
+  }
+
+  private SelectQuery parseQuery() throws NotRecognized {
+    expectKeyword("SELECT");
+    boolean distinct = acceptKeyword("DISTINCT");
+    List<SelectItem> selectItems = new ArrayList<>();
+    do {
+      selectItems.add(parseSelectItem());
+    } while (acceptSymbol(","));
+
+    expectKeyword("FROM");
+    expectKeyword("MATCH");
+    parsePathPattern();
+
+    Node where = null;
+    if (acceptKeyword("WHERE")) {
+      where = parseExp();
+      check(where.kind.isBoolean());
+    }
+
+    List<Node> orderByExps = new ArrayList<>();
+    List<Boolean> orderByAscending = new ArrayList<>();
+    if (acceptKeyword("ORDER")) {
+      expectKeyword("BY");
+      do {
+        orderByExps.add(parseExp());
+        boolean ascending = !acceptKeyword("DESC");
+        if (ascending) {
+          acceptKeyword("ASC");
+        }
+        orderByAscending.add(ascending);
+      } while (acceptSymbol(","));
+    }
+
+    Long limit = null;
+    Long offset = null;
+    if (acceptKeyword("LIMIT")) {
+      limit = parseInteger();
+      if (acceptKeyword("OFFSET")) {
+        offset = parseInteger();
+      }
+    } else if (acceptKeyword("OFFSET")) {
+      offset = parseInteger();
+      if (acceptKeyword("LIMIT")) {
+        limit = parseInteger();
+      }
+    }
+    check(peek().type == TokenType.END);
+
+    return translate(distinct, selectItems, where, orderByExps, orderByAscending, limit, offset);
+  }
+
+  private SelectItem parseSelectItem() throws NotRecognized {
+    int first = pos;
+    Node exp = parseExp();
+    int numTokens = pos - first;
+    if (acceptKeyword("AS")) {
+      check(exp.kind != NodeKind.VAR && exp.referencesProperty());
+      Token alias = parseName();
+      return new SelectItem(exp, alias.text.toUpperCase(), alias.text, false, alias);
+    } else if (exp.kind == NodeKind.PROPERTY && numTokens == 3) {
+      Token property = tokens.get(first + 2);
+      return new SelectItem(exp, property.text.toUpperCase(), property.text, false, property);
+    } else if (exp.kind == NodeKind.VAR && numTokens == 1) {
+      Token var = tokens.get(first);
+      return new SelectItem(exp, var.text.toUpperCase(), var.text, true, var);
+    }
+    throw NotRecognized.INSTANCE; // Spoofax names other expressions after their text
+  }
+
+  private void parsePathPattern() throws NotRecognized {
+    PatternElement previousVertex = parseVertex();
+    while (isSymbol("-[") || isSymbol("<-[")) {
+      boolean incoming = acceptSymbol("<-[");
+      if (!incoming) {
+        expectSymbol("-[");
+      }
+      PatternElement edge = parseElementContents(edges);
+      Direction direction;
+      if (incoming) {
+        expectSymbol("]-");
+        direction = Direction.INCOMING;
+      } else if (acceptSymbol("]->")) {
+        direction = Direction.OUTGOING;
+      } else {
+        expectSymbol("]-");
+        direction = Direction.ANY;
+      }
+      PatternElement nextVertex = parseVertex();
+      edge.direction = direction;
+      edge.src = incoming ? nextVertex : previousVertex;
+      edge.dst = incoming ? previousVertex : nextVertex;
+      previousVertex = nextVertex;
+    }
+  }
+
+  private PatternElement parseVertex() throws NotRecognized {
+    expectSymbol("(");
+    PatternElement vertex = parseElementContents(vertices);
+    expectSymbol(")");
+    return vertex;
+  }
+
+  private PatternElement parseElementContents(Map<String, PatternElement> elements) throws NotRecognized {
+    Token name = parseName();
+    String label = null;
+    if (acceptSymbol(":")) {
+      label = parseName().text.toUpperCase();
+    }
+    PatternElement element = new PatternElement(name, label);
+    check(!vertices.containsKey(element.name) && !edges.containsKey(element.name));
+    elements.put(element.name, element);
+    return element;
+  }
+
+  private Token parseName() throws NotRecognized {
+    Token token = next();
+    check(token.type == TokenType.IDENTIFIER && !KEYWORDS.contains(token.text.toUpperCase()));
+    return token;
+  }
+
+  private long parseInteger() throws NotRecognized {
+    Token token = next();
+    check(token.type == TokenType.INTEGER && token.text.length() <= MAX_INTEGER_DIGITS);
+    return Long.parseLong(token.text);
+  }
+
+  private Node parseExp() throws NotRecognized {
+    Node exp = parseAnd();
+    while (acceptKeyword("OR")) {
+      exp = logical(NodeKind.OR, exp, parseAnd());
+    }
+    return exp;
+  }
+
+  private Node parseAnd() throws NotRecognized {
+    Node exp = parseNot();
+    while (acceptKeyword("AND")) {
+      exp = logical(NodeKind.AND, exp, parseNot());
+    }
+    return exp;
+  }
+
+  private Node parseNot() throws NotRecognized {
+    if (acceptKeyword("NOT")) {
+      Node exp = parseNot();
+      check(exp.kind.isBoolean());
+      return new Node(NodeKind.NOT, null, null, exp, null);
+    }
+    return parseComparison();
+  }
+
+  private Node parseComparison() throws NotRecognized {
+    Node left = parseAdditive();
+    NodeKind kind = NodeKind.comparisonForSymbol(peek());
+    if (kind == null) {
+      return left;
+    }
+    next();
+    Node right = parseAdditive();
+    check(NodeKind.comparisonForSymbol(peek()) == null); // chained comparisons compare booleans
+    check(left.kind.isComparable() && right.kind.isComparable() && !(left.kind.isLiteral() && right.kind.isLiteral()));
+    // leave the typing of strings and booleans against anything other than a property to Spoofax
+    check(!left.kind.isNonNumericLiteral() || right.kind == NodeKind.PROPERTY);
+    check(!right.kind.isNonNumericLiteral() || left.kind == NodeKind.PROPERTY);
+    return new Node(kind, null, null, left, right);
+  }
+
+  private Node parseAdditive() throws NotRecognized {
+    Node exp = parseMultiplicative();
+    while (true) {
+      if (acceptSymbol("+")) {
+        exp = arithmetic(NodeKind.ADD, exp, parseMultiplicative());
+      } else if (acceptSymbol("-")) {
+        exp = arithmetic(NodeKind.SUB, exp, parseMultiplicative());
+      } else {
+        return exp;
+      }
+    }
+  }
+
+  private Node parseMultiplicative() throws NotRecognized {
+    Node exp = parsePrimary();
+    while (true) {
+      if (acceptSymbol("*")) {
+        exp = arithmetic(NodeKind.MUL, exp, parsePrimary());
+      } else if (acceptSymbol("/")) {
+        exp = arithmetic(NodeKind.DIV, exp, parsePrimary());
+      } else if (acceptSymbol("%")) {
+        exp = arithmetic(NodeKind.MOD, exp, parsePrimary());
+      } else {
+        return exp;
+      }
+    }
+  }
+
+  private Node parsePrimary() throws NotRecognized {
+    Token token = next();
+    switch (token.type) {
+      case INTEGER:
+        check(token.text.length() <= MAX_INTEGER_DIGITS);
+        return new Node(NodeKind.INTEGER, token.text, null, null, null);
+      case DECIMAL:
+        return new Node(NodeKind.DECIMAL, token.text, null, null, null);
+      case STRING:
+        return new Node(NodeKind.STRING, token.text, null, null, null);
+      case IDENTIFIER:
+        String upperCase = token.text.toUpperCase();
+        if (upperCase.equals("TRUE")) {
+          return new Node(NodeKind.TRUE, null, null, null, null);
+        } else if (upperCase.equals("FALSE")) {
+          return new Node(NodeKind.FALSE, null, null, null, null);
+        }
+        check(!KEYWORDS.contains(upperCase));
+        if (isSymbol(".")) {
+          Token dot = next();
+          Token property = next();
+          check(property.type == TokenType.IDENTIFIER && !RESERVED_WORDS.contains(property.text.toUpperCase()));
+          check(dot.start == token.end && property.start == dot.end);
+          return new Node(NodeKind.PROPERTY, upperCase, property.text.toUpperCase(), null, null);
+        }
+        return new Node(NodeKind.VAR, upperCase, null, null, null);
+      case SYMBOL:
+        if (token.text.equals("(")) {
+          Node exp = parseExp();
+          expectSymbol(")");
+          return exp;
+        }
+        throw NotRecognized.INSTANCE; // including '*' of SELECT * (see SELECTS_ALL_PROPERTIES)
+      default:
+        throw NotRecognized.INSTANCE;
+    }
+  }
+
+  private static Node arithmetic(NodeKind kind, Node left, Node right) throws NotRecognized {
+    check(left.kind.isArithmeticOperand() && right.kind.isArithmeticOperand()
+        && !(left.kind.isLiteral() && right.kind.isLiteral()));
+    return new Node(kind, null, null, left, right);
+  }
+
+  private static Node logical(NodeKind kind, Node left, Node right) throws NotRecognized {
+    check(left.kind.isBoolean() && right.kind.isBoolean());
+    return new Node(kind, null, null, left, right);
+  }
+
+  private SelectQuery translate(boolean distinct, List<SelectItem> selectItems, Node where, List<Node> orderByExps,
+      List<Boolean> orderByAscending, Long limit, Long offset) throws NotRecognized {
+
+    // MATCH
+    Map<String, QueryVariable> matchVariables = new HashMap<>();
+    Set<QueryVertex> queryVertices = new HashSet<>();
+    for (PatternElement vertex : vertices.values()) {
+      QueryVertex queryVertex = new QueryVertex(vertex.name, vertex.uniqueName, false, null);
+      matchVariables.put(vertex.name, queryVertex);
+      queryVertices.add(queryVertex);
+    }
+    LinkedHashSet<VertexPairConnection> connections = new LinkedHashSet<>();
+    for (PatternElement edge : edges.values()) {
+      QueryEdge queryEdge = new QueryEdge((QueryVertex) matchVariables.get(edge.src.name),
+          (QueryVertex) matchVariables.get(edge.dst.name), edge.name, edge.uniqueName, false, edge.direction, null);
+      matchVariables.put(edge.name, queryEdge);
+      connections.add(queryEdge);
+    }
+
+    // SELECT
+    Set<String> selectedVariables = new HashSet<>();
+    Map<String, SelectItem> selectItemsByName = new HashMap<>();
+    for (SelectItem selectItem : selectItems) {
+      if (selectItem.exp.kind == NodeKind.VAR) {
+        check(matchVariables.containsKey(selectItem.name));
+        selectedVariables.add(selectItem.name);
+      } else {
+        check(!matchVariables.containsKey(selectItem.name));
+        checkReferencesMatchVariables(selectItem.exp, matchVariables.keySet());
+      }
+      check(selectItemsByName.put(selectItem.name, selectItem) == null);
+      for (SelectItem otherItem : selectItems) {
+        check(otherItem == selectItem || !otherItem.exp.equals(selectItem.exp));
+      }
+    }
+
+    // WHERE
+    if (where != null) {
+      checkReferencesMatchVariables(where, matchVariables.keySet());
+    }
+
+    // ORDER BY resolves names to SELECT items first and replaces expressions of SELECT items by references to them
+    List<Node> resolvedOrderByExps = new ArrayList<>();
+    for (Node orderByExp : orderByExps) {
+      check(!orderByExp.kind.isLiteral());
+      if (orderByExp.kind == NodeKind.VAR) {
+        SelectItem selectItem = selectItemsByName.get(orderByExp.value);
+        check(selectItem != null && selectItem.exp.kind != NodeKind.VAR); // cannot order by vertices and edges
+        orderByExp = new Node(NodeKind.ALIAS, selectItem.name, null, null, null);
+      } else {
+        Set<String> visibleVariables = new HashSet<>(matchVariables.keySet());
+        visibleVariables.removeAll(selectedVariables); // Spoofax resolves n in n.prop to SELECT n instead
+        checkReferencesMatchVariables(orderByExp, visibleVariables);
+        orderByExp = replaceSelectedExps(orderByExp, selectItems);
+      }
+      check(!distinct || orderByExp.kind == NodeKind.ALIAS);
+      check(!resolvedOrderByExps.contains(orderByExp)); // Spoofax removes duplicates
+      resolvedOrderByExps.add(orderByExp);
+    }
+
+    // translation
+    List<ExpAsVar> expAsVars = new ArrayList<>();
+    Map<String, QueryVariable> selectVariables = new HashMap<>();
+    for (SelectItem selectItem : selectItems) {
+      QueryExpression exp = translateExp(selectItem.exp, matchVariables, selectVariables);
+      ExpAsVar expAsVar = new ExpAsVar(exp, selectItem.name, selectItem.uniqueName, selectItem.anonymous,
+          selectItem.originName);
+      expAsVars.add(expAsVar);
+      selectVariables.put(selectItem.name, expAsVar);
+    }
+
+    LinkedHashSet<QueryExpression> constraints = new LinkedHashSet<>();
+    for (PatternElement element : vertices.values()) {
+      addLabelConstraint(element, matchVariables, constraints);
+    }
+    for (PatternElement element : edges.values()) {
+      addLabelConstraint(element, matchVariables, constraints);
+    }
+    if (where != null) {
+      addConjuncts(translateExp(where, matchVariables, selectVariables), constraints);
+    }
+    List<TableExpression> tableExpressions = new ArrayList<>();
+    tableExpressions.add(new GraphPattern(queryVertices, connections, constraints));
+
+    List<OrderByElem> orderByElems = new ArrayList<>();
+    for (int i = 0; i < resolvedOrderByExps.size(); i++) {
+      QueryExpression exp = translateExp(resolvedOrderByExps.get(i), matchVariables, selectVariables);
+      orderByElems.add(new OrderByElem(exp, orderByAscending.get(i)));
+    }
+
+    return new SelectQuery(new ArrayList<>(), new Projection(distinct, expAsVars), null, tableExpressions,
+        new LinkedHashSet<>(), null, null, new OrderBy(orderByElems), limit == null ? null : new ConstInteger(limit),
+        offset == null ? null : new ConstInteger(offset));
+  }
+
+  private static void checkReferencesMatchVariables(Node exp, Set<String> variables) throws NotRecognized {
+    if (exp.kind == NodeKind.PROPERTY || exp.kind == NodeKind.VAR) {
+      check(variables.contains(exp.value));
+    }
+    if (exp.left != null) {
+      checkReferencesMatchVariables(exp.left, variables);
+    }
+    if (exp.right != null) {
+      checkReferencesMatchVariables(exp.right, variables);
+    }
+  }
+
+  private static Node replaceSelectedExps(Node exp, List<SelectItem> selectItems) {
+    for (SelectItem selectItem : selectItems) {
+      if (selectItem.exp.equals(exp)) {
+        return new Node(NodeKind.ALIAS, selectItem.name, null, null, null);
+      }
+    }
+    if (exp.left == null) {
+      return exp;
+    }
+    Node left = replaceSelectedExps(exp.left, selectItems);
+    Node right = exp.right == null ? null : replaceSelectedExps(exp.right, selectItems);
+    return new Node(exp.kind, exp.value, exp.property, left, right);
+  }
+
+  private static void addLabelConstraint(PatternElement element, Map<String, QueryVariable> matchVariables,
+      Set<QueryExpression> constraints) {
+    if (element.label != null) {
+      List<QueryExpression> args = new ArrayList<>();
+      args.add(new VarRef(matchVariables.get(element.name)));
+      args.add(new ConstString(element.label));
+      constraints.add(new FunctionCall(null, null, "has_label", args));
+    }
+  }
+
+  private static void addConjuncts(QueryExpression exp, Set<QueryExpression> constraints) {
+    if (exp instanceof And) {
+      addConjuncts(((And) exp).getExp1(), constraints);
+      addConjuncts(((And) exp).getExp2(), constraints);
+    } else {
+      constraints.add(exp);
+    }
+  }
+
+  private static QueryExpression translateExp(Node exp, Map<String, QueryVariable> matchVariables,
+      Map<String, QueryVariable> selectVariables) {
+    switch (exp.kind) {
+      case INTEGER:
+        return new ConstInteger(Long.parseLong(exp.value));
+      case DECIMAL:
+        return new ConstDecimal(Double.parseDouble(exp.value));
+      case STRING:
+        return new ConstString(exp.value);
+      case TRUE:
+        return new ConstBoolean(true);
+      case FALSE:
+        return new ConstBoolean(false);
+      case PROPERTY:
+        return new PropertyAccess(matchVariables.get(exp.value), exp.property);
+      case VAR:
+        return new VarRef(matchVariables.get(exp.value));
+      case ALIAS:
+        return new VarRef(selectVariables.get(exp.value));
+      case NOT:
+        return new Not(translateExp(exp.left, matchVariables, selectVariables));
+      default:
+        break;
+    }
+    QueryExpression left = translateExp(exp.left, matchVariables, selectVariables);
+    QueryExpression right = translateExp(exp.right, matchVariables, selectVariables);
+    switch (exp.kind) {
+      case ADD:
+        return new Add(left, right);
+      case SUB:
+        return new Sub(left, right);
+      case MUL:
+        return new Mul(left, right);
+      case DIV:
+        return new Div(left, right);
+      case MOD:
+        return new Mod(left, right);
+      case EQ:
+        return new Equal(left, right);
+      case NEQ:
+        return new NotEqual(left, right);
+      case LT:
+        return new Less(left, right);
+      case LTE:
+        return new LessEqual(left, right);
+      case GT:
+        return new Greater(left, right);
+      case GTE:
+        return new GreaterEqual(left, right);
+      case AND:
+        return new And(left, right);
+      case OR:
+        return new Or(left, right);
+      default:
+        throw new IllegalArgumentException(exp.kind.toString());
+    }
+  }
+
+  private Token peek() {
+    return tokens.get(pos);
+  }
+
+  private Token next() throws NotRecognized {
+    Token token = tokens.get(pos);
+    check(token.type != TokenType.END);
+    pos++;
+    return token;
+  }
+
+  private boolean isKeyword(String keyword) {
+    Token token = peek();
+    return token.type == TokenType.IDENTIFIER && token.text.equalsIgnoreCase(keyword);
+  }
+
+  private boolean acceptKeyword(String keyword) {
+    if (isKeyword(keyword)) {
+      pos++;
+      return true;
+    }
+    return false;
+  }
+
+  private void expectKeyword(String keyword) throws NotRecognized {
+    check(acceptKeyword(keyword));
+  }
+
+  private boolean isSymbol(String symbol) {
+    Token token = peek();
+    return token.type == TokenType.SYMBOL && token.text.equals(symbol);
+  }
+
+  private boolean acceptSymbol(String symbol) {
+    if (isSymbol(symbol)) {
+      pos++;
+      return true;
+    }
+    return false;
+  }
+
+  private void expectSymbol(String symbol) throws NotRecognized {
+    check(acceptSymbol(symbol));
+  }
+
+  private static void check(boolean condition) throws NotRecognized {
+    if (!condition) {
+      throw NotRecognized.INSTANCE;
+    }
+  }
+
+  private static List<Token> tokenize(String queryString) throws NotRecognized {
+    List<Token> tokens = new ArrayList<>();
+    int length = queryString.length();
+    int i = 0;
+    while (i < length) {
+      char c = queryString.charAt(i);
+      int start = i;
+      if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+        i++;
+        continue;
+      } else if (isLetter(c)) {
+        while (i < length && (isLetter(queryString.charAt(i)) || isDigit(queryString.charAt(i))
+            || queryString.charAt(i) == '_')) {
+          i++;
+        }
+        tokens.add(new Token(TokenType.IDENTIFIER, queryString.substring(start, i), start, i));
+      } else if (isDigit(c)) {
+        while (i < length && isDigit(queryString.charAt(i))) {
+          i++;
+        }
+        TokenType type = TokenType.INTEGER;
+        if (i + 1 < length && queryString.charAt(i) == '.' && isDigit(queryString.charAt(i + 1))) {
+          i++;
+          while (i < length && isDigit(queryString.charAt(i))) {
+            i++;
+          }
+          type = TokenType.DECIMAL;
+        }
+        // a number that runs into a name, as in 1ORDER, or into another dot is left to the Spoofax lexer
+        check(i == length || !(isLetter(queryString.charAt(i)) || queryString.charAt(i) == '_'
+            || queryString.charAt(i) == '.'));
+        tokens.add(new Token(type, queryString.substring(start, i), start, i));
+      } else if (c == '\'') {
+        StringBuilder value = new StringBuilder();
+        i++;
+        while (true) {
+          check(i < length);
+          char s = queryString.charAt(i++);
+          if (s == '\'') {
+            if (i < length && queryString.charAt(i) == '\'') {
+              i++;
+            } else {
+              break;
+            }
+          }
+          value.append(s);
+        }
+        tokens.add(new Token(TokenType.STRING, value.toString(), start, i));
+      } else {
+        String symbol = getSymbol(queryString, i);
+        i += symbol.length();
+        tokens.add(new Token(TokenType.SYMBOL, symbol, start, i));
+      }
+    }
+    tokens.add(new Token(TokenType.END, "", length, length));
+    return tokens;
+  }
+
+  private static String getSymbol(String queryString, int i) throws NotRecognized {
+    for (String symbol : SYMBOLS) {
+      if (queryString.startsWith(symbol, i)) {
+        return symbol;
+      }
+    }
+    throw NotRecognized.INSTANCE;
+  }
+
+  private static boolean isLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private enum TokenType {
+    IDENTIFIER,
+    INTEGER,
+    DECIMAL,
+    STRING,
+    SYMBOL,
+    END
+  }
+
+  private static class Token {
+
+    private final TokenType type;
+
+    /**
+     * The text of the token, or the value of a string literal.
+     */
+    private final String text;
+
+    private final int start;
+
+    private final int end;
+
+    Token(TokenType type, String text, int start, int end) {
+      this.type = type;
+      this.text = text;
+      this.start = start;
+      this.end = end;
+    }
+
+    /**
+     * @return the origin offset that Spoofax would use for an identifier at this token, see CommonTranslationUtil
+     */
+    String originOffset() {
+      return "(" + start + "," + end + ")";
+    }
+  }
+
+  private static class PatternElement {
+
+    private final String name;
+
+    private final String uniqueName;
+
+    private final String label;
+
+    private PatternElement src;
+
+    private PatternElement dst;
+
+    private Direction direction;
+
+    PatternElement(Token name, String label) {
+      this.name = name.text.toUpperCase();
+      this.uniqueName = this.name + "_" + name.originOffset();
+      this.label = label;
+    }
+  }
+
+  private static class SelectItem {
+
+    private final Node exp;
+
+    private final String name;
+
+    private final String originName;
+
+    private final boolean anonymous;
+
+    private final String uniqueName;
+
+    SelectItem(Node exp, String name, String originName, boolean anonymous, Token nameToken) {
+      this.exp = exp;
+      this.name = name;
+      this.originName = originName;
+      this.anonymous = anonymous;
+      this.uniqueName = name + "_" + nameToken.originOffset();
+    }
+  }
+
+  private enum NodeKind {
+    INTEGER,
+    DECIMAL,
+    STRING,
+    TRUE,
+    FALSE,
+    PROPERTY,
+    VAR,
+    ALIAS,
+    ADD,
+    SUB,
+    MUL,
+    DIV,
+    MOD,
+    EQ,
+    NEQ,
+    LT,
+    LTE,
+    GT,
+    GTE,
+    AND,
+    OR,
+    NOT;
+
+    static NodeKind comparisonForSymbol(Token token) {
+      if (token.type != TokenType.SYMBOL) {
+        return null;
+      }
+      switch (token.text) {
+        case "=":
+          return EQ;
+        case "<>":
+        case "!=":
+          return NEQ;
+        case "<":
+          return LT;
+        case "<=":
+          return LTE;
+        case ">":
+          return GT;
+        case ">=":
+          return GTE;
+        default:
+          return null;
+      }
+    }
+
+    boolean isLiteral() {
+      return this == INTEGER || this == DECIMAL || isNonNumericLiteral();
+    }
+
+    boolean isNonNumericLiteral() {
+      return this == STRING || this == TRUE || this == FALSE;
+    }
+
+    boolean isArithmetic() {
+      return this == ADD || this == SUB || this == MUL || this == DIV || this == MOD;
+    }
+
+    boolean isArithmeticOperand() {
+      return this == PROPERTY || this == INTEGER || this == DECIMAL || isArithmetic();
+    }
+
+    boolean isComparable() {
+      return this == PROPERTY || isLiteral() || isArithmetic();
+    }
+
+    boolean isBoolean() {
+      return this == EQ || this == NEQ || this == LT || this == LTE || this == GT || this == GTE || this == AND
+          || this == OR || this == NOT;
+    }
+  }
+
+  /**
+   * An expression as it was written, with names in upper case, so that expressions can be compared the way Spoofax
+   * compares them when it replaces expressions in ORDER BY by references to SELECT items.
+   */
+  private static class Node {
+
+    private final NodeKind kind;
+
+    /**
+     * The variable name, the text of a literal or the name of the referenced SELECT item.
+     */
+    private final String value;
+
+    private final String property;
+
+    private final Node left;
+
+    private final Node right;
+
+    Node(NodeKind kind, String value, String property, Node left, Node right) {
+      this.kind = kind;
+      this.value = value;
+      this.property = property;
+      this.left = left;
+      this.right = right;
+    }
+
+    boolean referencesProperty() {
+      return kind == NodeKind.PROPERTY || (left != null && left.referencesProperty())
+          || (right != null && right.referencesProperty());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(kind, value, property, left, right);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      Node other = (Node) obj;
+      return kind == other.kind && Objects.equals(value, other.value) && Objects.equals(property, other.property)
+          && Objects.equals(left, other.left) && Objects.equals(right, other.right);
+    }
+  }
+
+  /**
+   * Thrown when a query is not recognized; it is preallocated since it is only used to unwind the parser.
+   */
+  private static class NotRecognized extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    static final NotRecognized INSTANCE = new NotRecognized();
+
+    private NotRecognized() {
+      super(null, null, false, false);
+    }
+  }
+}
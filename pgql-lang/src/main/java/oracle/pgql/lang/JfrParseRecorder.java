@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import oracle.pgql.lang.ParseEvent.Phase;
+
+/**
+ * Records the phases of a parse as Java Flight Recorder events, so that parser hot spots and contention on the parser
+ * pool show up in continuous recordings:
+ *
+ * <ul>
+ * <li>{@code pgql.LockWait}: waiting for a parser from the pool</li>
+ * <li>{@code pgql.Parse}: syntactic parsing</li>
+ * <li>{@code pgql.MetadataInjection}: adding and removing the graph schema to and from the AST</li>
+ * <li>{@code pgql.Analyze}: name and type analysis</li>
+ * <li>{@code pgql.Translate}: translation into the {@link oracle.pgql.lang.ir.PgqlStatement} representation</li>
+ * </ul>
+ *
+ * Each event carries the hash and length of the query string and the type of the statement. Since the statement type
+ * is only known at the end of the parse, the events are committed at the end of the parse, with their original start
+ * times and durations.
+ *
+ * This class is only loaded reflectively by {@link ParseRecorder} if the JVM provides JFR.
+ */
+class JfrParseRecorder extends ParseRecorder {
+
+  private static final EventType[] EVENT_TYPES = { //
+      EventType.getEventType(LockWaitEvent.class), //
+      EventType.getEventType(ParsePhaseEvent.class), //
+      EventType.getEventType(MetadataInjectionEvent.class), //
+      EventType.getEventType(AnalyzeEvent.class), //
+      EventType.getEventType(TranslateEvent.class) };
+
+  static class Factory implements Function<String, ParseRecorder> {
+
+    @Override
+    public ParseRecorder apply(String queryString) {
+      for (EventType eventType : EVENT_TYPES) {
+        if (eventType.isEnabled()) {
+          return new JfrParseRecorder(queryString);
+        }
+      }
+      return null;
+    }
+  }
+
+  private final int queryHash;
+
+  private final int queryLength;
+
+  private final PgqlEvent[] runningEvents = new PgqlEvent[Phase.values().length];
+
+  private final List<PgqlEvent> endedEvents = new ArrayList<>();
+
+  private JfrParseRecorder(String queryString) {
+    this.queryHash = queryString.hashCode();
+    this.queryLength = queryString.length();
+  }
+
+  private static PgqlEvent newEvent(Phase phase) {
+    switch (phase) {
+      case PARSER_WAIT:
+        return new LockWaitEvent();
+      case PARSE:
+        return new ParsePhaseEvent();
+      case METADATA_INJECTION:
+        return new MetadataInjectionEvent();
+      case ANALYSIS:
+        return new AnalyzeEvent();
+      case TRANSLATION:
+        return new TranslateEvent();
+      default:
+        throw new IllegalArgumentException(phase.toString());
+    }
+  }
+
+  @Override
+  void begin(Phase phase) {
+    PgqlEvent event = newEvent(phase);
+    if (event.isEnabled()) {
+      event.begin();
+      runningEvents[phase.ordinal()] = event;
+    }
+  }
+
+  @Override
+  void end(Phase phase) {
+    PgqlEvent event = runningEvents[phase.ordinal()];
+    if (event != null) {
+      event.end();
+      endedEvents.add(event);
+      runningEvents[phase.ordinal()] = null;
+    }
+  }
+
+  @Override
+  void finish(PgqlResult result) {
+    commit(result.getPgqlStatement() == null ? null : result.getPgqlStatement().getStatementType().toString());
+  }
+
+  @Override
+  void fail() {
+    commit(null);
+  }
+
+  private void commit(String statementType) {
+    for (PgqlEvent event : endedEvents) {
+      if (event.shouldCommit()) {
+        event.queryHash = queryHash;
+        event.queryLength = queryLength;
+        event.statementType = statementType;
+        event.commit();
+      }
+    }
+    endedEvents.clear();
+  }
+
+  @Category("PGQL")
+  @StackTrace(false) // events are committed at the end of the parse, so the stack trace would not show the phase
+  abstract static class PgqlEvent extends Event {
+
+    @Label("Query Hash")
+    @Description("Hash code of the query string")
+    int queryHash;
+
+    @Label("Query Length")
+    @Description("Number of characters in the query string")
+    int queryLength;
+
+    @Label("Statement Type")
+    @Description("Type of the statement, or null if the query is invalid")
+    String statementType;
+  }
+
+  @Name("pgql.LockWait")
+  @Label("PGQL Parser Wait")
+  @Description("Waiting for a parser from the pool")
+  static class LockWaitEvent extends PgqlEvent {
+  }
+
+  @Name("pgql.Parse")
+  @Label("PGQL Parse")
+  @Description("Syntactic parsing of a query")
+  static class ParsePhaseEvent extends PgqlEvent {
+  }
+
+  @Name("pgql.MetadataInjection")
+  @Label("PGQL Metadata Injection")
+  @Description("Adding the graph schema to the AST or removing it after analysis")
+  static class MetadataInjectionEvent extends PgqlEvent {
+  }
+
+  @Name("pgql.Analyze")
+  @Label("PGQL Analyze")
+  @Description("Name and type analysis of a query")
+  static class AnalyzeEvent extends PgqlEvent {
+  }
+
+  @Name("pgql.Translate")
+  @Label("PGQL Translate")
+  @Description("Translation of the analyzed AST into a PGQL statement")
+  static class TranslateEvent extends PgqlEvent {
+  }
+}
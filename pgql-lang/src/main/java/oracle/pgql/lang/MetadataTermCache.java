@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.spoofax.interpreter.terms.IStrategoList;
+import org.spoofax.interpreter.terms.ITermFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import oracle.pgql.lang.ir.SchemaQualifiedName;
+import oracle.pgql.lang.metadata.AbstractMetadataProvider;
+
+/**
+ * Caches the metadata terms that {@link MetadataToAstUtil#addMetadata} builds from a metadata provider, so that parsing
+ * only needs to wrap the query AST together with a prebuilt list of metadata terms into an {@code AstPlusMetadata}
+ * term.
+ *
+ * Only the metadata of providers that return a version for the graph (see
+ * {@link AbstractMetadataProvider#getSchemaVersion}) is cached: a cached list is reused as long as the version stays
+ * the same. Providers without versions often build new metadata objects for every call, so that there is no cheap way
+ * to tell whether their metadata changed. The lists of a provider are also removed when the provider notifies that its
+ * metadata changed (see {@link #invalidate(AbstractMetadataProvider, SchemaQualifiedName)}).
+ *
+ * Since Stratego terms may be mutated with attachments during analysis, cached terms are never shared between Spoofax
+ * runtimes: the term factory of the runtime is part of the key. Keys only weakly reference the provider and the term
+ * factory, so that the cache does not keep providers and closed Spoofax runtimes alive; entries of collected providers
+ * and factories are never hit again and are evicted over time.
+ */
+class MetadataTermCache {
+
+  private static final int MAXIMUM_SIZE = 256;
+
+  private final Cache<Key, IStrategoList> cache = CacheBuilder.newBuilder() //
+      .maximumSize(MAXIMUM_SIZE) //
+      .build();
+
+  IStrategoList get(Key key, Supplier<IStrategoList> loader) {
+    try {
+      return cache.get(key, loader::get);
+    } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Removes the lists of a provider for the given graph, or for all graphs if the graph name is null.
+   */
+  void invalidate(AbstractMetadataProvider metadataProvider, SchemaQualifiedName graphName) {
+    cache.asMap().keySet().removeIf(key -> key.metadataProvider.get() == metadataProvider
+        && (graphName == null || graphName.equals(key.graphName)));
+  }
+
+  void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  long size() {
+    return cache.size();
+  }
+
+  static class Key {
+
+    private final WeakReference<AbstractMetadataProvider> metadataProvider;
+
+    private final WeakReference<ITermFactory> termFactory;
+
+    private final int hashCode;
+
+    private final SchemaQualifiedName graphName;
+
+    private final String schemaVersion;
+
+    /**
+     * The default types and the data types of CAST expressions in the query, compared by value.
+     */
+    private final List<String> defaultTypes;
+
+    private final Set<String> castTypes;
+
+    /**
+     * The labels and properties that were kept when pruning the schema for the query, or null if the schema was not
+     * pruned.
+     */
+    private final Set<String> keptNames;
+
+    /**
+     * @param schemaVersion
+     *          the version of the metadata, see {@link AbstractMetadataProvider#getSchemaVersion}
+     */
+    Key(AbstractMetadataProvider metadataProvider, ITermFactory termFactory, SchemaQualifiedName graphName,
+        String schemaVersion, List<String> defaultTypes, Set<String> castTypes, Set<String> keptNames) {
+      this.metadataProvider = new WeakReference<>(metadataProvider);
+      this.termFactory = new WeakReference<>(termFactory);
+      this.graphName = graphName;
+      this.schemaVersion = Objects.requireNonNull(schemaVersion);
+      this.defaultTypes = defaultTypes;
+      this.castTypes = castTypes;
+      this.keptNames = keptNames;
+
+      int result = System.identityHashCode(metadataProvider);
+      result = 31 * result + System.identityHashCode(termFactory);
+      result = 31 * result + Objects.hashCode(graphName);
+      result = 31 * result + schemaVersion.hashCode();
+      result = 31 * result + defaultTypes.hashCode();
+      result = 31 * result + castTypes.hashCode();
+      hashCode = 31 * result + Objects.hashCode(keptNames);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      Key other = (Key) obj;
+      AbstractMetadataProvider provider = metadataProvider.get();
+      ITermFactory factory = termFactory.get();
+      // keys of which the provider or factory was collected only equal themselves
+      return provider != null && factory != null && provider == other.metadataProvider.get()
+          && factory == other.termFactory.get() && hashCode == other.hashCode
+          && Objects.equals(graphName, other.graphName) && schemaVersion.equals(other.schemaVersion)
+          && defaultTypes.equals(other.defaultTypes) && castTypes.equals(other.castTypes)
+          && Objects.equals(keptNames, other.keptNames);
+    }
+  }
+}
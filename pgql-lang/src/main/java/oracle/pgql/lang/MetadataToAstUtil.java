@@ -1,9 +1,9 @@
 package oracle.pgql.lang;
 
 import static oracle.pgql.lang.CommonTranslationUtil.getString;
-import static oracle.pgql.lang.CommonTranslationUtil.isSome;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -22,11 +22,9 @@ import org.apache.commons.text.translate.LookupTranslator;
 import org.metaborg.spoofax.core.unit.ISpoofaxAnalyzeUnit;
 import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
 import org.spoofax.interpreter.terms.IStrategoAppl;
-import org.spoofax.interpreter.terms.IStrategoString;
+import org.spoofax.interpreter.terms.IStrategoList;
 import org.spoofax.interpreter.terms.IStrategoTerm;
 import org.spoofax.interpreter.terms.ITermFactory;
-import org.spoofax.interpreter.terms.TermType;
-import org.spoofax.terms.TermVisitor;
 
 import oracle.pgql.lang.ir.SchemaQualifiedName;
 import oracle.pgql.lang.metadata.AbstractMetadataProvider;
@@ -37,6 +35,10 @@ import oracle.pgql.lang.metadata.FunctionSignature;
 import oracle.pgql.lang.metadata.GraphSchema;
 import oracle.pgql.lang.metadata.Label;
 import oracle.pgql.lang.metadata.Property;
+import oracle.pgql.lang.metadata.TypeRules;
+import oracle.pgql.lang.metadata.TypeRules.BinaryOperationRule;
+import oracle.pgql.lang.metadata.TypeRules.UnaryOperationRule;
+import oracle.pgql.lang.metadata.TypeRules.UnionTypeRule;
 import oracle.pgql.lang.metadata.UnaryOperation;
 import oracle.pgql.lang.metadata.VertexLabel;
 
@@ -58,8 +60,17 @@ public class MetadataToAstUtil {
         new LookupTranslator(Collections.unmodifiableMap(unescapeJavaMap)));
   }
 
-  static ISpoofaxParseUnit addMetadata(ISpoofaxParseUnit parseResult, AbstractMetadataProvider metadataProvider,
-      ITermFactory f, boolean allowReferencingAnyProperty) {
+  /**
+   * @param queryString
+   *          the query string, for hints in comments (see {@link QueryPreAnalysis})
+   * @param pruneSchema
+   *          whether to only add the labels and properties the query may refer to, see {@link SchemaPruner}
+   * @param metadataTermCache
+   *          the cache for the metadata terms, or null to build them for every query
+   */
+  static ISpoofaxParseUnit addMetadata(ISpoofaxParseUnit parseResult, String queryString,
+      AbstractMetadataProvider metadataProvider, ITermFactory f, boolean pruneSchema,
+      MetadataTermCache metadataTermCache) {
     PgqlVersion pgqlVersion;
     switch (((IStrategoAppl) parseResult.ast()).getConstructor().getName()) {
       case "Query":
@@ -80,24 +91,67 @@ public class MetadataToAstUtil {
       return parseResult;
     }
 
-    Set<SchemaQualifiedName> graphNames = extractGraphNames(parseResult.ast(), pgqlVersion);
+    QueryPreAnalysis preAnalysis = QueryPreAnalysis.analyze(parseResult.ast(), pgqlVersion, queryString);
+    Set<SchemaQualifiedName> graphNames = preAnalysis.getGraphNames();
+    SchemaQualifiedName graphName = null;
     Optional<GraphSchema> graphSchema;
     if (graphNames.size() > 1) {
       // multiple graph references in single query are currently not supported
       // we already generate an error for that during analysis so we can just return here
       return parseResult;
     } else if (graphNames.size() == 1) {
-      SchemaQualifiedName graphName = graphNames.iterator().next();
+      graphName = graphNames.iterator().next();
       graphSchema = metadataProvider.getGraphSchema(graphName);
     } else {
       graphSchema = metadataProvider.getGraphSchema();
     }
 
-    Set<String> allTypes = new HashSet<>();
+    SchemaPruner pruner = pruneSchema && graphSchema.isPresent()
+        ? SchemaPruner.prune(graphSchema.get(), preAnalysis)
+        : null;
+    Optional<GraphSchema> injectedSchema = pruner == null ? graphSchema : Optional.of(pruner.getPrunedSchema());
 
     Optional<List<DataTypeSynonym>> dataTypeSynonyms = metadataProvider.getDataTypeSynonyms();
-    allTypes.addAll(extractDataTypesFromCastStatements(parseResult.ast(), dataTypeSynonyms));
+    Set<String> castTypes = preAnalysis.getCastDataTypes(dataTypeSynonyms);
     Optional<List<FunctionSignature>> functionSignatures = metadataProvider.getFunctionSignatures();
+
+    IStrategoList metadataTerm;
+    String schemaVersion = metadataTermCache == null ? null : metadataProvider.getSchemaVersion(graphName).orElse(null);
+    if (schemaVersion == null) {
+      metadataTerm = createMetadataTerm(metadataProvider, f, injectedSchema, dataTypeSynonyms, functionSignatures,
+          castTypes);
+    } else {
+      List<String> defaultTypes = Arrays.asList(metadataProvider.getDefaultStringType().orElse(null),
+          metadataProvider.getDefaultShortIntegerType().orElse(null),
+          metadataProvider.getDefaultLongIntegerType().orElse(null),
+          metadataProvider.getDefaultDecimalType().orElse(null));
+      MetadataTermCache.Key key = new MetadataTermCache.Key(metadataProvider, f, graphName, schemaVersion,
+          defaultTypes, castTypes, pruner == null ? null : pruner.getKeptNames());
+      metadataTerm = metadataTermCache.get(key, () -> createMetadataTerm(metadataProvider, f, injectedSchema,
+          dataTypeSynonyms, functionSignatures, castTypes));
+    }
+
+    if (preAnalysis.allowReferencingAnyProperty()) {
+      List<IStrategoTerm> extendedMetadataTerm = new ArrayList<>(Arrays.asList(metadataTerm.getAllSubterms()));
+      extendedMetadataTerm.add(f.makeAppl("AllowReferencingAnyProperty"));
+      metadataTerm = f.makeList(extendedMetadataTerm);
+    }
+
+    IStrategoAppl metadataExtendedAst = f.makeAppl(AST_PLUS_METADATA_CONSTRUCTOR_NAME, parseResult.ast(),
+        metadataTerm);
+    ISpoofaxParseUnit extendedParseUnit = new ModifiedParseUnit(parseResult, metadataExtendedAst);
+
+    return extendedParseUnit;
+  }
+
+  /**
+   * @return the terms for everything in the metadata except for whether referencing any property is allowed, which is
+   *         specific to the query
+   */
+  private static IStrategoList createMetadataTerm(AbstractMetadataProvider metadataProvider, ITermFactory f,
+      Optional<GraphSchema> graphSchema, Optional<List<DataTypeSynonym>> dataTypeSynonyms,
+      Optional<List<FunctionSignature>> functionSignatures, Set<String> castTypes) {
+    Set<String> allTypes = new HashSet<>(castTypes);
     allTypes.addAll(extractDataTypesFromUdfs(functionSignatures));
 
     List<IStrategoTerm> metadataTerm = new ArrayList<>();
@@ -156,16 +210,26 @@ public class MetadataToAstUtil {
     allTypes.add("EDGE");
     allTypes.add("INTERVAL");
 
-    List<Pair<String, String>> allPairsOfTypes = getAllPairsOfTypes(allTypes);
-    List<IStrategoTerm> unionTypes = getUnionCompatibleTypes(allPairsOfTypes, metadataProvider, f);
+    Optional<TypeRules> typeRules = metadataProvider.getTypeRules();
+    List<IStrategoTerm> unionTypes;
+    List<IStrategoTerm> unaryOperations;
+    List<IStrategoTerm> binaryOperations;
+    if (typeRules.isPresent()) {
+      unionTypes = getUnionCompatibleTypes(typeRules.get(), allTypes, f);
+      unaryOperations = getUnaryOperationsWithTypes(typeRules.get(), allTypes, f);
+      binaryOperations = getBinaryOperationsWithTypes(typeRules.get(), allTypes, f);
+    } else {
+      List<Pair<String, String>> allPairsOfTypes = getAllPairsOfTypes(allTypes);
+      unionTypes = getUnionCompatibleTypes(allPairsOfTypes, metadataProvider, f);
+      unaryOperations = getUnaryOperationsWithTypes(allTypes, metadataProvider, f);
+      binaryOperations = getBinaryOperationsWithTypes(allPairsOfTypes, metadataProvider, f);
+    }
     if (!unionTypes.isEmpty()) {
       metadataTerm.add(f.makeAppl("UnionTypes", f.makeList(unionTypes)));
     }
-    List<IStrategoTerm> unaryOperations = getUnaryOperationsWithTypes(allTypes, metadataProvider, f);
     if (!unaryOperations.isEmpty()) {
       metadataTerm.add(f.makeAppl("UnaryOperations", f.makeList(unaryOperations)));
     }
-    List<IStrategoTerm> binaryOperations = getBinaryOperationsWithTypes(allPairsOfTypes, metadataProvider, f);
     if (!binaryOperations.isEmpty()) {
       metadataTerm.add(f.makeAppl("BinaryOperations", f.makeList(binaryOperations)));
     }
@@ -179,15 +243,7 @@ public class MetadataToAstUtil {
       metadataTerm.add(f.makeAppl("FunctionSignatures", f.makeList(functionSignatureTerms)));
     }
 
-    if (allowReferencingAnyProperty) {
-      metadataTerm.add(f.makeAppl("AllowReferencingAnyProperty"));
-    }
-
-    IStrategoAppl metadataExtendedAst = f.makeAppl(AST_PLUS_METADATA_CONSTRUCTOR_NAME, parseResult.ast(),
-        f.makeList(metadataTerm));
-    ISpoofaxParseUnit extendedParseUnit = new ModifiedParseUnit(parseResult, metadataExtendedAst);
-
-    return extendedParseUnit;
+    return f.makeList(metadataTerm);
   }
 
   static IStrategoTerm translateLabel(Label label, ITermFactory f, Set<String> allTypes) {
@@ -210,75 +266,6 @@ public class MetadataToAstUtil {
     return analyizedAst;
   }
 
-  static Set<SchemaQualifiedName> extractGraphNames(IStrategoTerm ast, PgqlVersion pgqlVersion) {
-
-    final Set<SchemaQualifiedName> graphNames = new HashSet<>();
-
-    new TermVisitor() {
-
-      @Override
-      public void preVisit(IStrategoTerm t) {
-        if (t.getType() == TermType.APPL) {
-          String constructor = ((IStrategoAppl) t).getConstructor().getName();
-
-          boolean graphTable = false;
-          if (constructor.equals("GraphTable") && isSome(t.getSubterm(0))) {
-            graphTable = true;
-            t = t.getSubterm(0);
-          }
-
-          if (graphTable || constructor.equals("OnClause") || constructor.equals("IntoClause")
-              || constructor.equals("Pgql11FromClause")) {
-            IStrategoTerm nameT = t.getSubterm(0);
-            IStrategoTerm schemaNameT = nameT.getSubterm(0);
-            String schemaName = isSome(schemaNameT)
-                ? identifierToString(schemaNameT.getSubterm(0).getSubterm(0), pgqlVersion)
-                : null;
-            String localName = identifierToString(nameT.getSubterm(1), pgqlVersion);
-            graphNames.add(new SchemaQualifiedName(schemaName, localName));
-          }
-        }
-      }
-
-    }.visit(ast);
-
-    return graphNames;
-  }
-
-  static Set<String> extractDataTypesFromCastStatements(IStrategoTerm ast,
-      Optional<List<DataTypeSynonym>> dataTypeSynonyms) {
-
-    final Set<String> dataTypes = new HashSet<>();
-
-    new TermVisitor() {
-
-      @Override
-      public void preVisit(IStrategoTerm t) {
-        if (t.getType() == TermType.APPL) {
-          String constructor = ((IStrategoAppl) t).getConstructor().getName();
-          if (constructor.equals("Cast")) {
-            IStrategoString dataTypeT = (IStrategoString) t.getSubterm(1);
-            String dataType = dataTypeT.stringValue().toUpperCase();
-
-            if (dataTypeSynonyms.isPresent()) {
-              // convert aliases to their proper data type names
-              for (DataTypeSynonym synonym : dataTypeSynonyms.get()) {
-                if (dataType.equals(synonym.getSynonym())) {
-                  dataType = synonym.getDataType();
-                }
-              }
-            }
-
-            dataTypes.add(dataType);
-          }
-        }
-      }
-
-    }.visit(ast);
-
-    return dataTypes;
-  }
-
   private static Collection<? extends String> extractDataTypesFromUdfs(
       Optional<List<FunctionSignature>> optionalFunctionSignatures) {
     Set<String> result = new HashSet<>();
@@ -341,6 +328,18 @@ public class MetadataToAstUtil {
     return unionTypes;
   }
 
+  private static List<IStrategoTerm> getUnionCompatibleTypes(TypeRules typeRules, Set<String> allTypes,
+      ITermFactory f) {
+    List<IStrategoTerm> unionTypes = new ArrayList<>();
+    for (UnionTypeRule rule : typeRules.getUnionTypes()) {
+      if (allTypes.contains(rule.getTypeA()) && allTypes.contains(rule.getTypeB())) {
+        unionTypes.add(f.makeAppl("UnionType", f.makeString(rule.getTypeA()), f.makeString(rule.getTypeB()),
+            f.makeString(rule.getUnionType())));
+      }
+    }
+    return unionTypes;
+  }
+
   private static List<IStrategoTerm> getUnaryOperationsWithTypes(Set<String> allTypes,
       AbstractMetadataProvider metadataProvider, ITermFactory f) {
     List<IStrategoTerm> unaryOperationsWithTypes = new ArrayList<>();
@@ -351,36 +350,51 @@ public class MetadataToAstUtil {
         UnaryOperation operation = unaryOperations[i];
         Optional<String> optionalReturnType = metadataProvider.getOperationReturnType(operation, type);
         if (optionalReturnType.isPresent()) {
-          String returnType = optionalReturnType.get();
-          String constructorName;
-          switch (operation) {
-            case NOT:
-              constructorName = "Not";
-              break;
-            case UMIN:
-              constructorName = "UMin";
-              break;
-            case SUM:
-            case MIN:
-            case MAX:
-            case AVG:
-            case LISTAGG:
-              constructorName = operation.name();
-              break;
-            case ARRAY_AGG:
-              constructorName = "ARRAY-AGG";
-              break;
-            default:
-              throw new UnsupportedOperationException("Unsupported operation: " + operation);
-          }
-          unaryOperationsWithTypes.add(f.makeAppl("UnaryOperation", f.makeString(constructorName), f.makeString(type),
-              f.makeString(returnType)));
+          unaryOperationsWithTypes.add(translateUnaryOperation(operation, type, optionalReturnType.get(), f));
         }
       }
     }
     return unaryOperationsWithTypes;
   }
 
+  private static List<IStrategoTerm> getUnaryOperationsWithTypes(TypeRules typeRules, Set<String> allTypes,
+      ITermFactory f) {
+    List<IStrategoTerm> unaryOperationsWithTypes = new ArrayList<>();
+    for (UnaryOperationRule rule : typeRules.getUnaryOperations()) {
+      if (allTypes.contains(rule.getType())) {
+        unaryOperationsWithTypes.add(translateUnaryOperation(rule.getOperation(), rule.getType(),
+            rule.getReturnType(), f));
+      }
+    }
+    return unaryOperationsWithTypes;
+  }
+
+  private static IStrategoTerm translateUnaryOperation(UnaryOperation operation, String type, String returnType,
+      ITermFactory f) {
+    String constructorName;
+    switch (operation) {
+      case NOT:
+        constructorName = "Not";
+        break;
+      case UMIN:
+        constructorName = "UMin";
+        break;
+      case SUM:
+      case MIN:
+      case MAX:
+      case AVG:
+      case LISTAGG:
+        constructorName = operation.name();
+        break;
+      case ARRAY_AGG:
+        constructorName = "ARRAY-AGG";
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported operation: " + operation);
+    }
+    return f.makeAppl("UnaryOperation", f.makeString(constructorName), f.makeString(type), f.makeString(returnType));
+  }
+
   private static List<IStrategoTerm> getBinaryOperationsWithTypes(List<Pair<String, String>> allPairsOfTypes,
       AbstractMetadataProvider metadataProvider, ITermFactory f) {
     List<IStrategoTerm> binaryOperationsWithTypes = new ArrayList<>();
@@ -391,62 +405,79 @@ public class MetadataToAstUtil {
         Optional<String> optionalReturnType = metadataProvider.getOperationReturnType(operation, pair.getLeft(),
             pair.getRight());
         if (optionalReturnType.isPresent()) {
-          String returnType = optionalReturnType.get();
-          String constructorName;
-          switch (operation) {
-            case ADD:
-              constructorName = "Add";
-              break;
-            case SUB:
-              constructorName = "Sub";
-              break;
-            case MUL:
-              constructorName = "Mul";
-              break;
-            case DIV:
-              constructorName = "Div";
-              break;
-            case MOD:
-              constructorName = "Mod";
-              break;
-            case EQUAL:
-              constructorName = "Eq";
-              break;
-            case NOT_EQUAL:
-              constructorName = "Neq";
-              break;
-            case GREATER:
-              constructorName = "Gt";
-              break;
-            case GREATER_EQUAL:
-              constructorName = "Gte";
-              break;
-            case LESS:
-              constructorName = "Lt";
-              break;
-            case LESS_EQUAL:
-              constructorName = "Lte";
-              break;
-            case AND:
-              constructorName = "And";
-              break;
-            case OR:
-              constructorName = "Or";
-              break;
-            case STRING_CONCAT:
-              constructorName = "Cct";
-              break;
-            default:
-              throw new UnsupportedOperationException("Unsupported operation: " + operation);
-          }
-          binaryOperationsWithTypes.add(f.makeAppl("BinaryOperation", f.makeString(constructorName),
-              f.makeString(pair.getLeft()), f.makeString(pair.getRight()), f.makeString(returnType)));
+          binaryOperationsWithTypes.add(translateBinaryOperation(operation, pair.getLeft(), pair.getRight(),
+              optionalReturnType.get(), f));
         }
       }
     }
     return binaryOperationsWithTypes;
   }
 
+  private static List<IStrategoTerm> getBinaryOperationsWithTypes(TypeRules typeRules, Set<String> allTypes,
+      ITermFactory f) {
+    List<IStrategoTerm> binaryOperationsWithTypes = new ArrayList<>();
+    for (BinaryOperationRule rule : typeRules.getBinaryOperations()) {
+      if (allTypes.contains(rule.getTypeA()) && allTypes.contains(rule.getTypeB())) {
+        binaryOperationsWithTypes.add(translateBinaryOperation(rule.getOperation(), rule.getTypeA(), rule.getTypeB(),
+            rule.getReturnType(), f));
+      }
+    }
+    return binaryOperationsWithTypes;
+  }
+
+  private static IStrategoTerm translateBinaryOperation(BinaryOperation operation, String typeA, String typeB,
+      String returnType, ITermFactory f) {
+    String constructorName;
+    switch (operation) {
+      case ADD:
+        constructorName = "Add";
+        break;
+      case SUB:
+        constructorName = "Sub";
+        break;
+      case MUL:
+        constructorName = "Mul";
+        break;
+      case DIV:
+        constructorName = "Div";
+        break;
+      case MOD:
+        constructorName = "Mod";
+        break;
+      case EQUAL:
+        constructorName = "Eq";
+        break;
+      case NOT_EQUAL:
+        constructorName = "Neq";
+        break;
+      case GREATER:
+        constructorName = "Gt";
+        break;
+      case GREATER_EQUAL:
+        constructorName = "Gte";
+        break;
+      case LESS:
+        constructorName = "Lt";
+        break;
+      case LESS_EQUAL:
+        constructorName = "Lte";
+        break;
+      case AND:
+        constructorName = "And";
+        break;
+      case OR:
+        constructorName = "Or";
+        break;
+      case STRING_CONCAT:
+        constructorName = "Cct";
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported operation: " + operation);
+    }
+    return f.makeAppl("BinaryOperation", f.makeString(constructorName), f.makeString(typeA), f.makeString(typeB),
+        f.makeString(returnType));
+  }
+
   private static List<IStrategoTerm> getDataTypeSynonyms(Optional<List<DataTypeSynonym>> optionalDataTypeSynonyms,
       ITermFactory f) {
     List<IStrategoTerm> dataTypeSynonyms = new ArrayList<>();
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.Collections;
+import java.util.List;
+
+import oracle.pgql.lang.ir.QueryExpression;
+
+/**
+ * The result of {@link Pgql#parseParameterized(String, oracle.pgql.lang.metadata.AbstractMetadataProvider)}: the
+ * parse result of the query in which literals were replaced by bind variables, together with the values of those
+ * literals.
+ */
+public class ParameterizedPgqlResult {
+
+  private final PgqlResult pgqlResult;
+
+  private final List<QueryExpression> bindValues;
+
+  ParameterizedPgqlResult(PgqlResult pgqlResult, List<QueryExpression> bindValues) {
+    this.pgqlResult = pgqlResult;
+    this.bindValues = Collections.unmodifiableList(bindValues);
+  }
+
+  /**
+   * @return the parse result of the parameterized query, which is shared by all queries with the same shape if a result
+   *         cache is set; {@link PgqlResult#getQueryString()} returns the parameterized query
+   */
+  public PgqlResult getPgqlResult() {
+    return pgqlResult;
+  }
+
+  /**
+   * @return one value per bind variable of the parameterized query, in order of appearance. Values are
+   *         {@link QueryExpression.Constant}s or, for an IN list that was replaced as a whole, an
+   *         {@link QueryExpression.InPredicate.InValueList}. A value is null if the bind variable was already in the
+   *         original query.
+   */
+  public List<QueryExpression> getBindValues() {
+    return bindValues;
+  }
+
+  /**
+   * @return false if the literals could not be replaced, in which case the result is that of the original query
+   */
+  public boolean isParameterized() {
+    return bindValues.stream().anyMatch(value -> value != null);
+  }
+}
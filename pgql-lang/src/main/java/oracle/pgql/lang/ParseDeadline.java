@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time after which a parse should give up, or a cancellation request. Parsing checks it cooperatively:
+ * while waiting for a Spoofax runtime, as a timeout of the JSGLR parser and between parsing, analysis and translation.
+ */
+class ParseDeadline {
+
+  private final long timeoutNanos;
+
+  private final long deadlineNanos;
+
+  private volatile boolean cancelled;
+
+  private ParseDeadline(long timeoutNanos) {
+    this.timeoutNanos = timeoutNanos;
+    this.deadlineNanos = System.nanoTime() + timeoutNanos;
+  }
+
+  /**
+   * @param timeoutNanos
+   *          the timeout in nanoseconds, or 0 for no timeout
+   */
+  static ParseDeadline after(long timeoutNanos) {
+    return new ParseDeadline(timeoutNanos);
+  }
+
+  boolean hasTimeout() {
+    return timeoutNanos > 0;
+  }
+
+  void cancel() {
+    cancelled = true;
+  }
+
+  boolean isExpired() {
+    return cancelled || (hasTimeout() && System.nanoTime() - deadlineNanos >= 0);
+  }
+
+  /**
+   * @return the remaining time in milliseconds, rounded up so that a timeout of this length does not expire before the
+   *         deadline does, or Long.MAX_VALUE if there is no timeout
+   */
+  long remainingMillis() {
+    if (!hasTimeout()) {
+      return Long.MAX_VALUE;
+    }
+    long remainingNanos = deadlineNanos - System.nanoTime();
+    return remainingNanos <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(remainingNanos - 1) + 1;
+  }
+
+  String getMessage() {
+    if (cancelled) {
+      return "Parse was cancelled";
+    }
+    return "Parse timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms";
+  }
+}
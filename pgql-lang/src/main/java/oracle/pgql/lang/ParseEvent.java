@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timings and outcome of a single parse, as reported to a {@link ParseListener}.
+ */
+public class ParseEvent {
+
+  public enum Phase {
+
+    /**
+     * Waiting for a Spoofax runtime of the parser pool to become available.
+     */
+    PARSER_WAIT,
+
+    /**
+     * Parsing the query text into an AST (SDF).
+     */
+    PARSE,
+
+    /**
+     * Adding metadata from the metadata provider to the AST before analysis and removing it afterwards.
+     */
+    METADATA_INJECTION,
+
+    /**
+     * Semantic analysis of the AST (Stratego).
+     */
+    ANALYSIS,
+
+    /**
+     * Translation of the analyzed AST into a {@link oracle.pgql.lang.ir.PgqlStatement}.
+     */
+    TRANSLATION
+  }
+
+  public enum Outcome {
+
+    VALID,
+
+    INVALID,
+
+    /**
+     * The parse exceeded its timeout or was cancelled (see {@link PgqlResult#isTimedOut()}).
+     */
+    TIMED_OUT,
+
+    /**
+     * The parse threw an exception.
+     */
+    FAILED
+  }
+
+  private final int queryLength;
+
+  private final ValidationLevel validationLevel;
+
+  private final long[] phaseNanos;
+
+  private final long totalNanos;
+
+  private final Outcome outcome;
+
+  ParseEvent(int queryLength, ValidationLevel validationLevel, long[] phaseNanos, long totalNanos, Outcome outcome) {
+    this.queryLength = queryLength;
+    this.validationLevel = validationLevel;
+    this.phaseNanos = phaseNanos;
+    this.totalNanos = totalNanos;
+    this.outcome = outcome;
+  }
+
+  /**
+   * @return the length of the query string in characters
+   */
+  public int getQueryLength() {
+    return queryLength;
+  }
+
+  public ValidationLevel getValidationLevel() {
+    return validationLevel;
+  }
+
+  /**
+   * @return the time spent in the given phase, which is 0 for phases that were skipped
+   */
+  public long getDuration(Phase phase, TimeUnit unit) {
+    return unit.convert(phaseNanos[phase.ordinal()], TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return the total time of the parse, including the time spent outside of the individual phases
+   */
+  public long getTotalDuration(TimeUnit unit) {
+    return unit.convert(totalNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("ParseEvent[outcome=").append(outcome) //
+        .append(", queryLength=").append(queryLength) //
+        .append(", totalNanos=").append(totalNanos);
+    for (Phase phase : Phase.values()) {
+      sb.append(", ").append(phase).append('=').append(phaseNanos[phase.ordinal()]);
+    }
+    return sb.append(']').toString();
+  }
+}
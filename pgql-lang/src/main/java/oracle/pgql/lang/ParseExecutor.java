@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the parses of {@link Pgql#parseAsync(String, oracle.pgql.lang.metadata.AbstractMetadataProvider)} with a bound
+ * on the number of pending parses (running or waiting), so that parse load cannot pile up behind the parser pool. A
+ * parse that would exceed the bound is handled according to the {@link RejectionPolicy}.
+ *
+ * The parses can either run on threads owned by this executor, or on any given executor, for example one that starts a
+ * virtual thread per task. In the latter case the bound on pending parses is the only bound, which is what makes it
+ * safe to use an executor that does not limit its number of threads.
+ */
+public class ParseExecutor implements Closeable {
+
+  public enum RejectionPolicy {
+
+    /**
+     * Complete the future exceptionally with a {@link RejectedExecutionException}.
+     */
+    ABORT,
+
+    /**
+     * Parse on the calling thread, which slows down the caller instead of growing the backlog.
+     */
+    CALLER_RUNS
+  }
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  private final Executor executor;
+
+  private final ExecutorService ownedExecutor;
+
+  private final Semaphore pendingParses;
+
+  private final int maxPendingParses;
+
+  private final RejectionPolicy rejectionPolicy;
+
+  private final AtomicLong rejectedCount = new AtomicLong();
+
+  /**
+   * Creates an executor with its own daemon threads.
+   *
+   * @param threads
+   *          the number of parsing threads, which should typically match the parser pool size (see
+   *          {@link Pgql#Pgql(int)})
+   * @param maxPendingParses
+   *          the maximum number of parses that are running or waiting for a thread
+   * @param rejectionPolicy
+   *          what to do with parses beyond the maximum
+   */
+  public ParseExecutor(int threads, int maxPendingParses, RejectionPolicy rejectionPolicy) {
+    this(Executors.newFixedThreadPool(checkPositive(threads, "Number of threads"), runnable -> {
+      Thread thread = new Thread(runnable, "pgql-parser-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }), maxPendingParses, rejectionPolicy, true);
+  }
+
+  /**
+   * Creates an executor that runs parses on the given executor, which is not shut down by {@link #close()}.
+   *
+   * @param executor
+   *          the executor to run parses on, e.g. {@code Executors.newVirtualThreadPerTaskExecutor()}
+   * @param maxPendingParses
+   *          the maximum number of parses that are running or waiting to run
+   * @param rejectionPolicy
+   *          what to do with parses beyond the maximum
+   */
+  public ParseExecutor(Executor executor, int maxPendingParses, RejectionPolicy rejectionPolicy) {
+    this(executor, maxPendingParses, rejectionPolicy, false);
+  }
+
+  private ParseExecutor(Executor executor, int maxPendingParses, RejectionPolicy rejectionPolicy,
+      boolean ownsExecutor) {
+    if (rejectionPolicy == null) {
+      throw new IllegalArgumentException("Rejection policy cannot be null");
+    }
+    this.executor = executor;
+    this.ownedExecutor = ownsExecutor ? (ExecutorService) executor : null;
+    this.maxPendingParses = checkPositive(maxPendingParses, "Maximum number of pending parses");
+    this.pendingParses = new Semaphore(maxPendingParses);
+    this.rejectionPolicy = rejectionPolicy;
+  }
+
+  private static int checkPositive(int value, String name) {
+    if (value < 1) {
+      throw new IllegalArgumentException(name + " should be at least 1 but was " + value);
+    }
+    return value;
+  }
+
+  <T> CompletableFuture<T> submit(Callable<T> parse) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    if (!pendingParses.tryAcquire()) {
+      rejectedCount.incrementAndGet();
+      switch (rejectionPolicy) {
+        case CALLER_RUNS:
+          run(parse, future);
+          break;
+        case ABORT:
+        default:
+          future.completeExceptionally(new RejectedExecutionException(
+              "Parse rejected since the maximum of " + maxPendingParses + " pending parses was reached"));
+      }
+      return future;
+    }
+
+    try {
+      executor.execute(() -> {
+        try {
+          run(parse, future);
+        } finally {
+          pendingParses.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      pendingParses.release();
+      rejectedCount.incrementAndGet();
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private static <T> void run(Callable<T> parse, CompletableFuture<T> future) {
+    try {
+      future.complete(parse.call());
+    } catch (Throwable t) {
+      future.completeExceptionally(t);
+    }
+  }
+
+  /**
+   * @return the number of parses that are running or waiting to run
+   */
+  public int getPendingCount() {
+    return maxPendingParses - pendingParses.availablePermits();
+  }
+
+  /**
+   * @return the number of parses that exceeded the maximum number of pending parses, including those that were run on
+   *         the calling thread
+   */
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  /**
+   * Stops the threads of this executor, if it owns any, after the pending parses have finished.
+   */
+  @Override
+  public void close() {
+    if (ownedExecutor != null) {
+      ownedExecutor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,16 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+/**
+ * Receives an event with timings and the outcome of every parse, for example to feed a metrics library (see
+ * {@link Pgql#setParseListener(ParseListener)}).
+ *
+ * The listener is called on the parsing thread after the parse finished, so implementations should be fast and thread
+ * safe. Exceptions thrown by the listener are logged and otherwise ignored.
+ */
+public interface ParseListener {
+
+  void parseCompleted(ParseEvent event);
+}
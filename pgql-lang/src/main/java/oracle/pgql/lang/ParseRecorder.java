@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import oracle.pgql.lang.ParseEvent.Outcome;
+import oracle.pgql.lang.ParseEvent.Phase;
+
+/**
+ * Times the phases of a parse and reports them to a {@link ParseListener} and as Java Flight Recorder events (see
+ * {@link JfrParseRecorder}). Without a listener and without a recording of PGQL events, {@link #NONE} is used, which
+ * does not even read the clock.
+ */
+class ParseRecorder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParseRecorder.class);
+
+  static final ParseRecorder NONE = new ParseRecorder();
+
+  /**
+   * Creates the JFR recorder for a query string, or returns null if no PGQL events are being recorded. Null if the JVM
+   * does not provide JFR (Java 8 before update 262), in which case {@link JfrParseRecorder} cannot even be loaded.
+   */
+  private static final Function<String, ParseRecorder> JFR_RECORDER_FACTORY = loadJfrRecorderFactory();
+
+  @SuppressWarnings("unchecked")
+  private static Function<String, ParseRecorder> loadJfrRecorderFactory() {
+    try {
+      Class.forName("jdk.jfr.Event");
+      return (Function<String, ParseRecorder>) Class.forName(ParseRecorder.class.getPackage().getName()
+          + ".JfrParseRecorder$Factory").getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      LOG.debug("Java Flight Recorder is not available; no PGQL events will be recorded");
+      return null;
+    }
+  }
+
+  static ParseRecorder create(ParseListener listener, String queryString, ValidationLevel validationLevel) {
+    ParseRecorder jfrRecorder = JFR_RECORDER_FACTORY == null ? null : JFR_RECORDER_FACTORY.apply(queryString);
+    if (listener == null) {
+      return jfrRecorder == null ? NONE : jfrRecorder;
+    }
+    ParseRecorder listenerRecorder = new ActiveParseRecorder(listener, queryString.length(), validationLevel);
+    return jfrRecorder == null ? listenerRecorder : new CompositeParseRecorder(listenerRecorder, jfrRecorder);
+  }
+
+  void begin(Phase phase) {
+  }
+
+  /**
+   * Ends a phase started by {@link #begin(Phase)}. A phase may run more than once during a parse.
+   */
+  void end(Phase phase) {
+  }
+
+  void finish(PgqlResult result) {
+  }
+
+  void fail() {
+  }
+
+  private static class ActiveParseRecorder extends ParseRecorder {
+
+    private final ParseListener listener;
+
+    private final int queryLength;
+
+    private final ValidationLevel validationLevel;
+
+    private final long startNanos = System.nanoTime();
+
+    private final long[] phaseNanos = new long[Phase.values().length];
+
+    private final long[] phaseStartNanos = new long[Phase.values().length];
+
+    ActiveParseRecorder(ParseListener listener, int queryLength, ValidationLevel validationLevel) {
+      this.listener = listener;
+      this.queryLength = queryLength;
+      this.validationLevel = validationLevel;
+    }
+
+    @Override
+    void begin(Phase phase) {
+      phaseStartNanos[phase.ordinal()] = System.nanoTime();
+    }
+
+    @Override
+    void end(Phase phase) {
+      phaseNanos[phase.ordinal()] += System.nanoTime() - phaseStartNanos[phase.ordinal()];
+    }
+
+    @Override
+    void finish(PgqlResult result) {
+      Outcome outcome;
+      if (result.isTimedOut()) {
+        outcome = Outcome.TIMED_OUT;
+      } else if (result.isQueryValid()) {
+        outcome = Outcome.VALID;
+      } else {
+        outcome = Outcome.INVALID;
+      }
+      report(outcome);
+    }
+
+    @Override
+    void fail() {
+      report(Outcome.FAILED);
+    }
+
+    private void report(Outcome outcome) {
+      long totalNanos = System.nanoTime() - startNanos;
+      try {
+        listener.parseCompleted(new ParseEvent(queryLength, validationLevel, phaseNanos, totalNanos, outcome));
+      } catch (RuntimeException e) {
+        LOG.warn("parse listener failed", e);
+      }
+    }
+  }
+
+  private static class CompositeParseRecorder extends ParseRecorder {
+
+    private final ParseRecorder first;
+
+    private final ParseRecorder second;
+
+    CompositeParseRecorder(ParseRecorder first, ParseRecorder second) {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    void begin(Phase phase) {
+      first.begin(phase);
+      second.begin(phase);
+    }
+
+    @Override
+    void end(Phase phase) {
+      second.end(phase);
+      first.end(phase);
+    }
+
+    @Override
+    void finish(PgqlResult result) {
+      first.finish(result);
+      second.finish(result);
+    }
+
+    @Override
+    void fail() {
+      first.fail();
+      second.fail();
+    }
+  }
+}
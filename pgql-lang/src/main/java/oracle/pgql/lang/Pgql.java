@@ -6,42 +6,29 @@ package oracle.pgql.lang;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.vfs2.FileObject;
 import org.metaborg.core.MetaborgException;
 import org.metaborg.core.analysis.AnalysisException;
 import org.metaborg.core.completion.ICompletion;
-import org.metaborg.core.config.IProjectConfig;
-import org.metaborg.core.config.ISourceConfig;
 import org.metaborg.core.context.ContextException;
 import org.metaborg.core.context.ITemporaryContext;
-import org.metaborg.core.language.ILanguageComponent;
-import org.metaborg.core.language.ILanguageImpl;
-import org.metaborg.core.language.LanguageIdentifier;
-import org.metaborg.core.language.LanguageUtils;
 import org.metaborg.core.messages.IMessage;
-import org.metaborg.core.project.IProject;
-import org.metaborg.core.project.Project;
-import org.metaborg.core.source.AffectedSourceHelper;
 import org.metaborg.core.syntax.ParseException;
-import org.metaborg.spoofax.core.Spoofax;
 import org.metaborg.spoofax.core.SpoofaxModule;
 import org.metaborg.spoofax.core.unit.ISpoofaxAnalyzeUnit;
-import org.metaborg.spoofax.core.unit.ISpoofaxInputUnit;
 import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
-import org.metaborg.util.concurrent.IClosableLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.spoofax.interpreter.terms.IStrategoAppl;
@@ -49,14 +36,19 @@ import org.spoofax.interpreter.terms.IStrategoInt;
 import org.spoofax.interpreter.terms.IStrategoString;
 import org.spoofax.interpreter.terms.IStrategoTerm;
 
-import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 
+import oracle.pgql.lang.ParseEvent.Phase;
 import oracle.pgql.lang.completion.PgqlCompletionGenerator;
 import oracle.pgql.lang.editor.completion.PgqlCompletion;
 import oracle.pgql.lang.editor.completion.PgqlCompletionContext;
 import oracle.pgql.lang.ir.PgqlStatement;
+import oracle.pgql.lang.ir.QueryExpression;
+import oracle.pgql.lang.ir.SchemaQualifiedName;
+import oracle.pgql.lang.ir.SelectQuery;
 import oracle.pgql.lang.ir.StatementType;
 import oracle.pgql.lang.metadata.AbstractMetadataProvider;
+import oracle.pgql.lang.metadata.MetadataChangeListener;
 
 import static oracle.pgql.lang.CheckInvalidJavaComment.checkInvalidJavaComment;
 import static oracle.pgql.lang.MetadataToAstUtil.addMetadata;
@@ -65,18 +57,58 @@ import static oracle.pgql.lang.MetadataToAstUtil.removeMetadata;
 public class Pgql implements Closeable {
 
   /**
-   * Spoofax is not thread safe, so any method that uses Spoofax should use the lock.
+   * Guards the global state: initialization, the set of open PGQL instances and the bookkeeping of the parser pool.
+   *
+   * Spoofax is not thread safe, so parsing does not happen under this lock but on a {@link SpoofaxInstance} that is
+   * exclusively borrowed from the parser pool for the duration of the parse.
    */
   private static final Object lock = new Object();
 
   private static final Set<Pgql> instances = new HashSet<>();
 
-  private static final Logger LOG = LoggerFactory.getLogger(Pgql.class);
+  /**
+   * All Spoofax instances of the parser pool, both idle and in use.
+   */
+  private static final List<SpoofaxInstance> spoofaxInstances = new ArrayList<>();
+
+  private static final BlockingQueue<SpoofaxInstance> idleSpoofaxInstances = new LinkedBlockingQueue<>();
+
+  /**
+   * The number of Spoofax instances that are being created outside of the lock for the parser pool, which count
+   * towards the size of the pool. Reset when the global PGQL instance is closed.
+   */
+  private static int spoofaxInstancesInCreation = 0;
+
+  /**
+   * Incremented whenever the global PGQL instance is closed, so that Spoofax instances whose creation started before
+   * are not added to a later pool.
+   */
+  private static long poolGeneration = 0;
 
-  private static final String NON_BREAKING_WHITE_SPACE_ERROR = "Illegal character '\u00a0' (non-breaking white space)"
-      + "; use a normal space instead";
+  private static final int DEFAULT_PARSER_POOL_SIZE = 1;
 
-  private static final String ERROR_MESSSAGE_INDENTATION = "\t";
+  /**
+   * Representative queries that {@link #initializeAsync()} parses in the background to warm up the JIT compiler.
+   */
+  public static final List<String> DEFAULT_WARM_UP_QUERIES = Collections.unmodifiableList(Arrays.asList( //
+      "SELECT n.name, COUNT(*) AS cnt FROM MATCH (n:Person) -[e:knows]-> (m:Person) WHERE n.age > 25 "
+          + "GROUP BY n.name ORDER BY cnt DESC LIMIT 10", //
+      "SELECT n.name, m.name FROM MATCH (n) -[e]-> (m), MATCH (m) -> (o) WHERE n.name = ? AND o.age >= 18", //
+      "SELECT ARRAY_AGG(e.weight) AS weights FROM MATCH ANY SHORTEST (n) -[e]->* (m) WHERE id(n) = 1", //
+      "SELECT COUNT(e) AS cnt FROM MATCH ANY CHEAPEST (n) (-[e]-> COST e.weight)* (m)", //
+      "PATH p AS (a) -[:knows]-> (b) WHERE a.age < b.age SELECT COUNT(*) FROM MATCH (n) -/:p+/-> (m)", //
+      "INSERT VERTEX v LABELS ( Person ) PROPERTIES ( v.name = 'Alice' )", //
+      "UPDATE n SET ( n.age = n.age + 1 ) FROM MATCH (n:Person) WHERE n.name = 'Bob'", //
+      "DELETE e FROM MATCH (n) -[e:knows]-> (m) WHERE n.name = 'Alice'", //
+      "CREATE PROPERTY GRAPH g VERTEX TABLES ( Person ) "
+          + "EDGE TABLES ( knows SOURCE Person DESTINATION Person )", //
+      "DROP PROPERTY GRAPH g"));
+
+  private static final long POOL_POLL_INTERVAL_MILLIS = 100;
+
+  private static final int DEFAULT_MAX_PENDING_PARSES = 1024;
+
+  private static final Logger LOG = LoggerFactory.getLogger(Pgql.class);
 
   private static final String SPOOFAX_BINARIES = "pgql.spoofax-language";
 
@@ -90,21 +122,54 @@ public class Pgql implements Closeable {
 
   private static final PgqlVersion LATEST_VERSION = PgqlVersion.V_1_3_OR_UP;
 
-  private static String ALLOW_REFERENCING_ANY_PROPERTY_FLAG = "/*ALLOW_REFERENCING_ANY_PROPERTY*/";
+  private static volatile boolean isGloballyInitialized = false;
 
-  private static boolean isGloballyInitialized = false;
+  private static SpoofaxModule spoofaxModule;
 
-  private static Spoofax spoofax;
+  private static File spoofaxBinaryFile;
 
-  private static ILanguageImpl pgqlLang;
+  /**
+   * Maximum number of Spoofax instances in the parser pool; the largest pool size requested by any open PGQL instance.
+   */
+  private static int parserPoolSize = DEFAULT_PARSER_POOL_SIZE;
 
-  private static FileObject dummyProjectDir;
+  private volatile boolean isInitialized;
 
-  private static IProject dummyProject;
+  private volatile PgqlResultCache resultCache;
 
-  private static File spoofaxBinaryFile;
+  /**
+   * The parse timeout in nanoseconds, or 0 if parses do not time out.
+   */
+  private volatile long parseTimeoutNanos;
+
+  private volatile ParseListener parseListener;
 
-  private boolean isInitialized;
+  private volatile boolean compactResults;
+
+  private volatile boolean schemaPruning = true;
+
+  private volatile boolean fastPathParsing;
+
+  private final MetadataTermCache metadataTermCache = new MetadataTermCache();
+
+  /**
+   * Invalidates the cached metadata terms and parse results of a metadata provider when its metadata changes.
+   */
+  private final MetadataChangeListener metadataChangeListener = this::metadataChanged;
+
+  /**
+   * The metadata providers that {@link #metadataChangeListener} is registered with, weakly referenced so that
+   * providers that are no longer used can be garbage collected.
+   */
+  private final Set<AbstractMetadataProvider> observedMetadataProviders = Collections
+      .newSetFromMap(new MapMaker().weakKeys().makeMap());
+
+  private ParseExecutor parseExecutor;
+
+  /**
+   * Whether the parse executor was created by this instance and should be closed together with it.
+   */
+  private boolean ownsParseExecutor;
 
   /**
    * Loads PGQL Spoofax binaries if not done already.
@@ -116,15 +181,122 @@ public class Pgql implements Closeable {
   }
 
   public Pgql(SpoofaxModule module, String tmpDir) throws PgqlException {
+    this(module, tmpDir, DEFAULT_PARSER_POOL_SIZE);
+  }
+
+  /**
+   * Loads PGQL Spoofax binaries if not done already and allows for up to the given number of concurrent parses.
+   *
+   * @param parserPoolSize
+   *          the maximum number of isolated Spoofax runtimes that are used for parsing (see
+   *          {@link #Pgql(SpoofaxModule, String, int)})
+   */
+  public Pgql(int parserPoolSize) throws PgqlException {
+    this(new PgqlConfig(), null, parserPoolSize);
+  }
+
+  /**
+   * Loads PGQL Spoofax binaries if not done already and allows for up to the given number of concurrent parses.
+   *
+   * Spoofax is not thread safe, so each parse exclusively uses one of the Spoofax runtimes of a global parser pool.
+   * Runtimes are created lazily, the first time that all existing runtimes are in use, so that a large pool size does
+   * not slow down start-up. Each runtime holds its own copy of the PGQL language, which costs memory and start-up time.
+   * The pool is shared by all PGQL instances and grows to the largest pool size requested by any of them. Note that
+   * metadata providers that are shared between threads need to be thread safe once the pool size is larger than one.
+   *
+   * @param module
+   *          the Spoofax module used to configure each Spoofax runtime
+   * @param tmpDir
+   *          the directory to extract the PGQL Spoofax binary into, or null to use the default temporary directory
+   * @param parserPoolSize
+   *          the maximum number of isolated Spoofax runtimes that are used for parsing (default is 1)
+   */
+  public Pgql(SpoofaxModule module, String tmpDir, int parserPoolSize) throws PgqlException {
+    if (parserPoolSize < 1) {
+      throw new IllegalArgumentException("Parser pool size should be at least 1 but was " + parserPoolSize);
+    }
     synchronized (lock) {
       if (!isGloballyInitialized) {
         initializeGlobalInstance(module, tmpDir);
       }
+      Pgql.parserPoolSize = Math.max(Pgql.parserPoolSize, parserPoolSize);
       instances.add(this);
       isInitialized = true;
     }
   }
 
+  /**
+   * Creates a PGQL instance in the background and then parses {@link #DEFAULT_WARM_UP_QUERIES}.
+   *
+   * @return a future that completes with the PGQL instance once it is initialized and warmed up
+   * @see #initializeAsync(SpoofaxModule, String, int, Collection)
+   */
+  public static CompletableFuture<Pgql> initializeAsync() {
+    return initializeAsync(DEFAULT_WARM_UP_QUERIES);
+  }
+
+  /**
+   * Creates a PGQL instance in the background and then parses the given warm-up queries.
+   *
+   * @param warmUpQueries
+   *          representative queries to parse after initialization
+   * @return a future that completes with the PGQL instance once it is initialized and warmed up
+   * @see #initializeAsync(SpoofaxModule, String, int, Collection)
+   */
+  public static CompletableFuture<Pgql> initializeAsync(Collection<String> warmUpQueries) {
+    return initializeAsync(new PgqlConfig(), null, DEFAULT_PARSER_POOL_SIZE, warmUpQueries);
+  }
+
+  /**
+   * Creates a PGQL instance on a background thread such that the caller is not blocked by the loading of the PGQL
+   * Spoofax binaries. Once initialized, the warm-up queries are parsed on the same thread so that the parser and
+   * analyzer have been compiled by the JIT compiler before real queries arrive. Warm-up queries may be invalid; their
+   * results are discarded. Closing the PGQL instance stops the warm-up.
+   *
+   * @param module
+   *          see {@link #Pgql(SpoofaxModule, String, int)}
+   * @param tmpDir
+   *          see {@link #Pgql(SpoofaxModule, String, int)}
+   * @param parserPoolSize
+   *          see {@link #Pgql(SpoofaxModule, String, int)}
+   * @param warmUpQueries
+   *          representative queries to parse after initialization, or an empty collection to skip the warm-up
+   * @return a future that completes with the PGQL instance once it is initialized and warmed up, or that completes
+   *         exceptionally with a {@link PgqlException} if initialization failed
+   */
+  public static CompletableFuture<Pgql> initializeAsync(SpoofaxModule module, String tmpDir, int parserPoolSize,
+      Collection<String> warmUpQueries) {
+    List<String> queries = new ArrayList<>(warmUpQueries);
+    CompletableFuture<Pgql> future = new CompletableFuture<>();
+    Thread initializer = new Thread(() -> {
+      try {
+        Pgql pgql = new Pgql(module, tmpDir, parserPoolSize);
+        pgql.warmUp(queries);
+        future.complete(pgql);
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
+      }
+    }, "pgql-initializer");
+    initializer.setDaemon(true);
+    initializer.start();
+    return future;
+  }
+
+  private void warmUp(List<String> queries) {
+    long startTime = System.currentTimeMillis();
+    for (String query : queries) {
+      if (!isInitialized) {
+        return;
+      }
+      try {
+        parse(query);
+      } catch (PgqlException e) {
+        LOG.debug("warm-up query failed: " + e.getMessage());
+      }
+    }
+    LOG.debug("parsed " + queries.size() + " warm-up queries in " + (System.currentTimeMillis() - startTime) + " ms");
+  }
+
   private void initializeGlobalInstance(SpoofaxModule spoofaxModule, String tmpDir) throws PgqlException {
     try {
       Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -138,59 +310,17 @@ public class Pgql implements Closeable {
         }
       }));
 
-      // initialize a new Spoofax
-      spoofax = new Spoofax(spoofaxModule);
-      spoofax.configureAsHeadlessApplication(); // prevents the class loader from getting stuck for certain versions of
-                                                // macOS
-
       // copy the PGQL Spoofax binary to the local file system.
       // IMPORTANT: don't replace this with resolveFile("res:...") or resolve("res:...") because VFS will fail to
       // replicate the resource when it's nested inside multiple JAR or WAR files.
+      // The copy is kept in a cache directory and is reused by later JVMs as long as the binary does not change.
       URL inputUrl = getClass().getResource("/" + SPOOFAX_BINARIES);
-      spoofaxBinaryFile = tmpDir == null ? File.createTempFile(SPOOFAX_BINARIES, UUID.randomUUID().toString())
-          : new File(tmpDir, SPOOFAX_BINARIES + UUID.randomUUID());
-      FileUtils.copyURLToFile(inputUrl, spoofaxBinaryFile);
-      FileObject fileObject = spoofax.resourceService.resolve(spoofaxBinaryFile.getAbsolutePath());
-
-      Iterable<ILanguageImpl> languages = spoofax.languageDiscoveryService.languagesFromArchive(fileObject);
-      Set<ILanguageComponent> components = LanguageUtils.toComponents(languages);
-      Set<ILanguageImpl> implementations = LanguageUtils.toImpls(components);
-      pgqlLang = LanguageUtils.active(implementations);
-      assert (pgqlLang != null);
-      dummyProjectDir = spoofax.resourceService.resolve("ram://pgql/");
-
-      final LanguageIdentifier id = pgqlLang.id();
-      dummyProject = new Project(dummyProjectDir, new IProjectConfig() {
-
-        @Override
-        public Collection<LanguageIdentifier> sourceDeps() {
-          Set<LanguageIdentifier> sourceDeps = new HashSet<>();
-          sourceDeps.add(id);
-          return sourceDeps;
-        }
-
-        @Override
-        public Collection<LanguageIdentifier> javaDeps() {
-          return Collections.emptySet();
-        }
-
-        @Override
-        public Collection<LanguageIdentifier> compileDeps() {
-          return Collections.emptySet();
-        }
-
-        @Override
-        public String metaborgVersion() {
-          return null;
-        }
-
-        @Override
-        public Collection<ISourceConfig> sources() {
-          return Collections.emptySet();
-        }
-      });
+      spoofaxBinaryFile = SpoofaxBinaryCache.getSpoofaxBinaryFile(inputUrl, tmpDir, SPOOFAX_BINARIES);
 
-      parseInternal("SELECT * FROM MATCH (initQuery)", null); // make Spoofax initialize the language
+      Pgql.spoofaxModule = spoofaxModule;
+      SpoofaxInstance spoofaxInstance = createSpoofaxInstance();
+      spoofaxInstances.add(spoofaxInstance);
+      idleSpoofaxInstances.add(spoofaxInstance);
     } catch (MetaborgException | IOException e) {
       throw new PgqlException("Failed to initialize PGQL", e);
     }
@@ -223,10 +353,403 @@ public class Pgql implements Closeable {
    *           if the query contains errors
    */
   public PgqlResult parse(String queryString, AbstractMetadataProvider metadataProvider) throws PgqlException {
-    synchronized (lock) {
-      checkInitialized();
-      return parseInternal(queryString, metadataProvider);
+    return parse(queryString, metadataProvider, ValidationLevel.FULL);
+  }
+
+  /**
+   * Parse a PGQL query up to the given validation level. Use {@link ValidationLevel#SYNTAX} or
+   * {@link ValidationLevel#SEMANTIC} to only check whether a query is valid, which is cheaper than a full parse since
+   * the later stages are skipped. Note that a lower level can accept a query that a full parse rejects, since some
+   * errors are only detected in the later stages. Only results of full parses are cached (see
+   * {@link #setResultCache(PgqlResultCache)}).
+   *
+   * @param queryString
+   *          PGQL query to parse
+   * @param metadataProvider
+   *          the metadata provider for enhanced type checking based on graph schema information and other metadata
+   * @param validationLevel
+   *          the stage after which to stop
+   * @return parse result holding error messages if the query is invalid and, for a full parse, the statement
+   * @throws PgqlException
+   *           if the query contains errors
+   */
+  public PgqlResult parse(String queryString, AbstractMetadataProvider metadataProvider,
+      ValidationLevel validationLevel) throws PgqlException {
+    return parse(queryString, metadataProvider, validationLevel, ParseDeadline.after(parseTimeoutNanos));
+  }
+
+  private PgqlResult parse(String queryString, AbstractMetadataProvider metadataProvider,
+      ValidationLevel validationLevel, ParseDeadline deadline) throws PgqlException {
+    checkInitialized();
+    observe(metadataProvider);
+    PgqlResultCache resultCache = this.resultCache;
+    if (resultCache == null || validationLevel != ValidationLevel.FULL) {
+      return parseUncached(queryString, metadataProvider, validationLevel, deadline);
+    }
+    return resultCache.get(queryString, metadataProvider,
+        () -> parseUncached(queryString, metadataProvider, validationLevel, deadline));
+  }
+
+  /**
+   * Sets a timeout for each parse. A parse that exceeds the timeout, including the time spent waiting for a Spoofax
+   * runtime of the parser pool, is aborted and returns a result for which {@link PgqlResult#isTimedOut()} is true. The
+   * deadline is checked cooperatively: the parser itself stops at the deadline, while analysis and translation are not
+   * started once the deadline has passed. Parses do not time out by default.
+   *
+   * @param timeout
+   *          the timeout, or 0 to disable timeouts
+   * @param unit
+   *          the unit of the timeout
+   */
+  public void setParseTimeout(long timeout, TimeUnit unit) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Parse timeout should not be negative but was " + timeout);
+    }
+    this.parseTimeoutNanos = unit.toNanos(timeout);
+  }
+
+  /**
+   * @return the parse timeout in the given unit, or 0 if parses do not time out
+   */
+  public long getParseTimeout(TimeUnit unit) {
+    return unit.convert(parseTimeoutNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Sets a listener that is notified of the phase durations, the time spent waiting for the parser, the query size and
+   * the outcome of every parse. Parses that are answered from the result cache are not reported. There is no listener
+   * by default, in which case nothing is measured.
+   *
+   * @param parseListener
+   *          the listener, or null to remove the listener
+   */
+  public void setParseListener(ParseListener parseListener) {
+    this.parseListener = parseListener;
+  }
+
+  /**
+   * @return the listener that is notified of every parse, or null if there is none
+   */
+  public ParseListener getParseListener() {
+    return parseListener;
+  }
+
+  /**
+   * Parse a PGQL query after replacing its literals by bind variables. Queries that only differ in their constants
+   * (e.g. {@code WHERE n.id = 123} and {@code WHERE n.id = 456}) then result in the same parameterized query, so that
+   * with a result cache (see {@link #setResultCache(PgqlResultCache)}) the cache hit rate depends on the number of
+   * query shapes rather than the number of query texts. The literal values are returned alongside the parse result.
+   *
+   * Since the parameterized query is analyzed without knowing the literal values, type checks that depend on those
+   * values are left to the time the values are bound. If the parameterized query turns out to be invalid, or if it is
+   * not a PGQL 1.3+ query, the original query is parsed instead such that error messages refer to the original text.
+   *
+   * @param queryString
+   *          PGQL query to parse
+   * @param metadataProvider
+   *          the metadata provider for enhanced type checking based on graph schema information and other metadata
+   * @return parse result of the parameterized query together with the values for its bind variables
+   * @throws PgqlException
+   *           if the query contains errors
+   */
+  public ParameterizedPgqlResult parseParameterized(String queryString, AbstractMetadataProvider metadataProvider)
+      throws PgqlException {
+    QueryParameterizer.ParameterizedQuery parameterizedQuery = QueryParameterizer.parameterize(queryString);
+    if (parameterizedQuery != null) {
+      List<QueryExpression> bindValues = parameterizedQuery.getParameters();
+      PgqlResult result = parse(parameterizedQuery.getQueryString(), metadataProvider);
+      if (result.isQueryValid() && result.getPgqlVersion() == LATEST_VERSION
+          && result.getBindVariableCount() == bindValues.size()) {
+        return new ParameterizedPgqlResult(result, bindValues);
+      }
+    }
+
+    PgqlResult result = parse(queryString, metadataProvider);
+    int bindVariableCount = Math.max(result.getBindVariableCount(), 0);
+    return new ParameterizedPgqlResult(result, Collections.nCopies(bindVariableCount, null));
+  }
+
+  /**
+   * Parse a list of PGQL statements (see {@link #parseAll(List, AbstractMetadataProvider)}).
+   */
+  public List<PgqlResult> parseAll(List<String> statements) throws PgqlException {
+    return parseAll(statements, null);
+  }
+
+  /**
+   * Parse a list of PGQL statements, for example the statements of a migration script. This is faster than parsing the
+   * statements one by one since the statements are parsed on a single Spoofax runtime and analyzed in a single context,
+   * rather than borrowing a runtime and setting up a new context for each statement.
+   *
+   * Each statement is parsed under its own parse timeout (see {@link #setParseTimeout(long, TimeUnit)}). The wait for a
+   * Spoofax runtime counts towards the timeout of the first statement; if no runtime becomes available in time, all
+   * statements are returned as timed out (see {@link PgqlResult#isTimedOut()}).
+   *
+   * @param statements
+   *          PGQL statements to parse
+   * @param metadataProvider
+   *          the metadata provider for enhanced type checking based on graph schema information and other metadata
+   * @return one parse result per statement, in the same order
+   * @throws PgqlException
+   *           if a statement contains errors
+   */
+  public List<PgqlResult> parseAll(List<String> statements, AbstractMetadataProvider metadataProvider)
+      throws PgqlException {
+    checkInitialized();
+    observe(metadataProvider);
+    List<PgqlResult> results = new ArrayList<>(statements.size());
+    if (statements.isEmpty()) {
+      return results;
+    }
+
+    PgqlResultCache resultCache = this.resultCache;
+    long parseTimeoutNanos = this.parseTimeoutNanos;
+    ParseListener parseListener = this.parseListener;
+    // the wait for a Spoofax runtime counts towards the parse of the first statement
+    ParseDeadline firstDeadline = ParseDeadline.after(parseTimeoutNanos);
+    ParseRecorder firstRecorder = ParseRecorder.create(parseListener, statements.get(0), ValidationLevel.FULL);
+    firstRecorder.begin(Phase.PARSER_WAIT);
+    SpoofaxInstance spoofaxInstance = acquireSpoofaxInstance(firstDeadline);
+    firstRecorder.end(Phase.PARSER_WAIT);
+    if (spoofaxInstance == null) {
+      for (int i = 0; i < statements.size(); i++) {
+        String statement = statements.get(i);
+        PgqlResult result = PgqlResult.timedOut(statement, firstDeadline.getMessage(), metadataProvider);
+        ParseRecorder recorder = i == 0 ? firstRecorder
+            : ParseRecorder.create(parseListener, statement, ValidationLevel.FULL);
+        recorder.finish(result);
+        results.add(result);
+      }
+      return results;
     }
+
+    try (ITemporaryContext context = spoofaxInstance.getTemporaryContext()) {
+      for (int i = 0; i < statements.size(); i++) {
+        String statement = statements.get(i);
+        ParseDeadline deadline = i == 0 ? firstDeadline : ParseDeadline.after(parseTimeoutNanos);
+        ParseRecorder recorder = i == 0 ? firstRecorder
+            : ParseRecorder.create(parseListener, statement, ValidationLevel.FULL);
+        if (resultCache == null) {
+          results.add(parseAndRecord(statement, metadataProvider, spoofaxInstance, context, ValidationLevel.FULL,
+              deadline, recorder));
+        } else {
+          results.add(resultCache.get(statement, metadataProvider, () -> parseAndRecord(statement, metadataProvider,
+              spoofaxInstance, context, ValidationLevel.FULL, deadline, recorder)));
+        }
+      }
+    } catch (ContextException e) {
+      throw new PgqlException("Failed to parse PGQL statements", e);
+    } finally {
+      releaseSpoofaxInstance(spoofaxInstance);
+    }
+    return results;
+  }
+
+  /**
+   * Parse a script of PGQL statements that are separated by semicolons (see
+   * {@link #parseAll(List, AbstractMetadataProvider)}). Semicolons inside string literals, quoted identifiers and
+   * comments do not separate statements.
+   *
+   * @param script
+   *          PGQL statements separated by semicolons
+   * @param metadataProvider
+   *          the metadata provider for enhanced type checking based on graph schema information and other metadata
+   * @return one parse result per non-empty statement, in the same order
+   * @throws PgqlException
+   *           if a statement contains errors
+   */
+  public List<PgqlResult> parseScript(String script, AbstractMetadataProvider metadataProvider) throws PgqlException {
+    return parseAll(ScriptSplitter.split(script), metadataProvider);
+  }
+
+  /**
+   * Parse a PGQL query without blocking the caller (see {@link #parseAsync(String, AbstractMetadataProvider)}).
+   */
+  public CompletableFuture<PgqlResult> parseAsync(String queryString) {
+    return parseAsync(queryString, null);
+  }
+
+  /**
+   * Parse a PGQL query without blocking the caller. The parse runs on the parse executor (see
+   * {@link #setParseExecutor(ParseExecutor)}), which bounds the number of pending parses.
+   *
+   * @param queryString
+   *          PGQL query to parse
+   * @param metadataProvider
+   *          the metadata provider for enhanced type checking based on graph schema information and other metadata
+   * @return a future that completes with the parse result, or exceptionally with a {@link PgqlException} or, if the
+   *         parse was rejected by the parse executor, with a {@link java.util.concurrent.RejectedExecutionException}.
+   *         Cancelling the future aborts the parse in the same way as a parse timeout does (see
+   *         {@link #setParseTimeout(long, TimeUnit)}).
+   */
+  public CompletableFuture<PgqlResult> parseAsync(String queryString, AbstractMetadataProvider metadataProvider) {
+    ParseDeadline deadline = ParseDeadline.after(parseTimeoutNanos);
+    CompletableFuture<PgqlResult> future = getParseExecutor()
+        .submit(() -> parse(queryString, metadataProvider, ValidationLevel.FULL, deadline));
+    future.whenComplete((result, exception) -> {
+      if (future.isCancelled()) {
+        deadline.cancel();
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Sets the executor for {@link #parseAsync(String, AbstractMetadataProvider)}. By default, an executor with one
+   * thread per Spoofax runtime of the parser pool and at most 1024 pending parses gets created on first use; further
+   * parses are rejected.
+   *
+   * @param parseExecutor
+   *          the executor, which may be shared by multiple PGQL instances and is not closed by {@link #close()}
+   */
+  public synchronized void setParseExecutor(ParseExecutor parseExecutor) {
+    closeOwnedParseExecutor();
+    this.parseExecutor = parseExecutor;
+  }
+
+  /**
+   * @return the executor for {@link #parseAsync(String, AbstractMetadataProvider)}
+   */
+  public synchronized ParseExecutor getParseExecutor() {
+    if (parseExecutor == null) {
+      int threads;
+      synchronized (lock) {
+        threads = parserPoolSize;
+      }
+      parseExecutor = new ParseExecutor(threads, DEFAULT_MAX_PENDING_PARSES, ParseExecutor.RejectionPolicy.ABORT);
+      ownsParseExecutor = true;
+    }
+    return parseExecutor;
+  }
+
+  private synchronized void closeOwnedParseExecutor() {
+    if (ownsParseExecutor) {
+      parseExecutor.close();
+      ownsParseExecutor = false;
+    }
+    parseExecutor = null;
+  }
+
+  /**
+   * Sets a cache for parse results. Parsing a query string that was parsed before with the same metadata provider then
+   * returns the earlier result. Caching is disabled by default.
+   *
+   * Cached results are not copied: every parse of the same query returns the same {@link PgqlResult} and the same
+   * {@link oracle.pgql.lang.ir.PgqlStatement}, also across threads and PGQL instances. With a cache, callers must not
+   * modify the returned statement, since that would change it for all other callers as well.
+   *
+   * @param resultCache
+   *          the cache, which may be shared by multiple PGQL instances, or null to disable caching
+   */
+  public void setResultCache(PgqlResultCache resultCache) {
+    this.resultCache = resultCache;
+  }
+
+  /**
+   * @return the cache for parse results, or null if caching is disabled
+   */
+  public PgqlResultCache getResultCache() {
+    return resultCache;
+  }
+
+  /**
+   * Sets whether parse results drop the Spoofax parse unit (the syntax tree and the input) after translation, so that
+   * a result only retains its {@link oracle.pgql.lang.ir.PgqlStatement}, its error messages and scalar metadata. This
+   * considerably reduces the memory held by cached results (see {@link #setResultCache(PgqlResultCache)}). Disabled by
+   * default.
+   */
+  public void setCompactResults(boolean compactResults) {
+    this.compactResults = compactResults;
+  }
+
+  public boolean isCompactResults() {
+    return compactResults;
+  }
+
+  /**
+   * Sets whether only the labels and properties that a query may refer to are taken from the graph schema of the
+   * metadata provider for name and type analysis, which makes analysis against large schemas cheaper. Queries that
+   * select all properties always use the whole schema. Enabled by default.
+   */
+  public void setSchemaPruning(boolean schemaPruning) {
+    this.schemaPruning = schemaPruning;
+  }
+
+  public boolean isSchemaPruning() {
+    return schemaPruning;
+  }
+
+  /**
+   * Sets whether common shapes of SELECT queries are parsed and translated by a hand-written parser instead of by
+   * Spoofax, which is considerably cheaper. It produces the same {@link oracle.pgql.lang.ir.SelectQuery}, but the
+   * results do not hold a Spoofax parse unit (as if compacted, see {@link #setCompactResults(boolean)}). Only full
+   * parses of single queries without a metadata provider take the fast path; queries that it does not recognize,
+   * including all invalid queries, are parsed by Spoofax as usual. Disabled by default.
+   */
+  public void setFastPathParsing(boolean fastPathParsing) {
+    this.fastPathParsing = fastPathParsing;
+  }
+
+  public boolean isFastPathParsing() {
+    return fastPathParsing;
+  }
+
+  private void observe(AbstractMetadataProvider metadataProvider) {
+    if (metadataProvider != null && observedMetadataProviders.add(metadataProvider)) {
+      metadataProvider.addMetadataChangeListener(metadataChangeListener);
+    }
+  }
+
+  private void metadataChanged(AbstractMetadataProvider metadataProvider, SchemaQualifiedName graphName) {
+    metadataTermCache.invalidate(metadataProvider, graphName);
+    PgqlResultCache resultCache = this.resultCache;
+    if (resultCache != null) {
+      resultCache.invalidate(metadataProvider);
+    }
+  }
+
+  private PgqlResult parseUncached(String queryString, AbstractMetadataProvider metadataProvider,
+      ValidationLevel validationLevel, ParseDeadline deadline) throws PgqlException {
+    ParseRecorder recorder = ParseRecorder.create(parseListener, queryString, validationLevel);
+    if (fastPathParsing && metadataProvider == null && validationLevel == ValidationLevel.FULL) {
+      recorder.begin(Phase.PARSE);
+      SelectQuery selectQuery = FastPathParser.parse(queryString);
+      recorder.end(Phase.PARSE);
+      if (selectQuery != null) {
+        PgqlResult result = new PgqlResult(queryString, true, (ErrorMessages) null, selectQuery, null, LATEST_VERSION,
+            FastPathParser.BIND_VARIABLE_COUNT, FastPathParser.SELECTS_ALL_PROPERTIES, null);
+        recorder.finish(result);
+        return result;
+      }
+    }
+    recorder.begin(Phase.PARSER_WAIT);
+    SpoofaxInstance spoofaxInstance = acquireSpoofaxInstance(deadline);
+    recorder.end(Phase.PARSER_WAIT);
+    if (spoofaxInstance == null) {
+      PgqlResult result = PgqlResult.timedOut(queryString, deadline.getMessage(), metadataProvider);
+      recorder.finish(result);
+      return result;
+    }
+    try {
+      return parseAndRecord(queryString, metadataProvider, spoofaxInstance, null, validationLevel, deadline, recorder);
+    } finally {
+      releaseSpoofaxInstance(spoofaxInstance);
+    }
+  }
+
+  private PgqlResult parseAndRecord(String queryString, AbstractMetadataProvider metadataProvider,
+      SpoofaxInstance spoofaxInstance, ITemporaryContext sharedContext, ValidationLevel validationLevel,
+      ParseDeadline deadline, ParseRecorder recorder) throws PgqlException {
+    PgqlResult result;
+    try {
+      result = parseInternal(queryString, metadataProvider, spoofaxInstance, sharedContext, validationLevel, deadline,
+          recorder);
+    } catch (PgqlException | RuntimeException e) {
+      recorder.fail();
+      throw e;
+    }
+    recorder.finish(result);
+    return compactResults ? result.compact() : result;
   }
 
   private void checkInitialized() throws PgqlException {
@@ -235,40 +758,189 @@ public class Pgql implements Closeable {
     }
   }
 
-  private PgqlResult parseInternal(String queryString, AbstractMetadataProvider metadataProvider) throws PgqlException {
+  /**
+   * Creates a new Spoofax instance and makes Spoofax initialize the language, which takes seconds. The instance is not
+   * added to the parser pool.
+   */
+  private SpoofaxInstance createSpoofaxInstance() throws MetaborgException, PgqlException {
+    SpoofaxInstance spoofaxInstance = new SpoofaxInstance(spoofaxModule, spoofaxBinaryFile);
+    try {
+      // make Spoofax initialize the language
+      parseInternal("SELECT * FROM MATCH (initQuery)", null, spoofaxInstance, null, ValidationLevel.FULL,
+          ParseDeadline.after(0), ParseRecorder.NONE);
+    } catch (PgqlException | RuntimeException e) {
+      spoofaxInstance.close();
+      throw e;
+    }
+    return spoofaxInstance;
+  }
+
+  /**
+   * Creates a Spoofax instance for a slot of the parser pool that the caller reserved, without holding the lock so
+   * that other parses are not blocked meanwhile, and adds it to the pool. The slot is given back if the creation
+   * fails. The caller is responsible for returning the instance to the pool.
+   */
+  private SpoofaxInstance createPooledSpoofaxInstance(long generation) throws PgqlException {
+    SpoofaxInstance spoofaxInstance = null;
+    try {
+      spoofaxInstance = createSpoofaxInstance();
+    } catch (MetaborgException e) {
+      throw new PgqlException("Failed to initialize PGQL", e);
+    } finally {
+      if (spoofaxInstance == null) {
+        synchronized (lock) {
+          if (generation == poolGeneration) {
+            spoofaxInstancesInCreation--;
+          }
+        }
+      }
+    }
+
+    synchronized (lock) {
+      if (generation == poolGeneration) {
+        spoofaxInstancesInCreation--;
+        spoofaxInstances.add(spoofaxInstance);
+        return spoofaxInstance;
+      }
+    }
+    // the global PGQL instance was closed while the Spoofax instance was created
+    spoofaxInstance.close();
+    throw new PgqlException("Pgql instance was closed");
+  }
+
+  /**
+   * Borrows an idle Spoofax instance from the parser pool. If none is idle, a new instance is created as long as the
+   * pool has not reached its maximum size, otherwise we wait for one to become idle until the deadline expires.
+   *
+   * @return a Spoofax instance, or null if the deadline expired while waiting for one
+   */
+  private SpoofaxInstance acquireSpoofaxInstance(ParseDeadline deadline) throws PgqlException {
+    SpoofaxInstance spoofaxInstance = idleSpoofaxInstances.poll();
+    if (spoofaxInstance != null) {
+      return spoofaxInstance;
+    }
+
+    long generation = -1;
+    synchronized (lock) {
+      checkGloballyInitialized();
+      if (spoofaxInstances.size() + spoofaxInstancesInCreation < parserPoolSize) {
+        spoofaxInstancesInCreation++;
+        generation = poolGeneration;
+      }
+    }
+    if (generation != -1) {
+      return createPooledSpoofaxInstance(generation);
+    }
+
+    try {
+      while (spoofaxInstance == null) {
+        long pollInterval = Math.min(POOL_POLL_INTERVAL_MILLIS, deadline.remainingMillis());
+        spoofaxInstance = idleSpoofaxInstances.poll(pollInterval, TimeUnit.MILLISECONDS);
+        if (spoofaxInstance == null) {
+          checkGloballyInitialized();
+          if (deadline.isExpired()) {
+            return null;
+          }
+        }
+      }
+      return spoofaxInstance;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PgqlException("Interrupted while waiting for the PGQL parser", e);
+    }
+  }
+
+  private void releaseSpoofaxInstance(SpoofaxInstance spoofaxInstance) {
+    synchronized (lock) {
+      if (spoofaxInstance.isRetired()) {
+        spoofaxInstance.close();
+      } else {
+        idleSpoofaxInstances.add(spoofaxInstance);
+      }
+    }
+  }
+
+  private void checkGloballyInitialized() throws PgqlException {
+    if (!isGloballyInitialized) {
+      throw new PgqlException("Pgql instance was closed");
+    }
+  }
+
+  /**
+   * @param sharedContext
+   *          the context to analyze the query in, or null to create a temporary context for this query only
+   * @param validationLevel
+   *          the stage after which to stop
+   * @param deadline
+   *          the deadline after which to abort the parse
+   * @param recorder
+   *          records the duration of each phase
+   */
+  private PgqlResult parseInternal(String queryString, AbstractMetadataProvider metadataProvider,
+      SpoofaxInstance spoofaxInstance, ITemporaryContext sharedContext, ValidationLevel validationLevel,
+      ParseDeadline deadline, ParseRecorder recorder) throws PgqlException {
     if (queryString.equals("")) {
       String error = "Empty query string";
       return new PgqlResult(queryString, false, error, null, null, LATEST_VERSION, 0, false, metadataProvider);
     }
 
     ITemporaryContext context = null;
-    FileObject dummyFile = null;
     try {
-      dummyFile = getFileObject(queryString);
-      ISpoofaxParseUnit parseResult = parseHelper(queryString, dummyFile);
+      if (deadline.isExpired()) {
+        return PgqlResult.timedOut(queryString, deadline.getMessage(), metadataProvider);
+      }
+      recorder.begin(Phase.PARSE);
+      ISpoofaxParseUnit parseResult;
+      boolean parserTimedOut = false;
+      if (deadline.hasTimeout()) {
+        int parserTimeoutMillis = (int) Math.min(Integer.MAX_VALUE, deadline.remainingMillis());
+        long parseStartNanos = System.nanoTime();
+        parseResult = spoofaxInstance.parse(queryString, parserTimeoutMillis);
+        // JSGLR reports a timeout as a failed parse, so a failed parse that took as long as the timeout is one
+        parserTimedOut = !parseResult.success()
+            && System.nanoTime() - parseStartNanos >= TimeUnit.MILLISECONDS.toNanos(parserTimeoutMillis);
+      } else {
+        parseResult = spoofaxInstance.parse(queryString);
+      }
+      recorder.end(Phase.PARSE);
+      if (parserTimedOut || deadline.isExpired()) {
+        return PgqlResult.timedOut(queryString, deadline.getMessage(), metadataProvider);
+      }
 
-      String prettyMessages = null;
+      ErrorMessages errorMessages = null;
       boolean queryValid = parseResult.success();
       PgqlStatement statement = null;
       if (queryValid) {
         checkNoMessages(parseResult.messages(), queryString);
       } else {
-        prettyMessages = getMessages(parseResult.messages(), queryString);
+        errorMessages = ErrorMessages.of(parseResult.messages(), queryString);
       }
       if (!parseResult.valid()) {
-        return new PgqlResult(queryString, parseResult.valid(), prettyMessages, statement, parseResult, LATEST_VERSION,
+        return new PgqlResult(queryString, parseResult.valid(), errorMessages, statement, parseResult, LATEST_VERSION,
             0, false, metadataProvider);
       }
+      if (validationLevel == ValidationLevel.SYNTAX) {
+        return new PgqlResult(queryString, queryValid, errorMessages, statement, parseResult, LATEST_VERSION, 0,
+            false, metadataProvider);
+      }
 
-      context = spoofax.contextService.getTemporary(dummyFile, dummyProject, pgqlLang);
-
-      boolean allowReferencingAnyProperty = queryString.contains(ALLOW_REFERENCING_ANY_PROPERTY_FLAG);
-      ISpoofaxParseUnit extendedParseUnit = addMetadata(parseResult, metadataProvider, spoofax.termFactory,
-          allowReferencingAnyProperty);
+      recorder.begin(Phase.METADATA_INJECTION);
+      ISpoofaxParseUnit extendedParseUnit = addMetadata(parseResult, queryString, metadataProvider,
+          spoofaxInstance.getTermFactory(), schemaPruning, metadataTermCache);
+      recorder.end(Phase.METADATA_INJECTION);
 
-      ISpoofaxAnalyzeUnit analysisResult = null;
-      try (IClosableLock lock = context.write()) {
-        analysisResult = spoofax.analysisService.analyze(extendedParseUnit, context).result();
+      if (deadline.isExpired()) {
+        return PgqlResult.timedOut(queryString, deadline.getMessage(), metadataProvider);
+      }
+      recorder.begin(Phase.ANALYSIS);
+      if (sharedContext == null) {
+        context = spoofaxInstance.getTemporaryContext();
+      }
+      ISpoofaxAnalyzeUnit analysisResult = spoofaxInstance.analyze(extendedParseUnit,
+          sharedContext == null ? context : sharedContext);
+      recorder.end(Phase.ANALYSIS);
+      if (deadline.isExpired()) {
+        return PgqlResult.timedOut(queryString, deadline.getMessage(), metadataProvider);
       }
 
       if (queryValid) {
@@ -276,60 +948,92 @@ public class Pgql implements Closeable {
         if (queryValid) {
           checkNoMessages(analysisResult.messages(), queryString);
         } else {
-          prettyMessages = getMessages(analysisResult.messages(), queryString);
+          errorMessages = ErrorMessages.of(analysisResult.messages(), queryString);
         }
       }
 
+      recorder.begin(Phase.METADATA_INJECTION);
       IStrategoTerm analyizedAst = removeMetadata(analysisResult);
+      recorder.end(Phase.METADATA_INJECTION);
+
+      if (validationLevel == ValidationLevel.SEMANTIC) {
+        IStrategoTerm queryAnnotations = getQueryAnnotations(analyizedAst);
+        boolean isQuery = queryAnnotations != null;
+        PgqlVersion pgqlVersion = getPgqlVersion(queryAnnotations, isQuery);
+        if (queryValid) {
+          checkInvalidJavaComment(queryString, pgqlVersion);
+        }
+        return new PgqlResult(queryString, queryValid, errorMessages, statement, parseResult, pgqlVersion,
+            getBindVariableCount(queryAnnotations, isQuery), querySelectsAllProperties(queryAnnotations, isQuery),
+            metadataProvider);
+      }
 
+      recorder.begin(Phase.TRANSLATION);
       try {
         statement = SpoofaxAstToGraphQuery.translate(analyizedAst);
       } catch (Exception e) {
         if (e instanceof PgqlException) {
-          prettyMessages = e.getMessage();
+          errorMessages = ErrorMessages.of(e.getMessage());
           queryValid = false;
-          return new PgqlResult(queryString, queryValid, prettyMessages, statement, parseResult, LATEST_VERSION, 0,
+          return new PgqlResult(queryString, queryValid, errorMessages, statement, parseResult, LATEST_VERSION, 0,
               false, metadataProvider);
         } else {
           e.printStackTrace();
           LOG.debug("Translation of PGQL failed because of semantically invalid AST");
         }
+      } finally {
+        recorder.end(Phase.TRANSLATION);
       }
 
       IStrategoTerm queryAnnotations = analyizedAst.getSubtermCount() > POS_QUERY_ANNOTATIONS
           ? analyizedAst.getSubterm(POS_QUERY_ANNOTATIONS)
           : null;
-      PgqlVersion pgqlVersion = getPgqlVersion(queryAnnotations, statement);
+      boolean isQuery = statement != null && (statement.getStatementType() == StatementType.SELECT
+          || statement.getStatementType() == StatementType.GRAPH_MODIFY);
+      PgqlVersion pgqlVersion = getPgqlVersion(queryAnnotations, isQuery);
 
       if (queryValid) {
         checkInvalidJavaComment(queryString, pgqlVersion);
       }
 
-      int bindVariableCount = getBindVariableCount(queryAnnotations, statement);
-      boolean querySelectsAllProperties = querySelectsAllProperties(queryAnnotations, statement);
+      int bindVariableCount = getBindVariableCount(queryAnnotations, isQuery);
+      boolean querySelectsAllProperties = querySelectsAllProperties(queryAnnotations, isQuery);
 
-      return new PgqlResult(queryString, queryValid, prettyMessages, statement, parseResult, pgqlVersion,
+      return new PgqlResult(queryString, queryValid, errorMessages, statement, parseResult, pgqlVersion,
           bindVariableCount, querySelectsAllProperties, metadataProvider);
-    } catch (IOException | ParseException | AnalysisException | ContextException e) {
+    } catch (ParseException | AnalysisException | ContextException e) {
       throw new PgqlException("Failed to parse PGQL query", e);
     } finally {
       if (context != null) {
         context.close();
       }
-      quietlyDelete(dummyFile);
     }
   }
 
   private void checkNoMessages(Iterable<IMessage> messages, String queryString) {
     if (messages.iterator().hasNext()) {
-      String prettyMessages = getMessages(messages, queryString);
+      String prettyMessages = ErrorMessages.of(messages, queryString).getText();
       throw new IllegalStateException("Error messages not expected: " + prettyMessages);
     }
   }
 
-  private PgqlVersion getPgqlVersion(IStrategoTerm queryAnnotations, PgqlStatement statement) {
-    if (statement == null || (statement.getStatementType() != StatementType.SELECT
-        && statement.getStatementType() != StatementType.GRAPH_MODIFY)) {
+  /**
+   * @return the annotations of a SELECT or graph INSERT/UPDATE/DELETE query, or null for other statements
+   */
+  private IStrategoTerm getQueryAnnotations(IStrategoTerm analyzedAst) {
+    if (analyzedAst.getSubtermCount() <= POS_QUERY_ANNOTATIONS) {
+      return null;
+    }
+    IStrategoTerm queryAnnotations = analyzedAst.getSubterm(POS_QUERY_ANNOTATIONS);
+    if (queryAnnotations instanceof IStrategoAppl
+        && ((IStrategoAppl) queryAnnotations).getConstructor().getName().equals("QueryAnnotations")) {
+      return queryAnnotations;
+    }
+    return null;
+  }
+
+  private PgqlVersion getPgqlVersion(IStrategoTerm queryAnnotations, boolean isQuery) {
+    if (!isQuery) {
       return LATEST_VERSION;
     }
 
@@ -352,118 +1056,19 @@ public class Pgql implements Closeable {
     return pgqlVersion;
   }
 
-  private int getBindVariableCount(IStrategoTerm queryAnnotations, PgqlStatement statement) {
-    if (statement == null) {
+  private int getBindVariableCount(IStrategoTerm queryAnnotations, boolean isQuery) {
+    if (!isQuery) {
       return 0;
     }
-
-    if (statement.getStatementType() == StatementType.SELECT
-        || statement.getStatementType() == StatementType.GRAPH_MODIFY) {
-      return ((IStrategoInt) queryAnnotations.getSubterm(POS_BIND_VARIABLE_COUNT)).intValue();
-    }
-
-    return 0;
+    return ((IStrategoInt) queryAnnotations.getSubterm(POS_BIND_VARIABLE_COUNT)).intValue();
   }
 
-  private boolean querySelectsAllProperties(IStrategoTerm queryAnnotations, PgqlStatement statement) {
-    if (statement == null) {
+  private boolean querySelectsAllProperties(IStrategoTerm queryAnnotations, boolean isQuery) {
+    if (!isQuery) {
       return false;
     }
-
-    if (statement.getStatementType() == StatementType.SELECT
-        || statement.getStatementType() == StatementType.GRAPH_MODIFY) {
-      IStrategoAppl selectingAllPropertiesT = (IStrategoAppl) queryAnnotations.getSubterm(POS_SELECTING_ALL_PROPERTIES);
-      return selectingAllPropertiesT.getConstructor().getName().equals("True");
-    }
-
-    return false;
-  }
-
-  private FileObject getFileObject(String queryString) throws UnsupportedEncodingException, IOException {
-    String randomFileName = UUID.randomUUID().toString() + ".pgql";
-    FileObject dummyFile = spoofax.resourceService.resolve(dummyProjectDir, randomFileName);
-    try (OutputStream out = dummyFile.getContent().getOutputStream()) {
-      IOUtils.write(queryString.getBytes("UTF-8"), out);
-    }
-    return dummyFile;
-  }
-
-  private ISpoofaxParseUnit parseHelper(String queryString, FileObject fileObject) throws ParseException {
-
-    ISpoofaxInputUnit input = spoofax.unitService.inputUnit(fileObject, queryString, pgqlLang, null);
-    return spoofax.syntaxService.parse(input);
-  }
-
-  private static void quietlyDelete(FileObject fo) {
-    try {
-      if (fo != null && fo.exists()) {
-        if (fo.delete() == false) {
-          LOG.warn("failed to delete temporary query file: " + fo.getURL().toString());
-        }
-      }
-    } catch (IOException e) {
-      LOG.warn("got error while trying to delete temporary query file", e);
-    }
-  }
-
-  private Iterable<ICompletion> spoofaxComplete(ISpoofaxParseUnit parseResult, int cursor) {
-    try {
-      return spoofax.completionService.get(cursor, parseResult, false);
-    } catch (MetaborgException e) {
-      // swallow any exceptions; worst case we don't suggest any completions
-      LOG.debug("spoofax completion failed: " + e.getMessage());
-    }
-    return Collections.emptyList();
-  }
-
-  /**
-   * Pretty-prints messages (i.e. compiler errors/warnings/notes) into an output stream.
-   */
-  private static String getMessages(final Iterable<IMessage> messages, String sourceText) {
-    StringBuilder sb = new StringBuilder();
-    int lineNumber = -1;
-
-    // Reverse the messages to have them in the right order (top to bottom)
-    Iterator<IMessage> it = Lists.reverse(Lists.newArrayList(messages.iterator())).iterator();
-    while (it.hasNext()) {
-      IMessage message = it.next();
-      if (message.region() != null) { // null when query string is empty (e.g. "")
-        int startRow = message.region().startRow() + 1;
-        if (lineNumber != startRow) {
-          if (lineNumber != -1) {
-            sb.append("\n");
-          }
-          lineNumber = startRow;
-          sb.append("Error(s) in line " + startRow + ":");
-        }
-      }
-
-      String affectedSourceText;
-      try {
-        affectedSourceText = AffectedSourceHelper.affectedSourceText(message.region(), sourceText,
-            ERROR_MESSSAGE_INDENTATION);
-      } catch (NullPointerException e) {
-        // workaround for Spoofax bug, see GM-5111
-        affectedSourceText = null;
-      }
-
-      sb.append("\n\n");
-
-      if (affectedSourceText != null) {
-        sb.append(affectedSourceText);
-      }
-
-      String m = message.message();
-      if (m.contains(" ")) {
-        m = NON_BREAKING_WHITE_SPACE_ERROR;
-      }
-      sb.append(ERROR_MESSSAGE_INDENTATION + m);
-
-      if (it.hasNext()) {
-        sb.append("\n");
-      }
-    }
-    return sb.toString();
+    IStrategoAppl selectingAllPropertiesT = (IStrategoAppl) queryAnnotations.getSubterm(POS_SELECTING_ALL_PROPERTIES);
+    return selectingAllPropertiesT.getConstructor().getName().equals("True");
   }
 
   /**
@@ -476,15 +1081,19 @@ public class Pgql implements Closeable {
     } catch (PgqlException e) {
       // spoofax e.g. throws exception for query "SELECT * FROM g MATCH "
     }
-    Iterable<ICompletion> spoofaxCompletions = null;
-    // synchronized (lock) { spoofaxCompletions = spoofaxComplete(pgqlResult.getSpoofaxParseUnit(), cursor); } // not
-    // used yet
+    Iterable<ICompletion> spoofaxCompletions = null; // Spoofax completions are not used yet
 
     return PgqlCompletionGenerator.generate(pgqlResult, spoofaxCompletions, queryString, cursor, ctx);
   }
 
   @Override
   public void close() {
+    closeOwnedParseExecutor();
+    for (AbstractMetadataProvider metadataProvider : observedMetadataProviders) {
+      metadataProvider.removeMetadataChangeListener(metadataChangeListener);
+    }
+    observedMetadataProviders.clear();
+    metadataTermCache.invalidateAll();
     synchronized (lock) {
       isInitialized = false;
       instances.remove(this);
@@ -497,17 +1106,21 @@ public class Pgql implements Closeable {
   private void cleanUp() {
     LOG.info("closing the global PGQL instance");
     isGloballyInitialized = false;
+    parserPoolSize = DEFAULT_PARSER_POOL_SIZE;
+    spoofaxInstancesInCreation = 0;
+    poolGeneration++;
+
+    // Spoofax instances that are still in use by a parse get closed when they are returned to the pool
+    List<SpoofaxInstance> idle = new ArrayList<>();
+    idleSpoofaxInstances.drainTo(idle);
+    spoofaxInstances.forEach(SpoofaxInstance::retire);
+    spoofaxInstances.clear();
+
     if (System.getProperty("os.name").startsWith("Windows")) {
       return; // Windows issue, also see http://yellowgrass.org/issue/Spoofax/88
     }
 
-    if (spoofax != null) {
-      spoofax.close();
-    }
-    if (spoofaxBinaryFile != null) {
-      if (!spoofaxBinaryFile.delete()) {
-        LOG.warn("failed to delete Spoofax binary file: " + spoofaxBinaryFile.getAbsolutePath());
-      }
-    }
+    // the Spoofax binary file is not deleted since it is shared with other JVMs (see SpoofaxBinaryCache)
+    idle.forEach(SpoofaxInstance::close);
   }
 }
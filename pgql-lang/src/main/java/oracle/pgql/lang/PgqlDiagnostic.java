@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+/**
+ * A single error, warning or note reported for a query, together with the region of the query string it applies to.
+ */
+public class PgqlDiagnostic {
+
+  public enum Severity {
+    ERROR,
+    WARNING,
+    NOTE
+  }
+
+  private final Severity severity;
+
+  private final String message;
+
+  private final int startOffset;
+
+  private final int endOffset;
+
+  private final int startLine;
+
+  private final int startColumn;
+
+  private final int endLine;
+
+  private final int endColumn;
+
+  /**
+   * Creates a diagnostic without a region.
+   */
+  public PgqlDiagnostic(Severity severity, String message) {
+    this(severity, message, -1, -1, -1, -1, -1, -1);
+  }
+
+  public PgqlDiagnostic(Severity severity, String message, int startOffset, int endOffset, int startLine,
+      int startColumn, int endLine, int endColumn) {
+    this.severity = severity;
+    this.message = message;
+    this.startOffset = startOffset;
+    this.endOffset = endOffset;
+    this.startLine = startLine;
+    this.startColumn = startColumn;
+    this.endLine = endLine;
+    this.endColumn = endColumn;
+  }
+
+  public Severity getSeverity() {
+    return severity;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * @return false if the diagnostic applies to the query as a whole, in which case the offsets, lines and columns are
+   *         -1
+   */
+  public boolean hasRegion() {
+    return startOffset != -1;
+  }
+
+  /**
+   * @return the offset of the first character of the region in the query string
+   */
+  public int getStartOffset() {
+    return startOffset;
+  }
+
+  /**
+   * @return the offset of the last character of the region in the query string (inclusive)
+   */
+  public int getEndOffset() {
+    return endOffset;
+  }
+
+  /**
+   * @return the line of the first character of the region, starting from 1
+   */
+  public int getStartLine() {
+    return startLine;
+  }
+
+  /**
+   * @return the column of the first character of the region, starting from 1
+   */
+  public int getStartColumn() {
+    return startColumn;
+  }
+
+  /**
+   * @return the line of the last character of the region, starting from 1
+   */
+  public int getEndLine() {
+    return endLine;
+  }
+
+  /**
+   * @return the column of the last character of the region, starting from 1
+   */
+  public int getEndColumn() {
+    return endColumn;
+  }
+
+  @Override
+  public String toString() {
+    if (!hasRegion()) {
+      return severity + ": " + message;
+    }
+    return severity + " at line " + startLine + ", column " + startColumn + ": " + message;
+  }
+}
@@ -4,9 +4,9 @@
 package oracle.pgql.lang;
 
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
 
@@ -30,7 +30,7 @@ public class PgqlResult {
 
   private final String queryString;
 
-  private final String errorMessages;
+  private final ErrorMessages errorMessages;
 
   private final boolean queryValid;
 
@@ -46,9 +46,25 @@ public class PgqlResult {
 
   private final AbstractMetadataProvider metadataProvider;
 
+  private final boolean timedOut;
+
   public PgqlResult(String queryString, boolean queryValid, String messages, PgqlStatement pgqlStatement,
       ISpoofaxParseUnit spoofaxParseUnit, PgqlVersion pgqlVersion, int bindVariableCount,
       boolean querySelectsAllProperties, AbstractMetadataProvider metadataProvider) {
+    this(queryString, queryValid, ErrorMessages.of(messages), pgqlStatement, spoofaxParseUnit, pgqlVersion,
+        bindVariableCount, querySelectsAllProperties, metadataProvider, false);
+  }
+
+  PgqlResult(String queryString, boolean queryValid, ErrorMessages messages, PgqlStatement pgqlStatement,
+      ISpoofaxParseUnit spoofaxParseUnit, PgqlVersion pgqlVersion, int bindVariableCount,
+      boolean querySelectsAllProperties, AbstractMetadataProvider metadataProvider) {
+    this(queryString, queryValid, messages, pgqlStatement, spoofaxParseUnit, pgqlVersion, bindVariableCount,
+        querySelectsAllProperties, metadataProvider, false);
+  }
+
+  private PgqlResult(String queryString, boolean queryValid, ErrorMessages messages, PgqlStatement pgqlStatement,
+      ISpoofaxParseUnit spoofaxParseUnit, PgqlVersion pgqlVersion, int bindVariableCount,
+      boolean querySelectsAllProperties, AbstractMetadataProvider metadataProvider, boolean timedOut) {
     this.queryString = queryString;
     this.errorMessages = messages;
     this.queryValid = queryValid;
@@ -58,6 +74,26 @@ public class PgqlResult {
     this.bindVariableCount = bindVariableCount;
     this.querySelectsAllProperties = querySelectsAllProperties;
     this.metadataProvider = metadataProvider;
+    this.timedOut = timedOut;
+  }
+
+  /**
+   * Creates the result of a parse that was aborted because its deadline expired or because it was cancelled.
+   */
+  static PgqlResult timedOut(String queryString, String message, AbstractMetadataProvider metadataProvider) {
+    return new PgqlResult(queryString, false, ErrorMessages.of(message), null, null, PgqlVersion.V_1_3_OR_UP, 0, false,
+        metadataProvider, true);
+  }
+
+  /**
+   * @return this result without the Spoofax parse unit, see {@link Pgql#setCompactResults(boolean)}
+   */
+  PgqlResult compact() {
+    if (spoofaxParseUnit == null) {
+      return this;
+    }
+    return new PgqlResult(queryString, queryValid, errorMessages, pgqlStatement, null, pgqlVersion, bindVariableCount,
+        querySelectsAllProperties, metadataProvider, timedOut);
   }
 
   /**
@@ -75,10 +111,19 @@ public class PgqlResult {
   }
 
   /**
-   * @return a String with error messages if the query is not valid (see {@link #isQueryValid()}); null otherwise
+   * @return a String with error messages if the query is not valid (see {@link #isQueryValid()}); null otherwise. The
+   *         String is built on the first call.
    */
   public String getErrorMessages() {
-    return errorMessages;
+    return errorMessages == null ? null : errorMessages.getText();
+  }
+
+  /**
+   * @return the errors, warnings and notes for the query, in the order in which they appear in the query string, or an
+   *         empty list if there are none
+   */
+  public List<PgqlDiagnostic> getDiagnostics() {
+    return errorMessages == null ? Collections.emptyList() : errorMessages.getDiagnostics();
   }
 
   /**
@@ -107,6 +152,15 @@ public class PgqlResult {
     return pgqlStatement;
   }
 
+  /**
+   * @return true if the parse was aborted because it exceeded the parse timeout (see
+   *         {@link Pgql#setParseTimeout(long, java.util.concurrent.TimeUnit)}) or because it was cancelled, in which
+   *         case the query is reported as invalid without saying anything about the validity of the query itself
+   */
+  public boolean isTimedOut() {
+    return timedOut;
+  }
+
   public PgqlVersion getPgqlVersion() {
     return pgqlVersion;
   }
@@ -131,7 +185,9 @@ public class PgqlResult {
     if (pgqlStatement.getStatementType() != StatementType.SELECT) {
       throw new IllegalStateException("SELECT query expected but was " + pgqlStatement.getStatementType());
     }
-    if (metadataProvider == null || metadataProvider.getGraphSchema() == null) {
+    // fetched once, so that all labels are looked up in the same schema and its index is not rebuilt for each label
+    GraphSchema graphSchema = metadataProvider == null ? null : getGraphSchema().orElse(null);
+    if (graphSchema == null) {
       throw new IllegalStateException("Graph schema was not provided to the parser");
     }
 
@@ -140,7 +196,7 @@ public class PgqlResult {
     List<String> result = null;
     for (QueryExpression exp : getGraphQuery().getGraphPattern().getConstraints()) {
       if (isHasLabelFunctionForVar(exp, vertexOrEdge)) {
-        List<String> properties = getAllProperties(exp, isVertex);
+        List<String> properties = getAllProperties(exp, isVertex, graphSchema);
         if (result == null) {
           result = properties;
         } else {
@@ -151,63 +207,48 @@ public class PgqlResult {
 
     // no label expression exist, so we return the union of properties of all labels
     if (result == null) {
-      List<? extends Label> labels = getLabels(isVertex);
-      LinkedHashSet<String> properties = new LinkedHashSet<>();
-      for (Label l : labels) {
-        properties.addAll(l.getProperties().stream().map(p -> p.getName()).collect(Collectors.toList()));
-      }
-      result = new ArrayList<String>(properties);
+      result = new ArrayList<>(isVertex ? graphSchema.getVertexPropertyNames() : graphSchema.getEdgePropertyNames());
     }
 
     return result;
   }
 
-  private List<String> getAllProperties(QueryExpression exp, boolean isVertex) {
+  private List<String> getAllProperties(QueryExpression exp, boolean isVertex, GraphSchema graphSchema) {
     switch (exp.getExpType()) {
       case FUNCTION_CALL:
-        return getAllProperties((FunctionCall) exp, isVertex);
+        return getAllProperties((FunctionCall) exp, isVertex, graphSchema);
       case OR:
-        return getAllProperties((Or) exp, isVertex);
+        return getAllProperties((Or) exp, isVertex, graphSchema);
       default:
         throw new IllegalStateException("Unsupported expression type " + pgqlStatement.getStatementType());
     }
   }
 
-  private List<String> getAllProperties(FunctionCall functionCall, boolean isVertex) {
+  private List<String> getAllProperties(FunctionCall functionCall, boolean isVertex, GraphSchema graphSchema) {
     String label = ((ConstString) functionCall.getArgs().get(1)).getValue();
-    List<? extends Label> labels = getLabels(isVertex);
-
-    // first try to find an exact match
-    for (Label l : labels) {
-      if (l.getLabel().equals(label)) {
-        return l.getProperties().stream().map(p -> p.getName()).collect(Collectors.toList());
-      }
-    }
-
-    // now try to find an inexact match
-    for (Label l : labels) {
-      if (l.getLabel().toUpperCase().equals(label)) {
-        return l.getProperties().stream().map(p -> p.getName()).collect(Collectors.toList());
-      }
+    Optional<? extends Label> l = isVertex ? graphSchema.getVertexLabel(label) : graphSchema.getEdgeLabel(label);
+    if (!l.isPresent()) {
+      throw new IllegalStateException("Label " + label + " does not exist");
     }
-
-    throw new IllegalStateException("Label " + label + " does not exist");
+    return new ArrayList<>(l.get().getPropertyNames());
   }
 
-  private List<String> getAllProperties(Or or, boolean isVertex) {
-    List<String> result = getAllProperties(or.getExp1(), isVertex);
-    result.addAll(getAllProperties(or.getExp2(), isVertex)); // compute the union since this is a disjunction (OR)
+  private List<String> getAllProperties(Or or, boolean isVertex, GraphSchema graphSchema) {
+    List<String> result = getAllProperties(or.getExp1(), isVertex, graphSchema);
+    // compute the union since this is a disjunction (OR)
+    result.addAll(getAllProperties(or.getExp2(), isVertex, graphSchema));
     return result;
   }
 
-  private List<? extends Label> getLabels(boolean isVertex) {
+  private Optional<GraphSchema> getGraphSchema() {
     SchemaQualifiedName graphName = getGraphQuery().getGraphName();
-    GraphSchema graphSchema = graphName == null ? metadataProvider.getGraphSchema().get()
-        : metadataProvider.getGraphSchema(graphName).get();
-    List<? extends Label> labels = isVertex ? graphSchema.getVertexLabels() : graphSchema.getEdgeLabels();
-    return labels;
+    return graphName == null ? metadataProvider.getGraphSchema() : metadataProvider.getGraphSchema(graphName);
   }
 
+  /**
+   * @return the Spoofax parse unit, or null if the result was compacted (see {@link Pgql#setCompactResults(boolean)})
+   *         or produced by the fast path (see {@link Pgql#setFastPathParsing(boolean)})
+   */
   protected ISpoofaxParseUnit getSpoofaxParseUnit() {
     return spoofaxParseUnit;
   }
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import oracle.pgql.lang.ir.GraphQuery;
+import oracle.pgql.lang.ir.PgqlStatement;
+import oracle.pgql.lang.ir.SchemaQualifiedName;
+import oracle.pgql.lang.metadata.AbstractMetadataProvider;
+
+/**
+ * A bounded, thread-safe cache of parse results, keyed by query string and metadata provider. Least recently used
+ * results are evicted once the cache holds the maximum number of results. To not serialize concurrent parses, larger
+ * caches are split into segments, one per available processor, each with its own lock; eviction is then least
+ * recently used within a segment, which approximates it for the whole cache.
+ *
+ * Cached results are shared between all callers that parse the same query with the same metadata provider, and are not
+ * copied: all callers get the same {@link PgqlResult} and the same {@link oracle.pgql.lang.ir.PgqlStatement}. Callers
+ * must therefore not modify them, for example with {@link oracle.pgql.lang.ir.GraphQuery#setGraphPattern}, since
+ * that would change the result for all other callers as well. Reading them from multiple threads is safe.
+ * Metadata providers are compared by identity. The version of the metadata of the default graph (see
+ * {@link AbstractMetadataProvider#getSchemaVersion}) is part of the key, and a cached result of a query against another
+ * graph is only reused while the version of that graph stays the same. The results of a provider are also removed when
+ * the provider notifies that its metadata changed (see {@link AbstractMetadataProvider#addMetadataChangeListener}),
+ * including the results of parses that were in flight at the time. For providers that neither provide versions nor
+ * notify about changes, {@link #invalidateAll()} should be called when their metadata changes.
+ */
+public class PgqlResultCache {
+
+  private final Cache<Key, Entry> cache;
+
+  /**
+   * The number of times that the metadata of each provider changed, to recognize results of parses that overlapped
+   * with a change. Providers are weakly referenced, so that providers that are no longer used can be garbage collected.
+   */
+  private final Map<AbstractMetadataProvider, AtomicLong> generations = new MapMaker().weakKeys().makeMap();
+
+  /**
+   * Lookups that were answered with a cached result. These are counted here rather than taken from the statistics of
+   * the underlying cache, since a lookup that gets a result that timed out or is stale parses the query again.
+   */
+  private final LongAdder hits = new LongAdder();
+
+  /**
+   * Lookups that parsed the query, including those that got a result that timed out or is stale.
+   */
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * @param maximumSize
+   *          the maximum number of parse results that are kept in the cache
+   */
+  public PgqlResultCache(long maximumSize) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("Maximum cache size should be at least 1 but was " + maximumSize);
+    }
+    cache = CacheBuilder.newBuilder() //
+        .maximumSize(maximumSize) //
+        .concurrencyLevel(Runtime.getRuntime().availableProcessors()) //
+        .recordStats() //
+        .build();
+  }
+
+  /**
+   * Returns the cached result or otherwise parses the query and caches the result. Concurrent requests for the same
+   * key wait for a single parse instead of all parsing the query.
+   *
+   * The parser applies the deadline of the caller. If the result that a caller waited for timed out or was cancelled
+   * under the deadline of another caller, or if the metadata changed while the query was parsed, the query is parsed
+   * again with the parser of the caller.
+   */
+  PgqlResult get(String queryString, AbstractMetadataProvider metadataProvider, Callable<PgqlResult> parser)
+      throws PgqlException {
+    long generation = getGeneration(metadataProvider);
+    Key key = new Key(queryString, metadataProvider,
+        metadataProvider == null ? null : metadataProvider.getSchemaVersion(null).orElse(null));
+    boolean[] loadedByCaller = new boolean[1];
+    Entry entry;
+    try {
+      entry = cache.get(key, () -> {
+        loadedByCaller[0] = true;
+        return new Entry(parser.call(), generation, metadataProvider);
+      });
+    } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      throw unwrap(e.getCause());
+    }
+
+    if (entry.result.isTimedOut()) {
+      // a timeout says nothing about the query, so the next parse should try again
+      cache.asMap().remove(key, entry);
+      misses.increment();
+      return loadedByCaller[0] ? entry.result : call(parser);
+    }
+    if (entry.generation != getGeneration(metadataProvider) || !entry.isGraphVersionCurrent(metadataProvider)) {
+      cache.asMap().remove(key, entry);
+      misses.increment();
+      return call(parser);
+    }
+    (loadedByCaller[0] ? misses : hits).increment();
+    return entry.result;
+  }
+
+  /**
+   * @return the number of parses that were answered from the cache
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return the number of parses that were not answered from the cache, including those that found a result that had
+   *         timed out or was stale
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * @return the number of results that were evicted to stay within the maximum size
+   */
+  public long getEvictionCount() {
+    return cache.stats().evictionCount();
+  }
+
+  /**
+   * @return the number of results currently in the cache
+   */
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * Removes the results of a metadata provider from the cache. Results of parses that are still in flight are removed
+   * once they complete.
+   */
+  void invalidate(AbstractMetadataProvider metadataProvider) {
+    generations.computeIfAbsent(metadataProvider, provider -> new AtomicLong()).incrementAndGet();
+    cache.asMap().keySet().removeIf(key -> key.metadataProvider == metadataProvider);
+  }
+
+  /**
+   * Removes all results from the cache, for example because the metadata of a provider changed.
+   */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private long getGeneration(AbstractMetadataProvider metadataProvider) {
+    if (metadataProvider == null) {
+      return 0;
+    }
+    AtomicLong generation = generations.get(metadataProvider);
+    return generation == null ? 0 : generation.get();
+  }
+
+  private static PgqlResult call(Callable<PgqlResult> parser) throws PgqlException {
+    try {
+      return parser.call();
+    } catch (Exception e) {
+      throw unwrap(e);
+    }
+  }
+
+  /**
+   * @return whatever the parse threw, as an unchecked exception or a {@link PgqlException}
+   */
+  private static PgqlException unwrap(Throwable cause) {
+    if (cause instanceof PgqlException) {
+      return (PgqlException) cause;
+    } else if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    } else if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return new PgqlException("Failed to parse PGQL query", cause);
+  }
+
+  private static class Key {
+
+    private final String queryString;
+
+    private final AbstractMetadataProvider metadataProvider;
+
+    /**
+     * The version of the metadata of the default graph, or null if the provider does not provide a version.
+     */
+    private final String schemaVersion;
+
+    Key(String queryString, AbstractMetadataProvider metadataProvider, String schemaVersion) {
+      this.queryString = queryString;
+      this.metadataProvider = metadataProvider;
+      this.schemaVersion = schemaVersion;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = 31 * queryString.hashCode() + System.identityHashCode(metadataProvider);
+      return 31 * result + Objects.hashCode(schemaVersion);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return metadataProvider == other.metadataProvider && Objects.equals(queryString, other.queryString)
+          && Objects.equals(schemaVersion, other.schemaVersion);
+    }
+  }
+
+  private static class Entry {
+
+    private final PgqlResult result;
+
+    /**
+     * The generation of the metadata provider from before the query was parsed.
+     */
+    private final long generation;
+
+    /**
+     * The graph that the query is against, if it is not the default graph, and the version of its metadata.
+     */
+    private final SchemaQualifiedName graphName;
+
+    private final String graphVersion;
+
+    Entry(PgqlResult result, long generation, AbstractMetadataProvider metadataProvider) {
+      this.result = result;
+      this.generation = generation;
+      PgqlStatement statement = result.getPgqlStatement();
+      this.graphName = statement instanceof GraphQuery ? ((GraphQuery) statement).getGraphName() : null;
+      this.graphVersion = graphName == null || metadataProvider == null ? null
+          : metadataProvider.getSchemaVersion(graphName).orElse(null);
+    }
+
+    boolean isGraphVersionCurrent(AbstractMetadataProvider metadataProvider) {
+      return graphName == null || metadataProvider == null
+          || Objects.equals(graphVersion, metadataProvider.getSchemaVersion(graphName).orElse(null));
+    }
+  }
+}
@@ -0,0 +1,423 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import oracle.pgql.lang.ir.QueryExpression;
+import oracle.pgql.lang.ir.QueryExpression.Constant.ConstBoolean;
+import oracle.pgql.lang.ir.QueryExpression.Constant.ConstDecimal;
+import oracle.pgql.lang.ir.QueryExpression.Constant.ConstInteger;
+import oracle.pgql.lang.ir.QueryExpression.Constant.ConstString;
+import oracle.pgql.lang.ir.QueryExpression.InPredicate.InValueList;
+
+/**
+ * Replaces the literals of a query by bind variables such that queries that only differ in their constants map to the
+ * same query text.
+ *
+ * The rewrite works on tokens rather than on the AST since it has to happen before the query gets parsed. Literals are
+ * only replaced in positions where the grammar allows a bind variable: numbers in path quantifiers ({@code {1,3}}) and
+ * after ANY/SHORTEST/CHEAPEST/TOP, strings of DATE/TIME/TIMESTAMP/INTERVAL literals and PREFIX clauses, label arguments
+ * of has_label and LISTAGG separators are kept. IN lists are replaced as a whole and only if all values are of the same
+ * kind. Whether the rewritten query is still valid is left to the parser.
+ */
+class QueryParameterizer {
+
+  private static final String BIND_VARIABLE = "?";
+
+  private static final Set<String> PARAMETERIZABLE_STATEMENTS = new HashSet<>(
+      Arrays.asList("SELECT", "PATH", "FROM", "INSERT", "UPDATE", "DELETE"));
+
+  private static final Set<String> KEYWORDS_BEFORE_NUMBER_OF_PATHS = new HashSet<>(
+      Arrays.asList("ANY", "SHORTEST", "CHEAPEST", "TOP"));
+
+  private static final Set<String> KEYWORDS_BEFORE_STRING = new HashSet<>(
+      Arrays.asList("DATE", "TIME", "TIMESTAMP", "INTERVAL", "PREFIX"));
+
+  private static final Set<String> FUNCTIONS_WITH_STRING_ARGUMENT = new HashSet<>(
+      Arrays.asList("HAS_LABEL", "LISTAGG"));
+
+  private enum TokenKind {
+    LAYOUT, // white space and comments
+    WORD,
+    DELIMITED_IDENTIFIER,
+    STRING,
+    NUMBER,
+    BIND_VARIABLE,
+    OTHER
+  }
+
+  private static class Token {
+
+    final TokenKind kind;
+
+    final String text;
+
+    Token(TokenKind kind, String text) {
+      this.kind = kind;
+      this.text = text;
+    }
+
+    boolean is(String s) {
+      return text.equalsIgnoreCase(s);
+    }
+  }
+
+  static class ParameterizedQuery {
+
+    private final String queryString;
+
+    private final List<QueryExpression> parameters;
+
+    ParameterizedQuery(String queryString, List<QueryExpression> parameters) {
+      this.queryString = queryString;
+      this.parameters = parameters;
+    }
+
+    String getQueryString() {
+      return queryString;
+    }
+
+    /**
+     * @return one value per bind variable of the rewritten query, in order of appearance, where null means that the
+     *         bind variable was already in the original query
+     */
+    List<QueryExpression> getParameters() {
+      return parameters;
+    }
+  }
+
+  /**
+   * @return the parameterized query, or null if the statement is not a query (e.g. a DDL statement)
+   */
+  static ParameterizedQuery parameterize(String queryString) {
+    List<Token> tokens = tokenize(queryString);
+
+    Token firstToken = nextSignificantToken(tokens, 0);
+    if (firstToken == null || firstToken.kind != TokenKind.WORD
+        || !PARAMETERIZABLE_STATEMENTS.contains(firstToken.text.toUpperCase())) {
+      return null;
+    }
+
+    StringBuilder result = new StringBuilder(queryString.length());
+    List<QueryExpression> parameters = new ArrayList<>();
+    Deque<String> enclosingFunctions = new ArrayDeque<>();
+    int quantifierDepth = 0;
+    Token previous = null;
+
+    int i = 0;
+    while (i < tokens.size()) {
+      Token token = tokens.get(i);
+      QueryExpression value = null;
+      switch (token.kind) {
+        case LAYOUT:
+          result.append(token.text);
+          i++;
+          continue;
+        case BIND_VARIABLE:
+          parameters.add(null);
+          break;
+        case WORD:
+          if ((token.is("TRUE") || token.is("FALSE")) && !isOther(previous, ".")) {
+            value = new ConstBoolean(token.is("TRUE"));
+          }
+          break;
+        case NUMBER:
+          if (quantifierDepth == 0 && !isKeyword(previous, KEYWORDS_BEFORE_NUMBER_OF_PATHS)) {
+            value = toNumber(token.text, false);
+          }
+          break;
+        case STRING:
+          boolean keepString = isKeyword(previous, KEYWORDS_BEFORE_STRING) //
+              || isOther(previous, ":") || isOther(previous, "|") // PGQL 1.0 labels
+              || (isOther(previous, ",") && FUNCTIONS_WITH_STRING_ARGUMENT.contains(enclosingFunctions.peek()));
+          if (!keepString) {
+            value = toString(token.text);
+          }
+          break;
+        case OTHER:
+          if (token.is("(")) {
+            if (isKeyword(previous, "IN")) {
+              int end = findEndOfInValueList(tokens, i);
+              if (end != -1) {
+                InValueList inValueList = toInValueList(tokens, i + 1, end);
+                if (inValueList == null) {
+                  // mixed types; copy the list as is and let the parser report the error
+                  for (int j = i; j <= end; j++) {
+                    result.append(tokens.get(j).text);
+                  }
+                } else {
+                  result.append(BIND_VARIABLE);
+                  parameters.add(inValueList);
+                }
+                previous = tokens.get(end);
+                i = end + 1;
+                continue;
+              }
+            }
+            boolean isFunctionCall = previous != null && previous.kind == TokenKind.WORD;
+            enclosingFunctions.push(isFunctionCall ? previous.text.toUpperCase() : "");
+          } else if (token.is(")")) {
+            enclosingFunctions.poll();
+          } else if (token.is("{")) {
+            quantifierDepth++;
+          } else if (token.is("}")) {
+            quantifierDepth--;
+          }
+          break;
+        default:
+          break;
+      }
+
+      if (value == null) {
+        result.append(token.text);
+      } else {
+        result.append(BIND_VARIABLE);
+        parameters.add(value);
+      }
+      previous = token;
+      i++;
+    }
+
+    return new ParameterizedQuery(result.toString(), parameters);
+  }
+
+  /**
+   * @return the index of the closing parenthesis if the parenthesis at the given index starts a list of (possibly
+   *         negated) literals, or -1 otherwise
+   */
+  private static int findEndOfInValueList(List<Token> tokens, int openingParenthesis) {
+    boolean expectValue = true;
+    for (int i = openingParenthesis + 1; i < tokens.size(); i++) {
+      Token token = tokens.get(i);
+      if (token.kind == TokenKind.LAYOUT) {
+        continue;
+      }
+      if (expectValue) {
+        if (token.is("-")) {
+          continue;
+        } else if (isLiteral(token)) {
+          expectValue = false;
+        } else {
+          return -1;
+        }
+      } else if (token.is(",")) {
+        expectValue = true;
+      } else if (token.is(")")) {
+        return i;
+      } else {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  private static InValueList toInValueList(List<Token> tokens, int start, int end) {
+    List<QueryExpression> values = new ArrayList<>();
+    boolean negate = false;
+    for (int i = start; i < end; i++) {
+      Token token = tokens.get(i);
+      if (token.is("-")) {
+        if (negate) {
+          return null;
+        }
+        negate = true;
+      } else if (isLiteral(token)) {
+        QueryExpression value;
+        if (token.kind == TokenKind.NUMBER) {
+          value = toNumber(token.text, negate);
+        } else if (negate) {
+          return null;
+        } else if (token.kind == TokenKind.STRING) {
+          value = toString(token.text);
+        } else {
+          value = new ConstBoolean(token.is("TRUE"));
+        }
+        if (value == null) {
+          return null;
+        }
+        values.add(value);
+        negate = false;
+      }
+    }
+
+    int size = values.size();
+    if (values.stream().allMatch(v -> v instanceof ConstInteger)) {
+      long[] integerValues = new long[size];
+      for (int i = 0; i < size; i++) {
+        integerValues[i] = ((ConstInteger) values.get(i)).getValue();
+      }
+      return new InValueList(integerValues);
+    } else if (values.stream().allMatch(v -> v instanceof ConstInteger || v instanceof ConstDecimal)) {
+      double[] decimalValues = new double[size];
+      for (int i = 0; i < size; i++) {
+        QueryExpression value = values.get(i);
+        decimalValues[i] = value instanceof ConstInteger ? ((ConstInteger) value).getValue()
+            : ((ConstDecimal) value).getValue();
+      }
+      return new InValueList(decimalValues);
+    } else if (values.stream().allMatch(v -> v instanceof ConstString)) {
+      String[] stringValues = new String[size];
+      for (int i = 0; i < size; i++) {
+        stringValues[i] = ((ConstString) values.get(i)).getValue();
+      }
+      return new InValueList(stringValues);
+    } else if (values.stream().allMatch(v -> v instanceof ConstBoolean)) {
+      boolean[] booleanValues = new boolean[size];
+      for (int i = 0; i < size; i++) {
+        booleanValues[i] = ((ConstBoolean) values.get(i)).getValue();
+      }
+      return new InValueList(booleanValues);
+    }
+    return null; // mixed types; the parser generates the error
+  }
+
+  private static boolean isLiteral(Token token) {
+    return token.kind == TokenKind.NUMBER || token.kind == TokenKind.STRING
+        || (token.kind == TokenKind.WORD && (token.is("TRUE") || token.is("FALSE")));
+  }
+
+  /**
+   * @return the constant, or null if the number does not fit a long and should be left to the parser to report
+   */
+  private static QueryExpression toNumber(String text, boolean negate) {
+    String number = negate ? "-" + text : text;
+    if (text.contains(".")) {
+      return new ConstDecimal(Double.parseDouble(number));
+    }
+    try {
+      return new ConstInteger(Long.parseLong(number));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return the constant, or null if the literal uses the illegal \' escaping for which the parser generates an error
+   */
+  private static QueryExpression toString(String text) {
+    String value = text.substring(1, text.length() - 1);
+    if (value.contains("\\'")) {
+      return null;
+    }
+    return new ConstString(value.replace("''", "'"));
+  }
+
+  private static boolean isKeyword(Token token, String keyword) {
+    return token != null && token.kind == TokenKind.WORD && token.is(keyword);
+  }
+
+  private static boolean isKeyword(Token token, Set<String> keywords) {
+    return token != null && token.kind == TokenKind.WORD && keywords.contains(token.text.toUpperCase());
+  }
+
+  private static boolean isOther(Token token, String s) {
+    return token != null && token.kind == TokenKind.OTHER && token.is(s);
+  }
+
+  private static Token nextSignificantToken(List<Token> tokens, int start) {
+    for (int i = start; i < tokens.size(); i++) {
+      if (tokens.get(i).kind != TokenKind.LAYOUT) {
+        return tokens.get(i);
+      }
+    }
+    return null;
+  }
+
+  private static List<Token> tokenize(String queryString) {
+    List<Token> tokens = new ArrayList<>();
+    int length = queryString.length();
+    int i = 0;
+    while (i < length) {
+      char c = queryString.charAt(i);
+      int start = i;
+      TokenKind kind;
+      if (Character.isWhitespace(c)) {
+        do {
+          i++;
+        } while (i < length && Character.isWhitespace(queryString.charAt(i)));
+        kind = TokenKind.LAYOUT;
+      } else if (queryString.startsWith("/*", i)) {
+        int end = queryString.indexOf("*/", i + 2);
+        i = end == -1 ? length : end + 2;
+        kind = TokenKind.LAYOUT;
+      } else if (queryString.startsWith("//", i)) {
+        int end = queryString.indexOf('\n', i);
+        i = end == -1 ? length : end;
+        kind = TokenKind.LAYOUT;
+      } else if (c == '\'') {
+        i = endOfQuoted(queryString, i, '\'');
+        kind = TokenKind.STRING;
+      } else if (c == '"') {
+        i = endOfQuoted(queryString, i, '"');
+        kind = TokenKind.DELIMITED_IDENTIFIER;
+      } else if (Character.isLetter(c) || c == '_') {
+        do {
+          i++;
+        } while (i < length && (Character.isLetterOrDigit(queryString.charAt(i)) || queryString.charAt(i) == '_'));
+        kind = TokenKind.WORD;
+      } else if (isDigit(c) || (c == '.' && i + 1 < length && isDigit(queryString.charAt(i + 1))
+          && !endsWithWord(tokens))) {
+        while (i < length && isDigit(queryString.charAt(i))) {
+          i++;
+        }
+        if (i < length && queryString.charAt(i) == '.') {
+          i++;
+          while (i < length && isDigit(queryString.charAt(i))) {
+            i++;
+          }
+        }
+        kind = TokenKind.NUMBER;
+      } else if (c == '?') {
+        i++;
+        kind = TokenKind.BIND_VARIABLE;
+      } else {
+        i++;
+        kind = TokenKind.OTHER;
+      }
+      tokens.add(new Token(kind, queryString.substring(start, i)));
+    }
+    return tokens;
+  }
+
+  private static boolean endsWithWord(List<Token> tokens) {
+    if (tokens.isEmpty()) {
+      return false;
+    }
+    TokenKind kind = tokens.get(tokens.size() - 1).kind;
+    return kind == TokenKind.WORD || kind == TokenKind.DELIMITED_IDENTIFIER;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * @return the index after the closing quote, taking into account escaping by doubling the quote or by a backslash
+   */
+  private static int endOfQuoted(String queryString, int start, char quote) {
+    int i = start + 1;
+    while (i < queryString.length()) {
+      char c = queryString.charAt(i);
+      if (c == '\\' && i + 1 < queryString.length()) {
+        i += 2;
+      } else if (c == quote) {
+        if (i + 1 < queryString.length() && queryString.charAt(i + 1) == quote) {
+          i += 2;
+        } else {
+          return i + 1;
+        }
+      } else {
+        i++;
+      }
+    }
+    return queryString.length();
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static oracle.pgql.lang.CommonTranslationUtil.isSome;
+import static oracle.pgql.lang.MetadataToAstUtil.UNESCAPE_LEGACY_IDENTIFIER;
+import static oracle.pgql.lang.MetadataToAstUtil.identifierToString;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.spoofax.interpreter.terms.IStrategoAppl;
+import org.spoofax.interpreter.terms.IStrategoString;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.TermType;
+import org.spoofax.terms.TermVisitor;
+
+import oracle.pgql.lang.ir.SchemaQualifiedName;
+import oracle.pgql.lang.metadata.DataTypeSynonym;
+
+/**
+ * What {@link MetadataToAstUtil#addMetadata} needs to know about a query before analysis, gathered in a single walk
+ * over the parse AST: the graphs the query refers to, the data types of its CAST expressions, the names it may refer
+ * to (see {@link SchemaPruner}) and whether it selects all properties.
+ *
+ * Hints in comments, such as {@link #ALLOW_REFERENCING_ANY_PROPERTY_FLAG}, are not part of the AST and are taken from
+ * the query string instead.
+ */
+class QueryPreAnalysis {
+
+  static final String ALLOW_REFERENCING_ANY_PROPERTY_FLAG = "/*ALLOW_REFERENCING_ANY_PROPERTY*/";
+
+  private final Set<SchemaQualifiedName> graphNames = new HashSet<>();
+
+  /**
+   * The data types of the CAST expressions in upper case, before resolving synonyms.
+   */
+  private final Set<String> castDataTypes = new HashSet<>();
+
+  /**
+   * All strings in the AST in upper case, both as they are and without quotes and escaping.
+   */
+  private final Set<String> referencedNames = new HashSet<>();
+
+  private boolean selectsAllProperties;
+
+  private final boolean allowReferencingAnyProperty;
+
+  private QueryPreAnalysis(String queryString) {
+    allowReferencingAnyProperty = queryString.contains(ALLOW_REFERENCING_ANY_PROPERTY_FLAG);
+  }
+
+  static QueryPreAnalysis analyze(IStrategoTerm ast, PgqlVersion pgqlVersion, String queryString) {
+    QueryPreAnalysis result = new QueryPreAnalysis(queryString);
+    new TermVisitor() {
+
+      @Override
+      public void preVisit(IStrategoTerm t) {
+        if (t.getType() == TermType.APPL) {
+          result.visitAppl(t, pgqlVersion);
+        } else if (t.getType() == TermType.STRING) {
+          result.visitString(((IStrategoString) t).stringValue());
+        }
+      }
+
+    }.visit(ast);
+    return result;
+  }
+
+  private void visitAppl(IStrategoTerm t, PgqlVersion pgqlVersion) {
+    String constructor = ((IStrategoAppl) t).getConstructor().getName();
+    switch (constructor) {
+      case "GraphTable":
+        if (isSome(t.getSubterm(0))) {
+          addGraphName(t.getSubterm(0).getSubterm(0), pgqlVersion);
+        }
+        break;
+      case "OnClause":
+      case "IntoClause":
+      case "Pgql11FromClause":
+        addGraphName(t.getSubterm(0), pgqlVersion);
+        break;
+      case "Cast":
+        castDataTypes.add(((IStrategoString) t.getSubterm(1)).stringValue().toUpperCase());
+        break;
+      case "AllProperties":
+        selectsAllProperties = true;
+        break;
+      case "SelectClause":
+        for (IStrategoTerm subterm : t.getAllSubterms()) {
+          if (subterm.getType() == TermType.APPL
+              && ((IStrategoAppl) subterm).getConstructor().getName().equals("Star")) {
+            selectsAllProperties = true;
+          }
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void addGraphName(IStrategoTerm nameT, PgqlVersion pgqlVersion) {
+    IStrategoTerm schemaNameT = nameT.getSubterm(0);
+    String schemaName = isSome(schemaNameT)
+        ? identifierToString(schemaNameT.getSubterm(0).getSubterm(0), pgqlVersion)
+        : null;
+    String localName = identifierToString(nameT.getSubterm(1), pgqlVersion);
+    graphNames.add(new SchemaQualifiedName(schemaName, localName));
+  }
+
+  private void visitString(String value) {
+    referencedNames.add(value.toUpperCase());
+    if (value.length() >= 2) {
+      char first = value.charAt(0);
+      if ((first == '"' || first == '\'') && value.charAt(value.length() - 1) == first) {
+        String unquoted = value.substring(1, value.length() - 1);
+        String quote = String.valueOf(first);
+        referencedNames.add(unquoted.toUpperCase());
+        referencedNames.add(unquoted.replace(quote + quote, quote).toUpperCase());
+        referencedNames.add(UNESCAPE_LEGACY_IDENTIFIER.translate(unquoted).toUpperCase());
+      }
+    }
+  }
+
+  Set<SchemaQualifiedName> getGraphNames() {
+    return graphNames;
+  }
+
+  /**
+   * @return the data types of the CAST expressions, with synonyms replaced by their proper data type names
+   */
+  Set<String> getCastDataTypes(Optional<List<DataTypeSynonym>> dataTypeSynonyms) {
+    if (!dataTypeSynonyms.isPresent() || castDataTypes.isEmpty()) {
+      return castDataTypes;
+    }
+    Set<String> result = new HashSet<>();
+    for (String dataType : castDataTypes) {
+      for (DataTypeSynonym synonym : dataTypeSynonyms.get()) {
+        if (dataType.equals(synonym.getSynonym())) {
+          dataType = synonym.getDataType();
+        }
+      }
+      result.add(dataType);
+    }
+    return result;
+  }
+
+  Set<String> getReferencedNames() {
+    return Collections.unmodifiableSet(referencedNames);
+  }
+
+  boolean selectsAllProperties() {
+    return selectsAllProperties;
+  }
+
+  boolean allowReferencingAnyProperty() {
+    return allowReferencingAnyProperty;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import oracle.pgql.lang.metadata.EdgeLabel;
+import oracle.pgql.lang.metadata.GraphSchema;
+import oracle.pgql.lang.metadata.Label;
+import oracle.pgql.lang.metadata.Property;
+import oracle.pgql.lang.metadata.VertexLabel;
+
+/**
+ * Reduces a graph schema to the labels and properties that a query may refer to, so that name and type analysis does
+ * not have to deal with the rest of a large schema.
+ *
+ * The names a query may refer to are over-approximated by all identifiers and string literals in the AST, compared
+ * case-insensitively (see {@link QueryPreAnalysis#getReferencedNames()}). A label is kept if its name is referenced or
+ * if it has a referenced property, since the properties of a variable without a label expression are looked up in all
+ * labels. Of the kept labels, only the referenced properties are kept. If no label of a kind is kept, the first one is
+ * kept without properties, so that the analysis still sees a graph with labels and reports errors for unknown labels or
+ * properties in the same way.
+ *
+ * Queries that select all properties ({@code SELECT *} or {@code n.*}) are not pruned.
+ */
+class SchemaPruner {
+
+  private final GraphSchema prunedSchema;
+
+  /**
+   * The names of the labels and properties that were kept, in upper case. Together with the original schema, it
+   * determines the pruned schema.
+   */
+  private final Set<String> keptNames;
+
+  private SchemaPruner(GraphSchema prunedSchema, Set<String> keptNames) {
+    this.prunedSchema = prunedSchema;
+    this.keptNames = keptNames;
+  }
+
+  GraphSchema getPrunedSchema() {
+    return prunedSchema;
+  }
+
+  Set<String> getKeptNames() {
+    return keptNames;
+  }
+
+  /**
+   * @return the pruned schema, or null if the query cannot be pruned
+   */
+  static SchemaPruner prune(GraphSchema graphSchema, QueryPreAnalysis preAnalysis) {
+    if (preAnalysis.selectsAllProperties()) {
+      return null;
+    }
+    Set<String> referencedNames = preAnalysis.getReferencedNames();
+    Set<String> keptNames = new TreeSet<>();
+    List<VertexLabel> vertexLabels = new ArrayList<>();
+    for (VertexLabel vertexLabel : graphSchema.getVertexLabels()) {
+      List<Property> properties = pruneLabel(vertexLabel, referencedNames, keptNames);
+      if (properties != null) {
+        vertexLabels.add(new VertexLabel(vertexLabel.getLabel(), properties));
+      }
+    }
+    if (vertexLabels.isEmpty() && !graphSchema.getVertexLabels().isEmpty()) {
+      vertexLabels.add(new VertexLabel(graphSchema.getVertexLabels().get(0).getLabel(), new ArrayList<>()));
+    }
+    List<EdgeLabel> edgeLabels = new ArrayList<>();
+    for (EdgeLabel edgeLabel : graphSchema.getEdgeLabels()) {
+      List<Property> properties = pruneLabel(edgeLabel, referencedNames, keptNames);
+      if (properties != null) {
+        edgeLabels.add(new EdgeLabel(edgeLabel.getLabel(), properties));
+      }
+    }
+    if (edgeLabels.isEmpty() && !graphSchema.getEdgeLabels().isEmpty()) {
+      edgeLabels.add(new EdgeLabel(graphSchema.getEdgeLabels().get(0).getLabel(), new ArrayList<>()));
+    }
+    return new SchemaPruner(new GraphSchema(vertexLabels, edgeLabels), keptNames);
+  }
+
+  /**
+   * @return the referenced properties of the label, or null if the label is not kept
+   */
+  private static List<Property> pruneLabel(Label label, Set<String> referencedNames, Set<String> keptNames) {
+    List<Property> properties = new ArrayList<>();
+    for (Property property : label.getProperties()) {
+      String name = property.getName().toUpperCase();
+      if (referencedNames.contains(name)) {
+        properties.add(property);
+        keptNames.add(name);
+      }
+    }
+    String labelName = label.getLabel().toUpperCase();
+    if (referencedNames.contains(labelName)) {
+      keptNames.add(labelName);
+    } else if (properties.isEmpty()) {
+      return null;
+    }
+    return properties;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a script into statements at semicolons that are not part of a string literal, quoted identifier or comment.
+ */
+class ScriptSplitter {
+
+  static List<String> split(String script) {
+    List<String> statements = new ArrayList<>();
+    int length = script.length();
+    int start = 0;
+    int i = 0;
+    while (i < length) {
+      char c = script.charAt(i);
+      if (c == '\'' || c == '"') {
+        i = endOfQuoted(script, i, c);
+      } else if (script.startsWith("/*", i)) {
+        int end = script.indexOf("*/", i + 2);
+        i = end == -1 ? length : end + 2;
+      } else if (script.startsWith("//", i)) {
+        int end = script.indexOf('\n', i);
+        i = end == -1 ? length : end;
+      } else if (c == ';') {
+        addStatement(statements, script.substring(start, i));
+        i++;
+        start = i;
+      } else {
+        i++;
+      }
+    }
+    addStatement(statements, script.substring(start));
+    return statements;
+  }
+
+  private static void addStatement(List<String> statements, String statement) {
+    String trimmed = statement.trim();
+    if (!trimmed.isEmpty()) {
+      statements.add(trimmed);
+    }
+  }
+
+  /**
+   * @return the index after the closing quote, taking into account escaping by doubling the quote or by a backslash
+   */
+  private static int endOfQuoted(String script, int start, char quote) {
+    int i = start + 1;
+    while (i < script.length()) {
+      char c = script.charAt(i);
+      if (c == '\\' && i + 1 < script.length()) {
+        i += 2;
+      } else if (c == quote) {
+        if (i + 1 < script.length() && script.charAt(i + 1) == quote) {
+          i += 2;
+        } else {
+          return i + 1;
+        }
+      } else {
+        i++;
+      }
+    }
+    return script.length();
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Extracts the PGQL Spoofax binary into a file whose name identifies the binary on the class path by its size and
+ * modification time, so that the file can be reused by later JVMs that find the same binary instead of extracting it
+ * again. Finding the file only takes the metadata of the resource and of the file, so that starting a JVM does not read
+ * the binary at all. Only if the class loader does not provide size and modification time of the resource, the binary
+ * is read and identified by its SHA-256 hash instead.
+ *
+ * Since the temporary directory is typically shared by all users, the files are kept in a directory per user that is
+ * only accessible to its owner, so that no one else can replace a file, and an existing file is only reused if it has
+ * the size of the binary. If the directory exists but is not a private directory of the current user, the binary is
+ * extracted into a new private directory instead, which is deleted when the JVM exits.
+ *
+ * Extraction writes to a temporary file in the same directory that is then atomically renamed, so that concurrently
+ * starting JVMs never see a partially written binary. Since the file is shared, it is not deleted when PGQL is closed;
+ * instead, files of other PGQL versions are removed whenever a binary is extracted.
+ */
+class SpoofaxBinaryCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SpoofaxBinaryCache.class);
+
+  private static final String CACHE_DIRECTORY_NAME = "pgql-spoofax-language-cache";
+
+  private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+  /**
+   * Temporary files of extractions are only removed once they are older than this, so that extractions by concurrently
+   * starting JVMs are not disturbed.
+   */
+  private static final long ABANDONED_TMP_FILE_AGE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  /**
+   * @param resource
+   *          the Spoofax binary on the class path
+   * @param tmpDir
+   *          the directory under which the cache directory is created, or null for the default temporary directory
+   * @param fileName
+   *          the name of the binary, to which the identity of the binary gets appended
+   * @return the file holding a copy of the binary
+   */
+  static File getSpoofaxBinaryFile(URL resource, String tmpDir, String fileName) throws IOException {
+    Path baseDir = (tmpDir == null ? FileUtils.getTempDirectory() : new File(tmpDir)).toPath();
+
+    long size;
+    String identity;
+    byte[] binary = null;
+    URLConnection connection = resource.openConnection();
+    try (InputStream in = connection.getInputStream()) {
+      size = connection.getContentLengthLong();
+      long lastModified = connection.getLastModified();
+      if (size >= 0 && lastModified > 0) {
+        identity = size + "-" + lastModified;
+      } else {
+        binary = IOUtils.toByteArray(in);
+        size = binary.length;
+        identity = sha256(binary);
+      }
+    }
+
+    Path cacheDir = getCacheDirectory(baseDir);
+    boolean isPrivate = createPrivateDirectory(cacheDir);
+    if (!isPrivate) {
+      LOG.warn(cacheDir + " is not a private directory of the current user; extracting the Spoofax binary elsewhere");
+      cacheDir = Files.createTempDirectory(baseDir, CACHE_DIRECTORY_NAME, ownerOnly(baseDir));
+      cacheDir.toFile().deleteOnExit();
+    }
+
+    Path binaryFile = cacheDir.resolve(fileName + "." + identity);
+    if (hasSize(binaryFile, size)) {
+      LOG.debug("reusing Spoofax binary file: " + binaryFile);
+      return binaryFile.toFile();
+    }
+
+    Path tmpFile = Files.createTempFile(cacheDir, fileName + ".", ".tmp");
+    try {
+      if (binary == null) {
+        try (InputStream in = resource.openStream()) {
+          Files.copy(in, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (Files.size(tmpFile) != size) {
+          throw new IOException("Spoofax binary changed while it was extracted: " + resource);
+        }
+      } else {
+        Files.write(tmpFile, binary);
+      }
+      try {
+        Files.move(tmpFile, binaryFile, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile, binaryFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      // on some file systems the file cannot be replaced while another JVM has it open
+      if (hasSize(binaryFile, size)) {
+        return binaryFile.toFile();
+      }
+      throw e;
+    } finally {
+      Files.deleteIfExists(tmpFile); // only exists if the move failed
+    }
+    LOG.debug("extracted Spoofax binary file: " + binaryFile);
+
+    if (isPrivate) {
+      pruneOtherVersions(cacheDir, fileName, binaryFile);
+    } else {
+      binaryFile.toFile().deleteOnExit();
+    }
+    return binaryFile.toFile();
+  }
+
+  /**
+   * @return the cache directory of the current user under the given directory
+   */
+  static Path getCacheDirectory(Path baseDir) {
+    return baseDir.resolve(CACHE_DIRECTORY_NAME + "-" + System.getProperty("user.name", "")
+        .replaceAll("[^A-Za-z0-9._-]", "_"));
+  }
+
+  /**
+   * Creates the directory with owner-only permissions if it does not exist yet.
+   *
+   * @return whether the directory is a private directory of the current user, i.e. not a symbolic link, owned by the
+   *         current user and not accessible to others
+   */
+  private static boolean createPrivateDirectory(Path dir) throws IOException {
+    if (!isPosix(dir)) {
+      // e.g. on Windows, where the temporary directory is private to the user already
+      Files.createDirectories(dir);
+      return Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS);
+    }
+
+    try {
+      Files.createDirectory(dir, ownerOnly(dir));
+    } catch (FileAlreadyExistsException e) {
+      // created before, by this user or by someone else
+    }
+
+    if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
+      return false;
+    }
+    UserPrincipal currentUser;
+    try {
+      currentUser = dir.getFileSystem().getUserPrincipalLookupService()
+          .lookupPrincipalByName(System.getProperty("user.name"));
+    } catch (IOException | RuntimeException e) {
+      return false;
+    }
+    Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(dir, LinkOption.NOFOLLOW_LINKS);
+    return currentUser.equals(Files.getOwner(dir, LinkOption.NOFOLLOW_LINKS)) && OWNER_ONLY.containsAll(permissions);
+  }
+
+  private static boolean isPosix(Path path) {
+    return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+  }
+
+  private static FileAttribute<?>[] ownerOnly(Path path) {
+    return isPosix(path) ? new FileAttribute<?>[] { PosixFilePermissions.asFileAttribute(OWNER_ONLY) }
+        : new FileAttribute<?>[0];
+  }
+
+  private static boolean hasSize(Path file, long size) throws IOException {
+    return Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS) && Files.size(file) == size;
+  }
+
+  private static String sha256(byte[] bytes) {
+    return Hashing.sha256().hashBytes(bytes).toString();
+  }
+
+  /**
+   * Removes the binaries of other PGQL versions, as well as abandoned temporary files of extractions. Files that cannot
+   * be removed, for example because another JVM has them open, are left for a later extraction to remove.
+   */
+  private static void pruneOtherVersions(Path cacheDir, String fileName, Path binaryFile) {
+    long now = System.currentTimeMillis();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir, fileName + ".*")) {
+      for (Path file : files) {
+        if (file.equals(binaryFile)) {
+          continue;
+        }
+        try {
+          if (!file.getFileName().toString().endsWith(".tmp")
+              || now - Files.getLastModifiedTime(file).toMillis() > ABANDONED_TMP_FILE_AGE_MILLIS) {
+            Files.deleteIfExists(file);
+            LOG.debug("removed Spoofax binary file of another version: " + file);
+          }
+        } catch (IOException e) {
+          LOG.debug("failed to remove " + file, e);
+        }
+      }
+    } catch (IOException e) {
+      LOG.debug("failed to prune " + cacheDir, e);
+    }
+  }
+}
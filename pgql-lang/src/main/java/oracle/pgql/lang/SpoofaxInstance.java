@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.vfs2.FileObject;
+import org.metaborg.core.MetaborgException;
+import org.metaborg.core.analysis.AnalysisException;
+import org.metaborg.core.config.IProjectConfig;
+import org.metaborg.core.config.ISourceConfig;
+import org.metaborg.core.context.ContextException;
+import org.metaborg.core.context.ITemporaryContext;
+import org.metaborg.core.language.ILanguageComponent;
+import org.metaborg.core.language.ILanguageImpl;
+import org.metaborg.core.language.LanguageIdentifier;
+import org.metaborg.core.language.LanguageUtils;
+import org.metaborg.core.project.IProject;
+import org.metaborg.core.project.Project;
+import org.metaborg.core.syntax.ParseException;
+import org.metaborg.spoofax.core.Spoofax;
+import org.metaborg.spoofax.core.SpoofaxModule;
+import org.metaborg.spoofax.core.syntax.JSGLRParserConfiguration;
+import org.metaborg.spoofax.core.unit.ISpoofaxAnalyzeUnit;
+import org.metaborg.spoofax.core.unit.ISpoofaxInputUnit;
+import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
+import org.metaborg.util.concurrent.IClosableLock;
+import org.spoofax.interpreter.terms.ITermFactory;
+
+/**
+ * An isolated Spoofax runtime (own injector, language registry, term factory and Stratego interpreter) with the PGQL
+ * language loaded into it.
+ *
+ * Spoofax is not thread safe, so an instance must only be used by one thread at a time. {@link Pgql} keeps a pool of
+ * these instances and hands out each instance to at most one parse at a time.
+ */
+class SpoofaxInstance {
+
+  private static final String QUERY_FILE_NAME = "query.pgql";
+
+  private final Spoofax spoofax;
+
+  private final ILanguageImpl pgqlLang;
+
+  private final FileObject dummyProjectDir;
+
+  private final IProject dummyProject;
+
+  /**
+   * Synthetic resource identity for the query that is being parsed. The query text is handed to Spoofax directly, so
+   * nothing is ever written to this file. A single name suffices since an instance parses one query at a time.
+   */
+  private final FileObject queryFile;
+
+  /**
+   * Set when the global PGQL instance gets closed while this Spoofax instance is still in use by a parse. The instance
+   * is then closed as soon as the parse returns it to the pool.
+   */
+  private boolean retired = false;
+
+  SpoofaxInstance(SpoofaxModule spoofaxModule, File spoofaxBinaryFile) throws MetaborgException {
+    // initialize a new Spoofax
+    spoofax = new Spoofax(spoofaxModule);
+    spoofax.configureAsHeadlessApplication(); // prevents the class loader from getting stuck for certain versions of
+                                              // macOS
+
+    FileObject fileObject = spoofax.resourceService.resolve(spoofaxBinaryFile.getAbsolutePath());
+
+    Iterable<ILanguageImpl> languages = spoofax.languageDiscoveryService.languagesFromArchive(fileObject);
+    Set<ILanguageComponent> components = LanguageUtils.toComponents(languages);
+    Set<ILanguageImpl> implementations = LanguageUtils.toImpls(components);
+    pgqlLang = LanguageUtils.active(implementations);
+    assert (pgqlLang != null);
+    dummyProjectDir = spoofax.resourceService.resolve("ram://pgql/");
+
+    final LanguageIdentifier id = pgqlLang.id();
+    dummyProject = new Project(dummyProjectDir, new IProjectConfig() {
+
+      @Override
+      public Collection<LanguageIdentifier> sourceDeps() {
+        Set<LanguageIdentifier> sourceDeps = new HashSet<>();
+        sourceDeps.add(id);
+        return sourceDeps;
+      }
+
+      @Override
+      public Collection<LanguageIdentifier> javaDeps() {
+        return Collections.emptySet();
+      }
+
+      @Override
+      public Collection<LanguageIdentifier> compileDeps() {
+        return Collections.emptySet();
+      }
+
+      @Override
+      public String metaborgVersion() {
+        return null;
+      }
+
+      @Override
+      public Collection<ISourceConfig> sources() {
+        return Collections.emptySet();
+      }
+    });
+
+    queryFile = spoofax.resourceService.resolve(dummyProjectDir, QUERY_FILE_NAME);
+  }
+
+  ISpoofaxParseUnit parse(String queryString) throws ParseException {
+    return spoofax.syntaxService.parse(inputUnit(queryFile, queryString));
+  }
+
+  /**
+   * @return the input of a parse of the query, with the given file as its resource identity
+   */
+  ISpoofaxInputUnit inputUnit(FileObject file, String queryString) {
+    return spoofax.unitService.inputUnit(file, queryString, pgqlLang, null);
+  }
+
+  FileObject getQueryFile() {
+    return queryFile;
+  }
+
+  /**
+   * Parses with a timeout after which the JSGLR parser gives up and returns a failed parse unit.
+   */
+  ISpoofaxParseUnit parse(String queryString, int timeoutMillis) throws ParseException {
+    JSGLRParserConfiguration config = new JSGLRParserConfiguration(true, true, false, timeoutMillis);
+    ISpoofaxInputUnit input = spoofax.unitService.inputUnit(queryFile, queryString, pgqlLang, null, config);
+    return spoofax.syntaxService.parse(input);
+  }
+
+  ITemporaryContext getTemporaryContext() throws ContextException {
+    return spoofax.contextService.getTemporary(queryFile, dummyProject, pgqlLang);
+  }
+
+  ISpoofaxAnalyzeUnit analyze(ISpoofaxParseUnit parseUnit, ITemporaryContext context) throws AnalysisException {
+    try (IClosableLock lock = context.write()) {
+      return spoofax.analysisService.analyze(parseUnit, context).result();
+    }
+  }
+
+  ITermFactory getTermFactory() {
+    return spoofax.termFactory;
+  }
+
+  boolean isRetired() {
+    return retired;
+  }
+
+  void retire() {
+    retired = true;
+  }
+
+  void close() {
+    spoofax.close();
+  }
+}
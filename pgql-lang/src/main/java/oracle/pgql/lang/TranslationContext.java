@@ -4,22 +4,40 @@
 package oracle.pgql.lang;
 
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 
+import org.spoofax.interpreter.terms.IStrategoConstructor;
+import org.spoofax.interpreter.terms.IStrategoInt;
 import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.TermType;
 
 import oracle.pgql.lang.ir.CommonPathExpression;
 import oracle.pgql.lang.ir.QueryVariable;
 
 public class TranslationContext {
 
+  /**
+   * Variables by origin offset, for origin offsets that are (start, end) tuples of integers, which is the common case.
+   */
+  private final OffsetMap varsByOffset = new OffsetMap();
+
+  /**
+   * Variables by origin offset, for other origin offsets, such as the generated ones for SELECT *.
+   */
   private final Map<IStrategoTerm, QueryVariable> vars;
 
   private final Set<String> varNames; // used variable names in the query (globally)
 
   private final Map<String, CommonPathExpression> commonPathExpressions;
 
+  /**
+   * The kinds of the constructors of the translated AST by identity, which is a handful of constructor objects of a
+   * single term factory.
+   */
+  private final Map<IStrategoConstructor, ExpressionKind> expressionKinds = new IdentityHashMap<>();
+
   public TranslationContext(Map<IStrategoTerm, QueryVariable> vars, Set<String> varNames,
       Map<String, CommonPathExpression> commonPathExpressions) {
     this.vars = vars;
@@ -32,14 +50,37 @@ public class TranslationContext {
   }
 
   public void addVar(QueryVariable var, String varName, IStrategoTerm originOffset) {
-    vars.put(originOffset, var);
+    if (isStartEndOffset(originOffset)) {
+      varsByOffset.put(toLong(originOffset), var);
+    } else {
+      vars.put(originOffset, var);
+    }
     varNames.add(varName);
   }
 
   public QueryVariable getVariable(IStrategoTerm originOffset) {
+    if (isStartEndOffset(originOffset)) {
+      QueryVariable var = varsByOffset.get(toLong(originOffset));
+      if (var != null) {
+        return var;
+      }
+    }
     return vars.get(originOffset);
   }
 
+  /**
+   * @return the kind of expression of the constructor, which is resolved by name only the first time that the
+   *         constructor object is encountered in this translation
+   */
+  ExpressionKind getExpressionKind(IStrategoConstructor constructor) {
+    ExpressionKind kind = expressionKinds.get(constructor);
+    if (kind == null) {
+      kind = ExpressionKind.of(constructor);
+      expressionKinds.put(constructor, kind);
+    }
+    return kind;
+  }
+
   public boolean isVariableNameInUse(String varName) {
     return varNames.contains(varName);
   }
@@ -47,4 +88,85 @@ public class TranslationContext {
   public Map<String, CommonPathExpression> getCommonPathExpressions() {
     return commonPathExpressions;
   }
+
+  private static boolean isStartEndOffset(IStrategoTerm originOffset) {
+    return originOffset.getType() == TermType.TUPLE && originOffset.getSubtermCount() == 2
+        && originOffset.getSubterm(0).getType() == TermType.INT && originOffset.getSubterm(1).getType() == TermType.INT;
+  }
+
+  private static long toLong(IStrategoTerm startEndOffset) {
+    int start = ((IStrategoInt) startEndOffset.getSubterm(0)).intValue();
+    int end = ((IStrategoInt) startEndOffset.getSubterm(1)).intValue();
+    return OffsetMap.key(start, end);
+  }
+
+  /**
+   * A hash map from long to variable with open addressing, which avoids boxing the offsets and computing hash codes of
+   * terms.
+   */
+  static class OffsetMap {
+
+    private static final int INITIAL_CAPACITY = 16; // a power of two
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+
+    /**
+     * Null for free slots.
+     */
+    private QueryVariable[] values = new QueryVariable[INITIAL_CAPACITY];
+
+    private int size;
+
+    QueryVariable get(long key) {
+      int mask = keys.length - 1;
+      for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+        if (keys[i] == key) {
+          return values[i];
+        }
+      }
+      return null;
+    }
+
+    void put(long key, QueryVariable value) {
+      if (value == null) {
+        return; // not distinguishable from a missing variable anyway
+      }
+      int mask = keys.length - 1;
+      int i = hash(key) & mask;
+      while (values[i] != null) {
+        if (keys[i] == key) {
+          values[i] = value;
+          return;
+        }
+        i = (i + 1) & mask;
+      }
+      keys[i] = key;
+      values[i] = value;
+      if (++size * 2 > keys.length) { // keep the load factor below 0.5
+        grow();
+      }
+    }
+
+    private void grow() {
+      long[] oldKeys = keys;
+      QueryVariable[] oldValues = values;
+      keys = new long[oldKeys.length * 2];
+      values = new QueryVariable[oldValues.length * 2];
+      size = 0;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldValues[i] != null) {
+          put(oldKeys[i], oldValues[i]);
+        }
+      }
+    }
+
+    static long key(int start, int end) {
+      return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+
+    static int hash(long key) {
+      long h = key * 0x9E3779B97F4A7C15L; // spreads consecutive offsets over the table
+      return (int) (h ^ (h >>> 32));
+    }
+  }
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+/**
+ * How far {@link Pgql#parse(String, oracle.pgql.lang.metadata.AbstractMetadataProvider, ValidationLevel)} processes a
+ * query. Lower levels are cheaper but detect fewer errors and produce less of the {@link PgqlResult}, so a query that
+ * is valid at a lower level is not necessarily valid at a higher level.
+ */
+public enum ValidationLevel {
+
+  /**
+   * Only parse the query, which detects syntax errors. The result holds no statement.
+   */
+  SYNTAX,
+
+  /**
+   * Parse and analyze the query, which also detects semantic errors such as undefined variables or, given a metadata
+   * provider, unknown labels and properties. The result holds no statement.
+   *
+   * Errors that are only detected during translation, which the translator reports as a {@link PgqlException}, are not
+   * detected at this level. A query that is valid at this level may therefore still be invalid when it is parsed with
+   * {@link #FULL}.
+   */
+  SEMANTIC,
+
+  /**
+   * Parse, analyze and translate the query into a {@link oracle.pgql.lang.ir.PgqlStatement}.
+   */
+  FULL
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static oracle.pgql.lang.MetadataToAstUtil.removeMetadata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.metaborg.core.context.ITemporaryContext;
+import org.metaborg.spoofax.core.unit.ISpoofaxAnalyzeUnit;
+import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+
+/**
+ * Gives benchmarks outside of this package access to the analyzed ASTs of queries, i.e. the input of
+ * {@link SpoofaxAstToGraphQuery#translate(IStrategoTerm)}, which the public API does not expose.
+ */
+public class AnalyzedAsts {
+
+  /**
+   * Parses and analyzes the queries without metadata, on a Spoofax runtime that is created for the purpose.
+   *
+   * @return the analyzed AST of each query, in the same order
+   */
+  public static List<IStrategoTerm> analyze(List<String> queries) throws Exception {
+    SpoofaxInstance spoofaxInstance = createSpoofaxInstance();
+    try {
+      List<IStrategoTerm> asts = new ArrayList<>(queries.size());
+      for (String query : queries) {
+        ISpoofaxParseUnit parseUnit = spoofaxInstance.parse(query);
+        try (ITemporaryContext context = spoofaxInstance.getTemporaryContext()) {
+          ISpoofaxAnalyzeUnit analyzeUnit = spoofaxInstance.analyze(parseUnit, context);
+          if (!analyzeUnit.success()) {
+            throw new PgqlException("Query is not valid: " + query);
+          }
+          asts.add(removeMetadata(analyzeUnit));
+        }
+      }
+      return asts;
+    } finally {
+      spoofaxInstance.close();
+    }
+  }
+
+  /**
+   * @return a Spoofax runtime of its own, which the caller should close
+   */
+  static SpoofaxInstance createSpoofaxInstance() throws Exception {
+    return new SpoofaxInstance(new PgqlConfig(), SpoofaxBinaryFiles.getSpoofaxBinaryFile());
+  }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import oracle.pgql.lang.ir.SchemaQualifiedName;
+import oracle.pgql.lang.metadata.CachingMetadataProvider;
+import oracle.pgql.lang.metadata.FunctionSignature;
+import oracle.pgql.lang.metadata.GraphSchema;
+
+public class CachingMetadataProviderTest extends AbstractPgqlTest {
+
+  @Test
+  public void testCaching() throws Exception {
+    CountingMetadataProvider metadataProvider = new CountingMetadataProvider();
+    CachingMetadataProvider cachingProvider = new CachingMetadataProvider(metadataProvider, 1, TimeUnit.HOURS, 10);
+
+    GraphSchema graphSchema = cachingProvider.getGraphSchema().get();
+    assertSame(graphSchema, cachingProvider.getGraphSchema().get());
+    SchemaQualifiedName graphName = new SchemaQualifiedName(null, "financialNetwork");
+    assertNotSame(graphSchema, cachingProvider.getGraphSchema(graphName).get());
+    assertSame(cachingProvider.getGraphSchema(graphName).get(), cachingProvider.getGraphSchema(graphName).get());
+    assertEquals(2, metadataProvider.graphSchemaCalls.get());
+
+    cachingProvider.getFunctionSignatures();
+    cachingProvider.getFunctionSignatures();
+    assertEquals(1, metadataProvider.functionSignatureCalls.get());
+    assertEquals(3, cachingProvider.size());
+
+    PgqlResult result = pgql.parse("SELECT n.firstName FROM MATCH (n:Person)", cachingProvider);
+    assertTrue(result.getErrorMessages(), result.isQueryValid());
+    result = pgql.parse("SELECT n.firstName FROM MATCH (n:NotExists)", cachingProvider);
+    assertTrue(result.getErrorMessages(), result.getErrorMessages().contains("Vertex label does not exist"));
+    assertEquals(2, metadataProvider.graphSchemaCalls.get());
+  }
+
+  @Test
+  public void testTimeToLive() throws Exception {
+    CountingMetadataProvider metadataProvider = new CountingMetadataProvider();
+    CachingMetadataProvider cachingProvider = new CachingMetadataProvider(metadataProvider, 0, TimeUnit.SECONDS, 10);
+
+    cachingProvider.getGraphSchema();
+    cachingProvider.getGraphSchema();
+    assertEquals(2, metadataProvider.graphSchemaCalls.get());
+  }
+
+  @Test
+  public void testMaximumSize() throws Exception {
+    CountingMetadataProvider metadataProvider = new CountingMetadataProvider();
+    CachingMetadataProvider cachingProvider = new CachingMetadataProvider(metadataProvider, 1, TimeUnit.HOURS, 2);
+
+    for (int i = 0; i < 5; i++) {
+      cachingProvider.getGraphSchema(new SchemaQualifiedName(null, "g" + i));
+    }
+    assertEquals(2, cachingProvider.size());
+    cachingProvider.getGraphSchema(new SchemaQualifiedName(null, "g4"));
+    assertEquals(5, metadataProvider.graphSchemaCalls.get());
+    cachingProvider.getGraphSchema(new SchemaQualifiedName(null, "g0"));
+    assertEquals(6, metadataProvider.graphSchemaCalls.get());
+  }
+
+  @Test
+  public void testSingleFlight() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountingMetadataProvider metadataProvider = new CountingMetadataProvider() {
+
+      @Override
+      public Optional<List<FunctionSignature>> getFunctionSignatures() {
+        loading.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+        return super.getFunctionSignatures();
+      }
+    };
+    CachingMetadataProvider cachingProvider = new CachingMetadataProvider(metadataProvider, 1, TimeUnit.HOURS, 10);
+
+    int numThreads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      List<Future<Optional<List<FunctionSignature>>>> futures = new ArrayList<>();
+      for (int i = 0; i < numThreads; i++) {
+        futures.add(executor.submit(cachingProvider::getFunctionSignatures));
+      }
+      loading.await();
+      Thread.sleep(100); // give the other threads time to ask for the function signatures as well
+      release.countDown();
+      Optional<List<FunctionSignature>> functionSignatures = futures.get(0).get();
+      for (Future<Optional<List<FunctionSignature>>> future : futures) {
+        assertSame(functionSignatures, future.get());
+      }
+      assertEquals(1, metadataProvider.functionSignatureCalls.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testLoadingMetadataIsNotEvicted() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountingMetadataProvider metadataProvider = new CountingMetadataProvider() {
+
+      @Override
+      public Optional<List<FunctionSignature>> getFunctionSignatures() {
+        loading.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+        return super.getFunctionSignatures();
+      }
+    };
+    CachingMetadataProvider cachingProvider = new CachingMetadataProvider(metadataProvider, 1, TimeUnit.HOURS, 1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Optional<List<FunctionSignature>>> first = executor.submit(cachingProvider::getFunctionSignatures);
+      loading.await();
+      cachingProvider.getGraphSchema(); // exceeds the maximum size while the function signatures are loading
+      assertEquals(2, cachingProvider.size());
+      Future<Optional<List<FunctionSignature>>> second = executor.submit(cachingProvider::getFunctionSignatures);
+      Thread.sleep(100); // give the second thread time to ask for the function signatures as well
+      release.countDown();
+      assertSame(first.get(), second.get());
+      assertEquals(1, metadataProvider.functionSignatureCalls.get());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    cachingProvider.getGraphSchema(new SchemaQualifiedName(null, "financialNetwork"));
+    assertEquals(1, cachingProvider.size());
+  }
+
+  @Test
+  public void testFailuresAreNotCached() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    CountingMetadataProvider metadataProvider = new CountingMetadataProvider() {
+
+      @Override
+      public Optional<GraphSchema> getGraphSchema() {
+        if (calls.incrementAndGet() == 1) {
+          throw new IllegalStateException("catalog unavailable");
+        }
+        return super.getGraphSchema();
+      }
+    };
+    CachingMetadataProvider cachingProvider = new CachingMetadataProvider(metadataProvider, 1, TimeUnit.HOURS, 10);
+
+    thrown.expect(IllegalStateException.class);
+    try {
+      cachingProvider.getGraphSchema();
+    } finally {
+      assertTrue(cachingProvider.getGraphSchema().isPresent());
+      assertEquals(2, calls.get());
+    }
+  }
+
+  @Test
+  public void testMetadataChangeNotification() throws Exception {
+    CountingMetadataProvider metadataProvider = new CountingMetadataProvider();
+    CachingMetadataProvider cachingProvider = new CachingMetadataProvider(metadataProvider, 1, TimeUnit.HOURS, 10);
+    AtomicInteger notifications = new AtomicInteger();
+    cachingProvider.addMetadataChangeListener((provider, graphName) -> {
+      assertSame(cachingProvider, provider);
+      notifications.incrementAndGet();
+    });
+
+    SchemaQualifiedName graphName = new SchemaQualifiedName(null, "financialNetwork");
+    cachingProvider.getGraphSchema();
+    cachingProvider.getGraphSchema(graphName);
+    metadataProvider.changed(graphName);
+    assertEquals(1, notifications.get());
+    cachingProvider.getGraphSchema();
+    cachingProvider.getGraphSchema(graphName);
+    assertEquals(3, metadataProvider.graphSchemaCalls.get());
+
+    metadataProvider.changed(null);
+    assertEquals(2, notifications.get());
+    assertEquals(0, cachingProvider.size());
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    CountingMetadataProvider metadataProvider = new CountingMetadataProvider();
+    CachingMetadataProvider cachingProvider = new CachingMetadataProvider(metadataProvider, 1, TimeUnit.HOURS, 10);
+    AtomicInteger notifications = new AtomicInteger();
+    cachingProvider.addMetadataChangeListener((provider, graphName) -> notifications.incrementAndGet());
+
+    cachingProvider.getGraphSchema();
+    cachingProvider.close();
+    metadataProvider.changed(null);
+    assertEquals(0, notifications.get());
+    assertEquals(1, cachingProvider.size());
+  }
+
+  private static class CountingMetadataProvider extends ExampleMetadataProvider {
+
+    private final AtomicInteger graphSchemaCalls = new AtomicInteger();
+
+    private final AtomicInteger functionSignatureCalls = new AtomicInteger();
+
+    void changed(SchemaQualifiedName graphName) {
+      fireMetadataChanged(graphName);
+    }
+
+    @Override
+    public Optional<GraphSchema> getGraphSchema() {
+      graphSchemaCalls.incrementAndGet();
+      return super.getGraphSchema();
+    }
+
+    @Override
+    public Optional<GraphSchema> getGraphSchema(SchemaQualifiedName graphName) {
+      graphSchemaCalls.incrementAndGet();
+      return super.getGraphSchema(graphName);
+    }
+
+    @Override
+    public Optional<List<FunctionSignature>> getFunctionSignatures() {
+      functionSignatureCalls.incrementAndGet();
+      return super.getFunctionSignatures();
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.List;
+
+import org.spoofax.interpreter.terms.IStrategoAppl;
+import org.spoofax.interpreter.terms.IStrategoConstructor;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.TermType;
+
+/**
+ * Gives benchmarks outside of this package access to the dispatch on the constructors of expressions in
+ * {@link CommonTranslationUtil#translateExp}, both through the identity table of a {@link TranslationContext} and
+ * through a switch on the constructor name, which is how the translation dispatched before.
+ */
+public class ExpressionDispatch {
+
+  /**
+   * Dispatches on the constructor of every application in the ASTs through the identity table of a translation
+   * context per AST.
+   *
+   * @return the sum of the ordinals of the kinds, so that the dispatch cannot be optimized away
+   */
+  public static long dispatchByIdentity(List<IStrategoTerm> asts) {
+    long sum = 0;
+    for (IStrategoTerm ast : asts) {
+      sum += dispatchByIdentity(ast, new TranslationContext());
+    }
+    return sum;
+  }
+
+  private static long dispatchByIdentity(IStrategoTerm t, TranslationContext ctx) {
+    long sum = t.getType() == TermType.APPL
+        ? ctx.getExpressionKind(((IStrategoAppl) t).getConstructor()).ordinal()
+        : 0;
+    for (IStrategoTerm subterm : t.getAllSubterms()) {
+      sum += dispatchByIdentity(subterm, ctx);
+    }
+    return sum;
+  }
+
+  /**
+   * Dispatches on the constructor of every application in the ASTs through a switch on the constructor name.
+   *
+   * @return the sum of the ordinals of the kinds, so that the dispatch cannot be optimized away
+   */
+  public static long dispatchByName(List<IStrategoTerm> asts) {
+    long sum = 0;
+    for (IStrategoTerm ast : asts) {
+      sum += dispatchByName(ast);
+    }
+    return sum;
+  }
+
+  private static long dispatchByName(IStrategoTerm t) {
+    long sum = t.getType() == TermType.APPL ? kindByName(((IStrategoAppl) t).getConstructor()).ordinal() : 0;
+    for (IStrategoTerm subterm : t.getAllSubterms()) {
+      sum += dispatchByName(subterm);
+    }
+    return sum;
+  }
+
+  private static ExpressionKind kindByName(IStrategoConstructor constructor) {
+    switch (constructor.getName()) {
+      case "ExpressionPlusType":
+        return ExpressionKind.EXPRESSION_PLUS_TYPE;
+      case "Sub":
+        return ExpressionKind.SUB;
+      case "Add":
+        return ExpressionKind.ADD;
+      case "Mul":
+        return ExpressionKind.MUL;
+      case "Div":
+        return ExpressionKind.DIV;
+      case "Mod":
+        return ExpressionKind.MOD;
+      case "UMin":
+        return ExpressionKind.UMIN;
+      case "And":
+        return ExpressionKind.AND;
+      case "Or":
+        return ExpressionKind.OR;
+      case "Not":
+        return ExpressionKind.NOT;
+      case "Eq":
+        return ExpressionKind.EQ;
+      case "Neq":
+        return ExpressionKind.NEQ;
+      case "Gt":
+        return ExpressionKind.GT;
+      case "Gte":
+        return ExpressionKind.GTE;
+      case "Lt":
+        return ExpressionKind.LT;
+      case "Lte":
+        return ExpressionKind.LTE;
+      case "Cct":
+        return ExpressionKind.CCT;
+      case "Integer":
+        return ExpressionKind.INTEGER;
+      case "Decimal":
+        return ExpressionKind.DECIMAL;
+      case "String":
+      case "Identifier":
+        return ExpressionKind.STRING;
+      case "True":
+        return ExpressionKind.TRUE;
+      case "False":
+        return ExpressionKind.FALSE;
+      case "Date":
+        return ExpressionKind.DATE;
+      case "Time":
+        return ExpressionKind.TIME;
+      case "Timestamp":
+        return ExpressionKind.TIMESTAMP;
+      case "Interval":
+        return ExpressionKind.INTERVAL;
+      case "VarRef":
+        return ExpressionKind.VAR_REF;
+      case "BindVariable":
+        return ExpressionKind.BIND_VARIABLE;
+      case "PropRef":
+        return ExpressionKind.PROP_REF;
+      case "Cast":
+        return ExpressionKind.CAST;
+      case "CharacterSubstring":
+        return ExpressionKind.CHARACTER_SUBSTRING;
+      case "BetweenPredicate":
+        return ExpressionKind.BETWEEN_PREDICATE;
+      case "SourceDestinationPredicate":
+        return ExpressionKind.SOURCE_DESTINATION_PREDICATE;
+      case "Exists":
+        return ExpressionKind.EXISTS;
+      case "ScalarSubquery":
+        return ExpressionKind.SCALAR_SUBQUERY;
+      case "CallStatement":
+      case "FunctionCall":
+        return ExpressionKind.FUNCTION_CALL;
+      case "ExtractExp":
+        return ExpressionKind.EXTRACT_EXP;
+      case "InPredicate":
+        return ExpressionKind.IN_PREDICATE;
+      case "IsNull":
+        return ExpressionKind.IS_NULL;
+      case "IfElse":
+        return ExpressionKind.IF_ELSE;
+      case "SimpleCase":
+        return ExpressionKind.SIMPLE_CASE;
+      case "Null":
+      case "IllegalNull":
+        return ExpressionKind.NULL;
+      case "Array":
+        return ExpressionKind.ARRAY;
+      case "COUNT":
+        return ExpressionKind.COUNT;
+      case "MIN":
+        return ExpressionKind.MIN;
+      case "MAX":
+        return ExpressionKind.MAX;
+      case "SUM":
+        return ExpressionKind.SUM;
+      case "AVG":
+        return ExpressionKind.AVG;
+      case "ARRAY-AGG":
+        return ExpressionKind.ARRAY_AGG;
+      case "LISTAGG":
+        return ExpressionKind.LISTAGG;
+      case "JSON-ARRAYAGG":
+        return ExpressionKind.JSON_ARRAYAGG;
+      case "Star":
+        return ExpressionKind.STAR;
+      default:
+        return ExpressionKind.UNSUPPORTED;
+    }
+  }
+}
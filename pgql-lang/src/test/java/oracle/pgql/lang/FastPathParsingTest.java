@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import oracle.pgql.lang.RandomQueryGenerator.Feature;
+import oracle.pgql.lang.ir.ExpAsVar;
+import oracle.pgql.lang.ir.GraphQuery;
+import oracle.pgql.lang.ir.OrderByElem;
+import oracle.pgql.lang.ir.QueryExpression.VarRef;
+import oracle.pgql.lang.ir.QueryVariable;
+import oracle.pgql.lang.ir.SelectQuery;
+
+/**
+ * Differential tests that check that the fast path (see {@link FastPathParser}) translates queries into the same
+ * {@link SelectQuery} as Spoofax, and that it leaves the queries it does not recognize to Spoofax.
+ */
+public class FastPathParsingTest extends AbstractPgqlTest {
+
+  private static final long GENERATOR_SEED = 42;
+
+  private static final List<String> RECOGNIZED_QUERIES = Arrays.asList( //
+      "SELECT n.name FROM MATCH (n)", //
+      "SELECT n FROM MATCH (n:Person)", //
+      "select distinct n.firstName, m.firstName AS friend from match (n:Person) -[e:knows]-> (m:Person)", //
+      "SELECT n.name, e.since AS since FROM MATCH (n) <-[e:Knows]- (m) WHERE m.age > 30", //
+      "SELECT n.name FROM MATCH (n) -[e]- (m) -[f]-> (o:Person) WHERE n.age >= 18 AND o.name = 'O''Hara'", //
+      "SELECT n.age * 2 + 1 AS x FROM MATCH (n) WHERE NOT (n.age < 10 OR n.age <> 20) AND n.flag = TRUE", //
+      "SELECT n.age FROM MATCH (n) WHERE n.age != 1.5 ORDER BY n.age DESC LIMIT 10 OFFSET 5", //
+      "SELECT n.name AS name, n.age % 3 AS y FROM MATCH (n) ORDER BY y, n.age / 2 ASC OFFSET 3 LIMIT 2", //
+      "SELECT n.age + 1 AS x FROM MATCH (n) ORDER BY (n.age + 1) * 2", //
+      "SELECT n, n.name FROM MATCH (n) -[e]-> (m) ORDER BY name, m.age - 1");
+
+  private static final List<String> UNRECOGNIZED_QUERIES = Arrays.asList( //
+      "", //
+      "SELECT n.name FROM MATCH (n) -> (m)", // anonymous edge
+      "SELECT n.name FROM MATCH (n), MATCH (m)", //
+      "SELECT n.name FROM MATCH (n) ON myGraph", //
+      "SELECT n.name FROM MATCH (n) -[e]-> (n)", // repeated vertex
+      "SELECT n.name FROM MATCH (n) GROUP BY n.name", //
+      "SELECT COUNT(*) FROM MATCH (n)", //
+      "SELECT n.* FROM MATCH (n)", //
+      "SELECT n.age + 1 FROM MATCH (n)", // column named after the text of the expression
+      "SELECT n.age AS x FROM MATCH (n) WHERE x > 3", // reference to SELECT alias in WHERE
+      "SELECT n.name, m.name FROM MATCH (n) -[e]-> (m)", // duplicate column
+      "SELECT n.name FROM MATCH (n) WHERE n.name = 'a' OR", // syntax error
+      "SELECT n.name FROM MATCH (n) WHERE m.name = 'a'", // unresolved variable
+      "SELECT n.name FROM MATCH (n) WHERE 1 = 'a'", // type error
+      "SELECT n.name FROM MATCH (n) WHERE n.age = -1", //
+      "SELECT n.name FROM MATCH (n) WHERE n.name = ?", //
+      "SELECT n.name FROM MATCH (n) ORDER BY n", // cannot order by vertex
+      "SELECT n, n.name FROM MATCH (n) ORDER BY n.age", //
+      "SELECT DISTINCT n.name FROM MATCH (n) ORDER BY n.age", //
+      "SELECT n.name FROM MATCH (n) ORDER BY n.age, n.age", //
+      "SELECT n.name FROM MATCH (\"n\")", //
+      "SELECT n.name FROM MATCH (n) /* comment */", //
+      "SELECT n.name FROM MATCH (n) WHERE n.name = 'a\\'b'", //
+      "SELECT n.name FROM MATCH (n) LIMIT 99999999999999999999", //
+      "SELECT n.name FROM MATCH (n) WHERE n.age = 1ORDER BY n.name", // integer runs into keyword
+      "SELECT n.name FROM MATCH (n) WHERE n.age = 1.5AND n.age > 1", //
+      "SELECT n.age * 2 AS x FROM MATCH (n) ORDER BY x LIMIT 1OFFSET 2");
+
+  @Test
+  public void testRecognizedQueriesTranslateLikeSpoofax() throws Exception {
+    for (String query : RECOGNIZED_QUERIES) {
+      SelectQuery fastPathQuery = FastPathParser.parse(query);
+      assertNotNull(query, fastPathQuery);
+      PgqlResult result = pgql.parse(query);
+      assertTrue(query + "\n" + result.getErrorMessages(), result.isQueryValid());
+      assertSameTranslation(query, result.getGraphQuery(), fastPathQuery);
+    }
+  }
+
+  /**
+   * Translates randomly generated queries (see {@link RandomQueryGenerator}) with both the fast path and Spoofax, for
+   * all queries that the fast path recognizes.
+   */
+  @Test
+  public void testGeneratedQueriesTranslateLikeSpoofax() throws Exception {
+    List<Set<Feature>> featureMixes = Arrays.asList(EnumSet.noneOf(Feature.class),
+        EnumSet.of(Feature.LABELS, Feature.WHERE, Feature.PREDICATES, Feature.ORDER_BY, Feature.LIMIT_OFFSET));
+    for (Set<Feature> features : featureMixes) {
+      int numRecognizedQueries = 0;
+      for (int size : new int[] { 1, 2, 4 }) {
+        for (String query : new RandomQueryGenerator(GENERATOR_SEED, size, features).generate(500)) {
+          SelectQuery fastPathQuery = FastPathParser.parse(query);
+          if (fastPathQuery == null) {
+            continue;
+          }
+          numRecognizedQueries++;
+          PgqlResult result = pgql.parse(query);
+          assertTrue(query + "\n" + result.getErrorMessages(), result.isQueryValid());
+          assertSameTranslation(query, result.getGraphQuery(), fastPathQuery);
+        }
+      }
+      assertTrue(features.toString(), numRecognizedQueries > 0);
+    }
+  }
+
+  @Test
+  public void testOtherQueriesAreNotRecognized() throws Exception {
+    for (String query : UNRECOGNIZED_QUERIES) {
+      assertNull(query, FastPathParser.parse(query));
+    }
+  }
+
+  @Test
+  public void testFastPathParsing() throws Exception {
+    assertFalse(pgql.isFastPathParsing());
+    List<PgqlResult> spoofaxResults = new ArrayList<>();
+    for (String query : RECOGNIZED_QUERIES) {
+      spoofaxResults.add(pgql.parse(query));
+    }
+    for (String query : UNRECOGNIZED_QUERIES) {
+      spoofaxResults.add(pgql.parse(query));
+    }
+
+    pgql.setFastPathParsing(true);
+    try {
+      for (int i = 0; i < RECOGNIZED_QUERIES.size(); i++) {
+        String query = RECOGNIZED_QUERIES.get(i);
+        PgqlResult result = pgql.parse(query);
+        assertTrue(result.isQueryValid());
+        assertNull(result.getSpoofaxParseUnit());
+        assertEquals(PgqlVersion.V_1_3_OR_UP, result.getPgqlVersion());
+        assertEquals(spoofaxResults.get(i).getBindVariableCount(), result.getBindVariableCount());
+        assertEquals(spoofaxResults.get(i).querySelectsAllProperties(), result.querySelectsAllProperties());
+        assertSameTranslation(query, spoofaxResults.get(i).getGraphQuery(), result.getGraphQuery());
+
+        // metadata providers are not supported by the fast path
+        assertNotNull(pgql.parse(query, new ExampleMetadataProvider()).getSpoofaxParseUnit());
+      }
+      for (int i = 0; i < UNRECOGNIZED_QUERIES.size(); i++) {
+        PgqlResult expected = spoofaxResults.get(RECOGNIZED_QUERIES.size() + i);
+        PgqlResult result = pgql.parse(UNRECOGNIZED_QUERIES.get(i));
+        assertEquals(expected.isQueryValid(), result.isQueryValid());
+        assertEquals(expected.getErrorMessages(), result.getErrorMessages());
+        assertEquals(String.valueOf(expected.getGraphQuery()), String.valueOf(result.getGraphQuery()));
+      }
+    } finally {
+      pgql.setFastPathParsing(false);
+    }
+  }
+
+  /**
+   * Besides comparing the queries, also compares the unique names of the variables, which are not part of equality.
+   */
+  private static void assertSameTranslation(String query, GraphQuery expected, GraphQuery actual) {
+    assertEquals(query, expected.toString(), actual.toString());
+    assertEquals(query, expected, actual);
+    assertEquals(query, getVariableDescriptions(expected), getVariableDescriptions(actual));
+  }
+
+  private static List<String> getVariableDescriptions(GraphQuery query) {
+    List<String> descriptions = new ArrayList<>();
+    for (QueryVariable vertex : query.getGraphPattern().getVertices()) {
+      descriptions.add(describe(vertex));
+    }
+    for (QueryVariable connection : query.getGraphPattern().getConnections()) {
+      descriptions.add(describe(connection));
+    }
+    for (ExpAsVar expAsVar : query.getProjection().getElements()) {
+      descriptions.add(describe(expAsVar) + " " + expAsVar.getNameOriginText());
+    }
+    for (OrderByElem orderByElem : query.getOrderBy().getElements()) {
+      if (orderByElem.getExp() instanceof VarRef) {
+        descriptions.add("ORDER BY " + describe(((VarRef) orderByElem.getExp()).getVariable()));
+      }
+    }
+    Collections.sort(descriptions);
+    return descriptions;
+  }
+
+  private static String describe(QueryVariable variable) {
+    return variable.getVariableType() + " " + variable.getName() + " " + variable.getUniqueName() + " "
+        + variable.isAnonymous();
+  }
+}
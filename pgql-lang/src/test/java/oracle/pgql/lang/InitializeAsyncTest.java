@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class InitializeAsyncTest {
+
+  @Test
+  public void testInitializeAsync() throws Exception {
+    CompletableFuture<Pgql> future = Pgql.initializeAsync();
+    try (Pgql pgql = future.get(5, TimeUnit.MINUTES)) {
+      assertTrue(pgql.parse("SELECT n.name FROM MATCH (n)").isQueryValid());
+    }
+  }
+
+  @Test
+  public void testInvalidWarmUpQueries() throws Exception {
+    CompletableFuture<Pgql> future = Pgql.initializeAsync(Arrays.asList("SELECT x FROM MATCH (n)", "not a query"));
+    try (Pgql pgql = future.get(5, TimeUnit.MINUTES)) {
+      assertTrue(pgql.parse("SELECT n.name FROM MATCH (n)").isQueryValid());
+    }
+  }
+}
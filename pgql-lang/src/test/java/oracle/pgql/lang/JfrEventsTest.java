@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JfrEventsTest extends AbstractPgqlTest {
+
+  @Test
+  public void testParseEmitsEvents() throws Exception {
+    String query = "SELECT n.name FROM MATCH (n)";
+    List<RecordedEvent> events;
+    Path file = Files.createTempFile("pgql", ".jfr");
+    try (Recording recording = new Recording()) {
+      for (String name : new String[] { "pgql.LockWait", "pgql.Parse", "pgql.MetadataInjection", "pgql.Analyze",
+          "pgql.Translate" }) {
+        recording.enable(name);
+      }
+      recording.start();
+      pgql.parse(query);
+      recording.stop();
+      recording.dump(file);
+      events = RecordingFile.readAllEvents(file);
+    } finally {
+      Files.delete(file);
+    }
+
+    Set<String> names = new HashSet<>();
+    for (RecordedEvent event : events) {
+      if (event.getEventType().getName().startsWith("pgql.")) {
+        names.add(event.getEventType().getName());
+        assertEquals(query.hashCode(), event.getInt("queryHash"));
+        assertEquals(query.length(), event.getInt("queryLength"));
+        assertEquals("SELECT", event.getString("statementType"));
+      }
+    }
+    assertTrue(names.toString(), names.contains("pgql.Parse"));
+    assertTrue(names.toString(), names.contains("pgql.Analyze"));
+    assertTrue(names.toString(), names.contains("pgql.Translate"));
+  }
+}
@@ -4,16 +4,26 @@
 package oracle.pgql.lang;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
 import oracle.pgql.lang.ir.ExpAsVar;
 import oracle.pgql.lang.ir.GraphQuery;
+import oracle.pgql.lang.ir.QueryVariable;
+import oracle.pgql.lang.ir.SchemaQualifiedName;
 import oracle.pgql.lang.ir.SelectQuery;
 import oracle.pgql.lang.ir.TableExpressionType;
+import oracle.pgql.lang.metadata.BinaryOperation;
+import oracle.pgql.lang.metadata.GraphSchema;
+import oracle.pgql.lang.metadata.TypeRules;
+import oracle.pgql.lang.metadata.UnaryOperation;
 
 public class MetadataTest extends AbstractPgqlTest {
 
@@ -93,6 +103,260 @@ public class MetadataTest extends AbstractPgqlTest {
     assertTrue(result.getErrorMessages().contains("Property does not exist for any of the labels"));
   }
 
+  @Test
+  public void testMetadataReusedUntilSchemaChanges() throws Exception {
+    GraphSchema exampleSchema = new ExampleMetadataProvider().getGraphSchema().get();
+    GraphSchema otherSchema = new ExampleMetadataProvider().getGraphSchema(new SchemaQualifiedName(null, "graph3"))
+        .get();
+    GraphSchema[] currentSchema = { exampleSchema };
+    ExampleMetadataProvider metadataProvider = new ExampleMetadataProvider() {
+
+      @Override
+      public Optional<GraphSchema> getGraphSchema() {
+        return Optional.of(currentSchema[0]);
+      }
+    };
+
+    String query = "SELECT n.firstName FROM MATCH (n:Person)";
+    assertTrue(pgql.parse(query, metadataProvider).isQueryValid());
+    assertTrue(pgql.parse("/*ALLOW_REFERENCING_ANY_PROPERTY*/ " + query, metadataProvider).isQueryValid());
+    assertTrue(pgql.parse(query, metadataProvider).isQueryValid());
+    assertFalse(pgql.parse("SELECT n.firstName FROM MATCH (n:University)", metadataProvider).isQueryValid());
+
+    currentSchema[0] = otherSchema;
+    PgqlResult result = pgql.parse(query, metadataProvider);
+    assertTrue(result.getErrorMessages(), result.getErrorMessages().contains("Vertex label does not exist"));
+  }
+
+  @Test
+  public void testGraphSchemaLookup() throws Exception {
+    GraphSchema graphSchema = new ExampleMetadataProvider().getGraphSchema().get();
+    assertEquals("Person", graphSchema.getVertexLabel("Person").get().getLabel());
+    assertEquals("Person", graphSchema.getVertexLabel("PERSON").get().getLabel());
+    assertFalse(graphSchema.getVertexLabel("person").isPresent());
+    assertFalse(graphSchema.getVertexLabel("knows").isPresent());
+    assertEquals("studyAt", graphSchema.getEdgeLabel("STUDYAT").get().getLabel());
+    assertEquals(Arrays.asList("firstName", "dob", "numericProp", "typeConflictProp", "name"),
+        graphSchema.getVertexPropertyNames());
+    assertEquals(Arrays.asList("since", "prop", "typeConflictProp", "PROP", "Typeconflictprop"),
+        graphSchema.getEdgePropertyNames());
+  }
+
+  @Test
+  public void testGetAllProperties() throws Exception {
+    PgqlResult result = pgql.parse("SELECT * FROM MATCH (n:Person) -[e:knows]-> (m)",
+        new ExampleMetadataProvider());
+    assertTrue(result.getErrorMessages(), result.isQueryValid());
+    for (QueryVariable variable : result.getGraphQuery().getGraphPattern().getVertices()) {
+      List<String> expected = variable.getName().equals("N")
+          ? Arrays.asList("firstName", "dob", "numericProp", "typeConflictProp")
+          : Arrays.asList("firstName", "dob", "numericProp", "typeConflictProp", "name");
+      assertEquals(expected, result.getAllProperties(variable));
+    }
+    for (QueryVariable variable : result.getGraphQuery().getGraphPattern().getConnections()) {
+      assertEquals(Arrays.asList("since", "prop", "typeConflictProp"), result.getAllProperties(variable));
+    }
+  }
+
+  @Test
+  public void testGetAllPropertiesFetchesGraphSchemaOnce() throws Exception {
+    AtomicInteger graphSchemaCalls = new AtomicInteger();
+    ExampleMetadataProvider metadataProvider = new ExampleMetadataProvider() {
+
+      @Override
+      public Optional<GraphSchema> getGraphSchema() {
+        graphSchemaCalls.incrementAndGet();
+        return super.getGraphSchema();
+      }
+    };
+    PgqlResult result = pgql.parse("SELECT * FROM MATCH (n:Person|University)", metadataProvider);
+    assertTrue(result.getErrorMessages(), result.isQueryValid());
+    graphSchemaCalls.set(0);
+    result.getAllProperties(result.getGraphQuery().getGraphPattern().getVertices().iterator().next());
+    assertEquals(1, graphSchemaCalls.get());
+  }
+
+  @Test
+  public void testSchemaVersion() throws Exception {
+    VersionedMetadataProvider metadataProvider = new VersionedMetadataProvider();
+    metadataProvider.setSchemaVersion("1");
+
+    // the provider returns a new graph schema for every parse, but the version says it did not change
+    String query = "SELECT n.firstName FROM MATCH (n:Person)";
+    assertTrue(pgql.parse(query, metadataProvider).isQueryValid());
+    int unionTypeCalls = metadataProvider.unionTypeCalls.get();
+    assertTrue(unionTypeCalls > 0);
+    assertTrue(pgql.parse(query, metadataProvider).isQueryValid());
+    assertEquals(unionTypeCalls, metadataProvider.unionTypeCalls.get());
+
+    metadataProvider.setSchemaVersion("2");
+    assertTrue(pgql.parse(query, metadataProvider).isQueryValid());
+    assertTrue(metadataProvider.unionTypeCalls.get() > unionTypeCalls);
+  }
+
+  @Test
+  public void testMetadataChangeNotification() throws Exception {
+    VersionedMetadataProvider metadataProvider = new VersionedMetadataProvider();
+    metadataProvider.setSchemaVersion("1");
+    PgqlResultCache resultCache = new PgqlResultCache(10);
+    pgql.setResultCache(resultCache);
+    try {
+      String query = "SELECT n.firstName FROM MATCH (n:Person)";
+      assertTrue(pgql.parse(query, metadataProvider).isQueryValid());
+      assertTrue(pgql.parse(query, metadataProvider).isQueryValid());
+      assertEquals(1, resultCache.getHitCount());
+
+      // both the cached parse result and the cached metadata are invalidated, even though the version is the same
+      metadataProvider.setGraphSchema(
+          new ExampleMetadataProvider().getGraphSchema(new SchemaQualifiedName(null, "graph3")).get());
+      assertEquals(0, resultCache.size());
+      PgqlResult result = pgql.parse(query, metadataProvider);
+      assertTrue(result.getErrorMessages(), result.getErrorMessages().contains("Vertex label does not exist"));
+      assertEquals(1, resultCache.getHitCount());
+    } finally {
+      pgql.setResultCache(null);
+    }
+  }
+
+  @Test
+  public void testSchemaPruning() throws Exception {
+    String[] queries = { //
+        "SELECT n.firstName FROM MATCH (n:Person)", //
+        "SELECT n.firstName FROM MATCH (n:NotExists)", //
+        "SELECT n.firstName, n.name FROM MATCH (n)", //
+        "SELECT n.notExists FROM MATCH (n)", //
+        "SELECT n.notExists FROM MATCH (n:University)", //
+        "SELECT e.since FROM MATCH () -[e:NotExists]-> ()", //
+        "SELECT n.numericProp + 1 AS x, n.typeConflictProp FROM MATCH (n)", //
+        "SELECT n.\"Typeconflictprop\" FROM MATCH () -[n]-> ()", //
+        "SELECT 1 FROM MATCH (n) WHERE has_label(n, 'NotExists')", //
+        "SELECT 1 FROM MATCH (n) WHERE n IS LABELED University", //
+        "SELECT n.number FROM MATCH (n:Account) -[e:NotExists]-> (m) ON financialNetwork", //
+        "SELECT * FROM MATCH (n:Person)" };
+    ExampleMetadataProvider metadataProvider = new ExampleMetadataProvider();
+    try {
+      for (String query : queries) {
+        pgql.setSchemaPruning(false);
+        PgqlResult expected = pgql.parse(query, metadataProvider);
+        pgql.setSchemaPruning(true);
+        PgqlResult actual = pgql.parse(query, metadataProvider);
+        assertEquals(query, expected.isQueryValid(), actual.isQueryValid());
+        assertEquals(query, expected.getErrorMessages(), actual.getErrorMessages());
+        if (expected.isQueryValid()) {
+          assertEquals(query, expected.getGraphQuery().toString(), actual.getGraphQuery().toString());
+        }
+      }
+    } finally {
+      pgql.setSchemaPruning(true);
+    }
+  }
+
+  @Test
+  public void testTypeRules() throws Exception {
+    ExampleMetadataProvider perPairProvider = new ExampleMetadataProvider();
+    ExampleMetadataProvider bulkProvider = new TypeRulesMetadataProvider();
+
+    String[] queries = { //
+        "SELECT n.numericProp + 1, -n.numericProp, n.firstName || 'x' FROM MATCH (n:Person)", //
+        "SELECT n.dob < n.dob, NOT n.typeConflictProp FROM MATCH (n:Person)", //
+        "SELECT CASE WHEN true THEN n.numericProp ELSE 1.5 END AS x FROM MATCH (n:Person)", //
+        "SELECT SUM(n.numericProp), AVG(n.numericProp), MIN(n.dob), ARRAY_AGG(n.firstName) FROM MATCH (n:Person)", //
+        "SELECT n.firstName + 1 FROM MATCH (n:Person)", //
+        "SELECT n.dob * 2, n.firstName AND true FROM MATCH (n:Person)", //
+        "SELECT n.typeConflictProp FROM MATCH (n:Person|University)" };
+    for (String query : queries) {
+      PgqlResult expected = pgql.parse(query, perPairProvider);
+      PgqlResult actual = pgql.parse(query, bulkProvider);
+      assertEquals(query, expected.isQueryValid(), actual.isQueryValid());
+      assertEquals(query, expected.getErrorMessages(), actual.getErrorMessages());
+    }
+  }
+
+  /**
+   * Provides the metadata of {@link ExampleMetadataProvider} with a version, and notifies listeners when the graph
+   * schema is replaced.
+   */
+  private static class VersionedMetadataProvider extends ExampleMetadataProvider {
+
+    private final AtomicInteger unionTypeCalls = new AtomicInteger();
+
+    private volatile GraphSchema graphSchema;
+
+    private volatile String schemaVersion;
+
+    void setSchemaVersion(String schemaVersion) {
+      this.schemaVersion = schemaVersion;
+    }
+
+    void setGraphSchema(GraphSchema graphSchema) {
+      this.graphSchema = graphSchema;
+      fireMetadataChanged(null);
+    }
+
+    @Override
+    public Optional<GraphSchema> getGraphSchema() {
+      return graphSchema == null ? super.getGraphSchema() : Optional.of(graphSchema);
+    }
+
+    @Override
+    public Optional<String> getSchemaVersion(SchemaQualifiedName graphName) {
+      return Optional.ofNullable(schemaVersion);
+    }
+
+    @Override
+    public Optional<String> getUnionType(String typeA, String typeB) {
+      unionTypeCalls.incrementAndGet();
+      return super.getUnionType(typeA, typeB);
+    }
+  }
+
+  /**
+   * Provides the type rules of {@link ExampleMetadataProvider} in bulk, while failing if they are asked for per type.
+   */
+  private static class TypeRulesMetadataProvider extends ExampleMetadataProvider {
+
+    private static final String[] TYPES = { "INTEGER", "LONG", "FLOAT", "DOUBLE", "BOOLEAN", "STRING", "DATE", "TIME",
+        "TIME WITH TIME ZONE", "TIMESTAMP", "TIMESTAMP WITH TIME ZONE", "VERTEX", "EDGE", "INTERVAL", "SET<STRING>" };
+
+    private final TypeRules typeRules = new TypeRules();
+
+    TypeRulesMetadataProvider() {
+      ExampleMetadataProvider delegate = new ExampleMetadataProvider();
+      for (String typeA : TYPES) {
+        for (UnaryOperation op : UnaryOperation.values()) {
+          delegate.getOperationReturnType(op, typeA).ifPresent(type -> typeRules.addOperation(op, typeA, type));
+        }
+        for (String typeB : TYPES) {
+          delegate.getUnionType(typeA, typeB).ifPresent(type -> typeRules.addUnionType(typeA, typeB, type));
+          for (BinaryOperation op : BinaryOperation.values()) {
+            delegate.getOperationReturnType(op, typeA, typeB)
+                .ifPresent(type -> typeRules.addOperation(op, typeA, typeB, type));
+          }
+        }
+      }
+    }
+
+    @Override
+    public Optional<TypeRules> getTypeRules() {
+      return Optional.of(typeRules);
+    }
+
+    @Override
+    public Optional<String> getUnionType(String typeA, String typeB) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<String> getOperationReturnType(UnaryOperation op, String type) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<String> getOperationReturnType(BinaryOperation op, String typeA, String typeB) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
   @Test
   public void testAllowReferencingAnyProperty() throws Exception {
     PgqlResult result = parse("SELECT n.firstName FROM MATCH (n:University)");
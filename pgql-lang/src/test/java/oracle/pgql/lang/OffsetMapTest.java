@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import oracle.pgql.lang.TranslationContext.OffsetMap;
+import oracle.pgql.lang.ir.QueryVariable;
+import oracle.pgql.lang.ir.QueryVertex;
+
+public class OffsetMapTest {
+
+  @Test
+  public void testGrowth() {
+    OffsetMap map = new OffsetMap();
+    int numVars = 1000;
+    QueryVariable[] vars = new QueryVariable[numVars];
+    for (int i = 0; i < numVars; i++) {
+      vars[i] = new QueryVertex("v" + i, false);
+      map.put(OffsetMap.key(i * 5, i * 5 + 2), vars[i]);
+    }
+    for (int i = 0; i < numVars; i++) {
+      assertSame(vars[i], map.get(OffsetMap.key(i * 5, i * 5 + 2)));
+    }
+    assertNull(map.get(OffsetMap.key(numVars * 5, numVars * 5 + 2)));
+  }
+
+  @Test
+  public void testCollidingKeys() {
+    // find keys that land in the same slot of the initial table of 16 slots
+    long first = OffsetMap.key(0, 1);
+    long second = 0;
+    long third = 0;
+    for (int start = 1; third == 0; start++) {
+      long key = OffsetMap.key(start, start + 1);
+      if ((OffsetMap.hash(key) & 15) == (OffsetMap.hash(first) & 15)) {
+        if (second == 0) {
+          second = key;
+        } else {
+          third = key;
+        }
+      }
+    }
+
+    OffsetMap map = new OffsetMap();
+    QueryVariable a = new QueryVertex("a", false);
+    QueryVariable b = new QueryVertex("b", false);
+    QueryVariable c = new QueryVertex("c", false);
+    map.put(first, a);
+    map.put(second, b);
+    assertSame(a, map.get(first));
+    assertSame(b, map.get(second));
+    assertNull(map.get(third)); // probes past the colliding entries
+
+    map.put(third, c);
+    map.put(first, b); // replaces the value of an existing key
+    assertSame(b, map.get(first));
+    assertSame(b, map.get(second));
+    assertSame(c, map.get(third));
+  }
+
+  @Test
+  public void testOffsetsThatDifferOnlyInEnd() {
+    OffsetMap map = new OffsetMap();
+    QueryVariable n = new QueryVertex("n", false);
+    QueryVariable nn = new QueryVertex("nn", false);
+    map.put(OffsetMap.key(28, 29), n);
+    map.put(OffsetMap.key(28, 30), nn);
+    assertSame(n, map.get(OffsetMap.key(28, 29)));
+    assertSame(nn, map.get(OffsetMap.key(28, 30)));
+    assertNull(map.get(OffsetMap.key(28, 31)));
+    assertNull(map.get(OffsetMap.key(29, 29)));
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ParseAllTest extends AbstractPgqlTest {
+
+  @Test
+  public void testParseAll() throws Exception {
+    List<String> statements = Arrays.asList( //
+        "CREATE PROPERTY GRAPH g VERTEX TABLES ( Person ) EDGE TABLES ( knows SOURCE Person DESTINATION Person )", //
+        "INSERT VERTEX v LABELS ( Person ) PROPERTIES ( v.name = 'Alice' )", //
+        "SELECT x FROM MATCH (n)", //
+        "SELECT n.name FROM MATCH (n) -[e]-> (m) WHERE m.name = 'Bob'");
+
+    List<PgqlResult> results = pgql.parseAll(statements);
+
+    assertEquals(statements.size(), results.size());
+    for (int i = 0; i < statements.size(); i++) {
+      PgqlResult expected = pgql.parse(statements.get(i));
+      PgqlResult actual = results.get(i);
+      assertEquals(expected.getQueryString(), actual.getQueryString());
+      assertEquals(expected.isQueryValid(), actual.isQueryValid());
+      assertEquals(expected.getErrorMessages(), actual.getErrorMessages());
+      assertEquals(String.valueOf(expected.getPgqlStatement()), String.valueOf(actual.getPgqlStatement()));
+    }
+    assertFalse(results.get(2).isQueryValid());
+  }
+
+  @Test
+  public void testParseScript() throws Exception {
+    String script = "/* setup; */ CREATE PROPERTY GRAPH g VERTEX TABLES ( Person );\n" //
+        + "INSERT VERTEX v LABELS ( Person ) PROPERTIES ( v.name = 'A;''b' );\n" //
+        + "SELECT n.\"a;b\" FROM MATCH (n);\n" //
+        + ";  \n";
+
+    List<PgqlResult> results = pgql.parseScript(script, null);
+
+    assertEquals(3, results.size());
+    assertEquals("INSERT VERTEX v LABELS ( Person ) PROPERTIES ( v.name = 'A;''b' )", results.get(1).getQueryString());
+    assertEquals("SELECT n.\"a;b\" FROM MATCH (n)", results.get(2).getQueryString());
+    for (PgqlResult result : results) {
+      assertTrue(result.getErrorMessages(), result.isQueryValid());
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Test;
+
+import oracle.pgql.lang.ParseExecutor.RejectionPolicy;
+
+public class ParseAsyncTest extends AbstractPgqlTest {
+
+  @After
+  public void resetParseExecutor() {
+    pgql.setParseExecutor(null);
+  }
+
+  @Test
+  public void testParseAsync() throws Exception {
+    CompletableFuture<PgqlResult> valid = pgql.parseAsync("SELECT n.name FROM MATCH (n)");
+    CompletableFuture<PgqlResult> invalid = pgql.parseAsync("SELECT x FROM MATCH (n)");
+
+    assertTrue(valid.get().isQueryValid());
+    assertFalse(invalid.get().isQueryValid());
+  }
+
+  @Test
+  public void testAbortWhenTooManyPendingParses() throws Exception {
+    List<Runnable> queue = new ArrayList<>();
+    ParseExecutor parseExecutor = new ParseExecutor(queue::add, 1, RejectionPolicy.ABORT);
+    pgql.setParseExecutor(parseExecutor);
+
+    CompletableFuture<PgqlResult> result1 = pgql.parseAsync("SELECT n.name FROM MATCH (n)");
+    CompletableFuture<PgqlResult> result2 = pgql.parseAsync("SELECT n.name FROM MATCH (n)");
+    assertEquals(1, parseExecutor.getPendingCount());
+    assertEquals(1, parseExecutor.getRejectedCount());
+
+    try {
+      result2.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    queue.get(0).run();
+    assertTrue(result1.get().isQueryValid());
+    assertEquals(0, parseExecutor.getPendingCount());
+  }
+
+  @Test
+  public void testCallerRunsWhenTooManyPendingParses() throws Exception {
+    List<Runnable> queue = new ArrayList<>();
+    ParseExecutor parseExecutor = new ParseExecutor(queue::add, 1, RejectionPolicy.CALLER_RUNS);
+    pgql.setParseExecutor(parseExecutor);
+
+    CompletableFuture<PgqlResult> result1 = pgql.parseAsync("SELECT n.name FROM MATCH (n)");
+    CompletableFuture<PgqlResult> result2 = pgql.parseAsync("SELECT n.name FROM MATCH (n)");
+
+    assertFalse(result1.isDone());
+    assertTrue(result2.isDone()); // parsed on this thread
+    assertTrue(result2.get().isQueryValid());
+    queue.get(0).run();
+    assertTrue(result1.get().isQueryValid());
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import oracle.pgql.lang.ParseEvent.Outcome;
+import oracle.pgql.lang.ParseEvent.Phase;
+
+public class ParseListenerTest extends AbstractPgqlTest {
+
+  @After
+  public void removeListener() {
+    pgql.setParseListener(null);
+  }
+
+  @Test
+  public void testParseEvents() throws Exception {
+    List<ParseEvent> events = new ArrayList<>();
+    pgql.setParseListener(events::add);
+
+    String validQuery = "SELECT n.name FROM MATCH (n)";
+    pgql.parse(validQuery);
+    pgql.parse("SELECT x FROM MATCH (n)");
+    pgql.parse("SELECT n.name FROM MATCH (n)", null, ValidationLevel.SYNTAX);
+
+    assertEquals(3, events.size());
+
+    ParseEvent valid = events.get(0);
+    assertEquals(Outcome.VALID, valid.getOutcome());
+    assertEquals(validQuery.length(), valid.getQueryLength());
+    for (Phase phase : new Phase[] { Phase.PARSE, Phase.ANALYSIS, Phase.TRANSLATION }) {
+      assertTrue(phase.toString(), valid.getDuration(phase, TimeUnit.NANOSECONDS) > 0);
+    }
+    long sumOfPhases = 0;
+    for (Phase phase : Phase.values()) {
+      sumOfPhases += valid.getDuration(phase, TimeUnit.NANOSECONDS);
+    }
+    assertTrue(sumOfPhases <= valid.getTotalDuration(TimeUnit.NANOSECONDS));
+
+    assertEquals(Outcome.INVALID, events.get(1).getOutcome());
+
+    ParseEvent syntaxOnly = events.get(2);
+    assertEquals(ValidationLevel.SYNTAX, syntaxOnly.getValidationLevel());
+    assertEquals(0, syntaxOnly.getDuration(Phase.ANALYSIS, TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  public void testFailingListenerDoesNotFailParse() throws Exception {
+    pgql.setParseListener(event -> {
+      throw new IllegalStateException();
+    });
+    assertTrue(pgql.parse("SELECT n.name FROM MATCH (n)").isQueryValid());
+  }
+}
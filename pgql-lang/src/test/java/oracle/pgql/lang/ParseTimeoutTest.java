@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ParseTimeoutTest extends AbstractPgqlTest {
+
+  private static final String QUERY = "SELECT n.name FROM MATCH (n) WHERE n.age > 20";
+
+  @After
+  public void resetTimeout() {
+    pgql.setParseTimeout(0, TimeUnit.MILLISECONDS);
+    pgql.setResultCache(null);
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    pgql.setParseTimeout(1, TimeUnit.NANOSECONDS);
+    PgqlResult result = pgql.parse(QUERY);
+    assertTrue(result.isTimedOut());
+    assertFalse(result.isQueryValid());
+    assertEquals("Parse timed out after 0 ms", result.getErrorMessages());
+  }
+
+  @Test
+  public void testNoTimeout() throws Exception {
+    pgql.setParseTimeout(1, TimeUnit.MINUTES);
+    assertEquals(1, pgql.getParseTimeout(TimeUnit.MINUTES));
+    PgqlResult result = pgql.parse(QUERY);
+    assertFalse(result.isTimedOut());
+    assertTrue(result.isQueryValid());
+  }
+
+  @Test
+  public void testParseAllTimeout() throws Exception {
+    pgql.setParseTimeout(1, TimeUnit.NANOSECONDS);
+    List<String> statements = Arrays.asList(QUERY, "SELECT m.name FROM MATCH (m)");
+    List<PgqlResult> results = pgql.parseAll(statements);
+    assertEquals(statements.size(), results.size());
+    for (int i = 0; i < statements.size(); i++) {
+      assertEquals(statements.get(i), results.get(i).getQueryString());
+      assertTrue(results.get(i).isTimedOut());
+    }
+  }
+
+  @Test
+  public void testTimedOutResultsAreNotCached() throws Exception {
+    PgqlResultCache cache = new PgqlResultCache(10);
+    pgql.setResultCache(cache);
+
+    pgql.setParseTimeout(1, TimeUnit.NANOSECONDS);
+    assertTrue(pgql.parse(QUERY).isTimedOut());
+    assertEquals(0, cache.size());
+
+    pgql.setParseTimeout(0, TimeUnit.NANOSECONDS);
+    assertTrue(pgql.parse(QUERY).isQueryValid());
+    assertEquals(1, cache.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeTimeout() {
+    pgql.setParseTimeout(-1, TimeUnit.SECONDS);
+  }
+}
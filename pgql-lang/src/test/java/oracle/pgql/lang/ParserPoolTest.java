@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParserPoolTest {
+
+  private static final int POOL_SIZE = 4;
+
+  private static final int NUM_PARSES = 64;
+
+  private static Pgql pgql;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    pgql = new Pgql(POOL_SIZE);
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    pgql.close();
+  }
+
+  @Test
+  public void testConcurrentParses() throws Exception {
+    String validQuery = "SELECT n.name FROM MATCH (n) -[e]-> (m) WHERE n.age > 20 ORDER BY n.name";
+    String invalidQuery = "SELECT x FROM MATCH (n)";
+    String expectedGraphQuery = pgql.parse(validQuery).getGraphQuery().toString();
+    String expectedErrorMessages = pgql.parse(invalidQuery).getErrorMessages();
+
+    ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE * 2);
+    try {
+      List<Future<PgqlResult>> results = new ArrayList<>();
+      for (int i = 0; i < NUM_PARSES; i++) {
+        String query = i % 2 == 0 ? validQuery : invalidQuery;
+        results.add(executor.submit(() -> pgql.parse(query)));
+      }
+
+      for (int i = 0; i < NUM_PARSES; i++) {
+        PgqlResult result = results.get(i).get();
+        if (i % 2 == 0) {
+          assertTrue(result.isQueryValid());
+          assertEquals(expectedGraphQuery, result.getGraphQuery().toString());
+        } else {
+          assertFalse(result.isQueryValid());
+          assertEquals(expectedErrorMessages, result.getErrorMessages());
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPoolSize() throws Exception {
+    new Pgql(0);
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import oracle.pgql.lang.ir.SchemaQualifiedName;
+import oracle.pgql.lang.metadata.AbstractMetadataProvider;
+
+public class PgqlResultCacheTest extends AbstractPgqlTest {
+
+  @After
+  public void disableCache() {
+    pgql.setResultCache(null);
+    pgql.setCompactResults(false);
+  }
+
+  @Test
+  public void testCompactResults() throws Exception {
+    pgql.setCompactResults(true);
+
+    PgqlResult valid = pgql.parse("SELECT n.name FROM MATCH (n) WHERE n.age > ?");
+    assertNull(valid.getSpoofaxParseUnit());
+    assertNotNull(valid.getGraphQuery());
+    assertEquals(1, valid.getBindVariableCount());
+
+    PgqlResult invalid = pgql.parse("SELECT x FROM MATCH (n)");
+    assertNull(invalid.getSpoofaxParseUnit());
+    assertFalse(invalid.isQueryValid());
+    assertNotNull(invalid.getErrorMessages());
+
+    pgql.setCompactResults(false);
+    assertNotNull(pgql.parse("SELECT n.name FROM MATCH (n)").getSpoofaxParseUnit());
+  }
+
+  @Test
+  public void testHitsAndMisses() throws Exception {
+    PgqlResultCache cache = new PgqlResultCache(10);
+    pgql.setResultCache(cache);
+
+    PgqlResult result1 = pgql.parse("SELECT n.name FROM MATCH (n)");
+    PgqlResult result2 = pgql.parse("SELECT n.name FROM MATCH (n)");
+    assertSame(result1, result2);
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+
+    // invalid queries are cached too
+    PgqlResult result3 = pgql.parse("SELECT x FROM MATCH (n)");
+    PgqlResult result4 = pgql.parse("SELECT x FROM MATCH (n)");
+    assertSame(result3, result4);
+    assertEquals(2, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void testResultsAreSharedAcrossThreads() throws Exception {
+    PgqlResultCache cache = new PgqlResultCache(10);
+    pgql.setResultCache(cache);
+    String query = "SELECT n.name FROM MATCH (n) WHERE n.age > 20";
+    PgqlResult result = pgql.parse(query);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<PgqlResult>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> pgql.parse(query)));
+      }
+      for (Future<PgqlResult> future : futures) {
+        // the very same result and statement, not a copy, so callers must not modify them
+        PgqlResult sharedResult = future.get(10, TimeUnit.SECONDS);
+        assertSame(result, sharedResult);
+        assertSame(result.getGraphQuery(), sharedResult.getGraphQuery());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(8, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void testMetadataProviderIsPartOfKey() throws Exception {
+    PgqlResultCache cache = new PgqlResultCache(10);
+    pgql.setResultCache(cache);
+
+    String query = "SELECT n.firstName FROM MATCH (n:Person)";
+    ExampleMetadataProvider metadataProvider = new ExampleMetadataProvider();
+    PgqlResult result1 = pgql.parse(query);
+    PgqlResult result2 = pgql.parse(query, metadataProvider);
+    PgqlResult result3 = pgql.parse(query, new ExampleMetadataProvider());
+    PgqlResult result4 = pgql.parse(query, metadataProvider);
+
+    assertNotSame(result1, result2);
+    assertNotSame(result2, result3);
+    assertSame(result2, result4);
+    assertEquals(3, cache.getMissCount());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEviction() throws Exception {
+    PgqlResultCache cache = new PgqlResultCache(2);
+    pgql.setResultCache(cache);
+
+    PgqlResult result1 = pgql.parse("SELECT 1 AS a FROM MATCH (n)");
+    pgql.parse("SELECT 2 AS a FROM MATCH (n)");
+    pgql.parse("SELECT 1 AS a FROM MATCH (n)"); // makes the second query the least recently used one
+    pgql.parse("SELECT 3 AS a FROM MATCH (n)");
+
+    assertEquals(1, cache.getEvictionCount());
+    assertEquals(2, cache.size());
+    assertSame(result1, pgql.parse("SELECT 1 AS a FROM MATCH (n)"));
+
+    cache.invalidateAll();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testWaitersDoNotShareTimedOutResults() throws Exception {
+    PgqlResultCache cache = new PgqlResultCache(10);
+    String query = "SELECT n.name FROM MATCH (n)";
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch finishLoading = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      // the first caller times out under its own, short deadline
+      Future<PgqlResult> timedOut = executor.submit(() -> cache.get(query, null, () -> {
+        loading.countDown();
+        finishLoading.await();
+        return PgqlResult.timedOut(query, "Parse timed out", null);
+      }));
+      loading.await();
+      executor.submit(() -> {
+        Thread.sleep(100); // lets the second caller wait for the first parse
+        finishLoading.countDown();
+        return null;
+      });
+
+      // the second caller waits for the first parse, but then parses the query again under its own deadline
+      PgqlResult valid = newResult(query);
+      assertSame(valid, cache.get(query, null, () -> valid));
+      assertTrue(timedOut.get(10, TimeUnit.SECONDS).isTimedOut());
+      assertEquals(0, cache.size());
+
+      assertSame(valid, cache.get(query, null, () -> valid));
+      assertSame(valid, cache.get(query, null, () -> newResult(query)));
+
+      // the second caller found the result of the first parse, but had to parse the query again
+      assertEquals(1, cache.getHitCount());
+      assertEquals(3, cache.getMissCount());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSchemaVersionIsPartOfKey() throws Exception {
+    PgqlResultCache cache = new PgqlResultCache(10);
+    String query = "SELECT n.name FROM MATCH (n)";
+    VersionedMetadataProvider metadataProvider = new VersionedMetadataProvider();
+    metadataProvider.schemaVersion = "1";
+    PgqlResult result1 = newResult(query);
+    assertSame(result1, cache.get(query, metadataProvider, () -> result1));
+    assertSame(result1, cache.get(query, metadataProvider, () -> newResult(query)));
+
+    // no change notification, only a new version
+    metadataProvider.schemaVersion = "2";
+    PgqlResult result2 = newResult(query);
+    assertSame(result2, cache.get(query, metadataProvider, () -> result2));
+    assertSame(result2, cache.get(query, metadataProvider, () -> newResult(query)));
+  }
+
+  @Test
+  public void testMetadataChangeDuringParse() throws Exception {
+    PgqlResultCache cache = new PgqlResultCache(10);
+    String query = "SELECT n.name FROM MATCH (n)";
+    AbstractMetadataProvider metadataProvider = new VersionedMetadataProvider();
+    PgqlResult stale = newResult(query);
+    PgqlResult fresh = newResult(query);
+    AtomicInteger parses = new AtomicInteger();
+    CountDownLatch parsing = new CountDownLatch(1);
+    CountDownLatch metadataChanged = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<PgqlResult> future = executor.submit(() -> cache.get(query, metadataProvider, () -> {
+        if (parses.incrementAndGet() > 1) {
+          return fresh;
+        }
+        parsing.countDown();
+        metadataChanged.await(); // the metadata changes after the parse read it
+        return stale;
+      }));
+      parsing.await();
+      cache.invalidate(metadataProvider);
+      metadataChanged.countDown();
+
+      assertSame(fresh, future.get(10, TimeUnit.SECONDS));
+      assertEquals(2, parses.get());
+      PgqlResult result = cache.get(query, metadataProvider, () -> newResult(query));
+      assertNotSame(stale, result);
+      assertSame(result, cache.get(query, metadataProvider, () -> newResult(query)));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  static PgqlResult newResult(String query) {
+    return new PgqlResult(query, true, (ErrorMessages) null, null, null, PgqlVersion.V_1_3_OR_UP, 0, false, null);
+  }
+
+  private static class VersionedMetadataProvider extends AbstractMetadataProvider {
+
+    private volatile String schemaVersion;
+
+    @Override
+    public Optional<String> getSchemaVersion(SchemaQualifiedName graphName) {
+      return Optional.ofNullable(schemaVersion);
+    }
+  }
+}
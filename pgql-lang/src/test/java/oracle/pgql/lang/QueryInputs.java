@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.UUID;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.metaborg.spoofax.core.unit.ISpoofaxInputUnit;
+
+/**
+ * Gives benchmarks outside of this package access to the creation of the Spoofax input of a parse, which the public
+ * API does not expose. The input is created both as every parse used to create it and as parses create it now.
+ */
+public class QueryInputs implements Closeable {
+
+  private final SpoofaxInstance spoofaxInstance;
+
+  private final FileObject projectDir;
+
+  /**
+   * Creates a Spoofax runtime for the purpose, which is closed by {@link #close()}.
+   */
+  public QueryInputs() throws Exception {
+    spoofaxInstance = AnalyzedAsts.createSpoofaxInstance();
+    projectDir = spoofaxInstance.getQueryFile().getParent();
+  }
+
+  /**
+   * Creates the input like every parse used to: generate a UUID, create a file under the ram:// project directory,
+   * write the UTF-8 bytes of the query into it, create the input for that file and delete the file again.
+   */
+  public ISpoofaxInputUnit createWithTemporaryFile(String queryString) throws IOException {
+    FileObject file = projectDir.resolveFile(UUID.randomUUID().toString() + ".pgql");
+    try {
+      try (OutputStream out = file.getContent().getOutputStream()) {
+        IOUtils.write(queryString.getBytes("UTF-8"), out);
+      }
+      return spoofaxInstance.inputUnit(file, queryString);
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Creates the input like parses do now: for the file that the Spoofax instance resolved once.
+   */
+  public ISpoofaxInputUnit create(String queryString) {
+    return spoofaxInstance.inputUnit(spoofaxInstance.getQueryFile(), queryString);
+  }
+
+  @Override
+  public void close() {
+    spoofaxInstance.close();
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import oracle.pgql.lang.ir.QueryExpression;
+import oracle.pgql.lang.ir.QueryExpression.Constant.ConstBoolean;
+import oracle.pgql.lang.ir.QueryExpression.Constant.ConstDecimal;
+import oracle.pgql.lang.ir.QueryExpression.Constant.ConstInteger;
+import oracle.pgql.lang.ir.QueryExpression.Constant.ConstString;
+import oracle.pgql.lang.ir.QueryExpression.InPredicate.InValueList;
+
+public class QueryParameterizationTest extends AbstractPgqlTest {
+
+  @After
+  public void disableCache() {
+    pgql.setResultCache(null);
+  }
+
+  @Test
+  public void testQueriesWithSameShapeShareParseResult() throws Exception {
+    PgqlResultCache cache = new PgqlResultCache(10);
+    pgql.setResultCache(cache);
+
+    ParameterizedPgqlResult result1 = pgql.parseParameterized("SELECT n.name FROM MATCH (n) WHERE n.id = 123", null);
+    ParameterizedPgqlResult result2 = pgql.parseParameterized("SELECT n.name FROM MATCH (n) WHERE n.id = 456", null);
+
+    assertTrue(result1.isParameterized());
+    assertSame(result1.getPgqlResult(), result2.getPgqlResult());
+    assertEquals("SELECT n.name FROM MATCH (n) WHERE n.id = ?", result1.getPgqlResult().getQueryString());
+    assertEquals(123L, ((ConstInteger) result1.getBindValues().get(0)).getValue().longValue());
+    assertEquals(456L, ((ConstInteger) result2.getBindValues().get(0)).getValue().longValue());
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  public void testLiteralValues() throws Exception {
+    ParameterizedPgqlResult result = pgql.parseParameterized("SELECT n.name FROM MATCH (n) "
+        + "WHERE n.name = 'O''Brien' AND n.weight > 1.5 AND n.member = true AND n.age > ? LIMIT 10", null);
+
+    assertEquals("SELECT n.name FROM MATCH (n) "
+        + "WHERE n.name = ? AND n.weight > ? AND n.member = ? AND n.age > ? LIMIT ?",
+        result.getPgqlResult().getQueryString());
+    List<QueryExpression> values = result.getBindValues();
+    assertEquals(5, values.size());
+    assertEquals("O'Brien", ((ConstString) values.get(0)).getValue());
+    assertEquals(1.5, ((ConstDecimal) values.get(1)).getValue(), 0.0);
+    assertTrue(((ConstBoolean) values.get(2)).getValue());
+    assertNull(values.get(3)); // bind variable of the original query
+    assertEquals(10L, ((ConstInteger) values.get(4)).getValue().longValue());
+  }
+
+  @Test
+  public void testInValueList() throws Exception {
+    ParameterizedPgqlResult result = pgql.parseParameterized("SELECT n.name FROM MATCH (n) WHERE n.id IN (1, -2, 3)",
+        null);
+
+    assertEquals("SELECT n.name FROM MATCH (n) WHERE n.id IN ?", result.getPgqlResult().getQueryString());
+    assertArrayEquals(new long[] { 1, -2, 3 }, ((InValueList) result.getBindValues().get(0)).getIntegerValues());
+  }
+
+  @Test
+  public void testLiteralsThatAreNotReplaced() throws Exception {
+    String query = "SELECT LISTAGG(n.name, ', ') AS names FROM MATCH ANY SHORTEST (n) -[e]->{1,3} (m) "
+        + "WHERE has_label(n, 'Person') AND n.birthday > DATE '2000-01-01' GROUP BY m";
+    ParameterizedPgqlResult result = pgql.parseParameterized(query, null);
+
+    assertTrue(result.getPgqlResult().isQueryValid());
+    assertEquals(query, result.getPgqlResult().getQueryString());
+    assertFalse(result.isParameterized());
+  }
+
+  @Test
+  public void testFallBackToOriginalQuery() throws Exception {
+    // not a query
+    ParameterizedPgqlResult result = pgql.parseParameterized("DROP PROPERTY GRAPH g", null);
+    assertEquals("DROP PROPERTY GRAPH g", result.getPgqlResult().getQueryString());
+    assertFalse(result.isParameterized());
+
+    // error messages refer to the original query
+    String invalidQuery = "SELECT x FROM MATCH (n) WHERE n.id = 123";
+    result = pgql.parseParameterized(invalidQuery, null);
+    assertFalse(result.getPgqlResult().isQueryValid());
+    assertEquals(invalidQuery, result.getPgqlResult().getQueryString());
+    assertEquals(pgql.parse(invalidQuery).getErrorMessages(), result.getPgqlResult().getErrorMessages());
+  }
+}
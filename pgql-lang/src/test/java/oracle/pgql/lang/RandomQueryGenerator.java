@@ -0,0 +1,693 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates random, valid PGQL queries of controllable size and feature mix, as a workload for parser benchmarks.
+ *
+ * The generator follows the productions of the SDF3 grammar in pgql-spoofax/syntax (pgql-lang.sdf3, GraphPattern.sdf3,
+ * Expressions.sdf3, SolutionModifiers.sdf3 and Literals.sdf3); each method is named after the sort that it produces.
+ * Only the subset of the grammar that can be made valid without a schema is covered: expressions are generated by type
+ * and every variable is bound in the MATCH, so that the generated queries also pass analysis.
+ *
+ * The same seed, size and features always give the same queries.
+ */
+public class RandomQueryGenerator {
+
+  /**
+   * Grammar features that a generated query may use. A query without any features is a SELECT of property references
+   * over a path of unlabeled vertices and edges.
+   */
+  public enum Feature {
+
+    /**
+     * Vertex and edge labels, including label disjunctions, e.g. {@code (v0:Person|Company)}.
+     */
+    LABELS,
+
+    /**
+     * Reachability connections, e.g. {@code -/:knows+/->}, in place of some of the edges.
+     */
+    REACHABILITY,
+
+    /**
+     * A WHERE clause with comparisons and AND, OR and NOT.
+     */
+    WHERE,
+
+    /**
+     * BETWEEN, IN, IS NULL and IS NOT NULL predicates.
+     */
+    PREDICATES,
+
+    /**
+     * Function calls and CAST.
+     */
+    FUNCTIONS,
+
+    /**
+     * CASE expressions.
+     */
+    CASE,
+
+    /**
+     * EXISTS subqueries that refer to variables of the outer query.
+     */
+    SUBQUERIES,
+
+    /**
+     * SELECT DISTINCT.
+     */
+    DISTINCT,
+
+    /**
+     * GROUP BY with aggregates in the SELECT and HAVING clauses.
+     */
+    GROUP_BY,
+
+    /**
+     * An ORDER BY clause.
+     */
+    ORDER_BY,
+
+    /**
+     * LIMIT, OFFSET and FETCH FIRST clauses.
+     */
+    LIMIT_OFFSET
+  }
+
+  private static final int MAX_DEPTH = 3;
+
+  /**
+   * The number of edges after which a path pattern is continued in a new MATCH.
+   */
+  private static final int MAX_PATH_LENGTH = 4;
+
+  private static final String[] VERTEX_LABELS = { "Person", "Company", "City", "University" };
+
+  private static final String[] EDGE_LABELS = { "knows", "worksAt", "livesIn", "studyAt" };
+
+  private static final String[] NUMERIC_PROPERTIES = { "age", "salary", "score", "weight" };
+
+  private static final String[] STRING_PROPERTIES = { "name", "city", "email" };
+
+  private static final String[] BOOLEAN_PROPERTIES = { "active", "verified" };
+
+  private static final String[] COMPARISON_OPERATORS = { "=", "<>", "!=", "<", "<=", ">", ">=" };
+
+  private static final String[] ARITHMETIC_OPERATORS = { "+", "-", "*", "/", "%" };
+
+  private static final String[] NUMERIC_AGGREGATES = { "SUM", "AVG", "MIN", "MAX" };
+
+  private final Random random;
+
+  private final int size;
+
+  private final Set<Feature> features;
+
+  /**
+   * The vertex and edge variables of the (sub)query that is being generated.
+   */
+  private List<String> variables;
+
+  private List<String> vertexVariables;
+
+  private int subqueryCount;
+
+  /**
+   * @param size
+   *          the number of vertices in the graph pattern, and the number of SELECT items and WHERE conjuncts
+   */
+  public RandomQueryGenerator(long seed, int size, Set<Feature> features) {
+    if (size < 1) {
+      throw new IllegalArgumentException("size must be at least 1");
+    }
+    this.random = new Random(seed);
+    this.size = size;
+    this.features = features.isEmpty() ? EnumSet.noneOf(Feature.class) : EnumSet.copyOf(features);
+  }
+
+  public List<String> generate(int numQueries) {
+    List<String> queries = new ArrayList<>(numQueries);
+    for (int i = 0; i < numQueries; i++) {
+      queries.add(generate());
+    }
+    return queries;
+  }
+
+  /**
+   * Query.Query = SelectClause FromWhereClauses GroupByClause? HavingClause? OrderByClause? LimitOffsetClauses?
+   */
+  public String generate() {
+    StringBuilder query = new StringBuilder();
+    subqueryCount = 0;
+    variables = new ArrayList<>();
+    vertexVariables = new ArrayList<>();
+
+    StringBuilder from = new StringBuilder();
+    fromClause(from);
+
+    boolean groupBy = features.contains(Feature.GROUP_BY);
+    List<String> groupKeys = new ArrayList<>();
+    StringBuilder groupByClause = new StringBuilder();
+    if (groupBy) {
+      groupByClause(groupByClause, groupKeys);
+    }
+
+    List<String> columns = new ArrayList<>();
+    selectClause(query, groupKeys, columns);
+    query.append(' ').append(from);
+    if (groupBy) {
+      query.append(' ').append(groupByClause);
+      if (random.nextBoolean()) {
+        query.append(' ');
+        havingClause(query);
+      }
+    }
+    if (features.contains(Feature.ORDER_BY)) {
+      query.append(' ');
+      orderByClause(query, columns, groupBy || features.contains(Feature.DISTINCT));
+    }
+    if (features.contains(Feature.LIMIT_OFFSET)) {
+      query.append(' ');
+      limitOffsetClauses(query);
+    }
+    return query.toString();
+  }
+
+  /**
+   * SelectClause.SelectClause = SELECT Distinct? Projection
+   */
+  private void selectClause(StringBuilder out, List<String> groupKeys, List<String> columns) {
+    out.append("SELECT ");
+    if (features.contains(Feature.DISTINCT)) {
+      out.append("DISTINCT ");
+    }
+    for (int i = 0; i < groupKeys.size(); i++) {
+      out.append(groupKeys.get(i)).append(", ");
+      columns.add(groupKeys.get(i));
+    }
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        out.append(", ");
+      }
+      if (groupKeys.isEmpty()) {
+        selectExp(out);
+      } else {
+        aggregate(out);
+      }
+      String column = "c" + i;
+      out.append(" AS ").append(column);
+      columns.add(column);
+    }
+  }
+
+  private void selectExp(StringBuilder out) {
+    switch (random.nextInt(4)) {
+      case 0:
+        stringExp(out, MAX_DEPTH - 1);
+        break;
+      case 1:
+        booleanExp(out, MAX_DEPTH - 1);
+        break;
+      default:
+        numericExp(out, MAX_DEPTH - 1);
+    }
+  }
+
+  /**
+   * FromWhereClauses.FromWhereClauses = FROM {TableExpression ","}+ WhereClause?
+   */
+  private void fromClause(StringBuilder out) {
+    out.append("FROM ");
+    graphMatch(out);
+    if (features.contains(Feature.WHERE)) {
+      out.append(" WHERE ");
+      for (int i = 0; i < size; i++) {
+        if (i > 0) {
+          out.append(" AND ");
+        }
+        booleanExp(out, MAX_DEPTH);
+      }
+    }
+  }
+
+  /**
+   * GraphMatch.GraphMatch = MatchKeyword PathPattern, where every next path pattern continues from the last vertex of
+   * the previous one
+   */
+  private void graphMatch(StringBuilder out) {
+    out.append("MATCH ");
+    vertex(out, 0);
+    for (int i = 1; i < size; i++) {
+      if ((i - 1) % MAX_PATH_LENGTH == MAX_PATH_LENGTH - 1) {
+        out.append(", MATCH (").append(vertexVariables.get(i - 1)).append(')');
+      }
+      out.append(' ');
+      connection(out, i - 1);
+      out.append(' ');
+      vertex(out, i);
+    }
+  }
+
+  /**
+   * Vertex.Vertex = ( ElemContents )
+   */
+  private void vertex(StringBuilder out, int index) {
+    String variable = "v" + index;
+    vertexVariables.add(variable);
+    variables.add(variable);
+    out.append('(').append(variable);
+    if (features.contains(Feature.LABELS) && random.nextBoolean()) {
+      labelExpression(out, VERTEX_LABELS);
+    }
+    out.append(')');
+  }
+
+  /**
+   * Connection.OutConn, Connection.InConn and Connection.UndirectedEdge, with EdgeContents or with Path contents
+   */
+  private void connection(StringBuilder out, int index) {
+    if (features.contains(Feature.REACHABILITY) && random.nextInt(3) == 0) {
+      boolean incoming = random.nextBoolean();
+      out.append(incoming ? "<-/" : "-/");
+      labelExpression(out, EDGE_LABELS);
+      pathQuantifier(out);
+      out.append(incoming ? "/-" : "/->");
+      return;
+    }
+    String variable = "e" + index;
+    variables.add(variable);
+    int direction = random.nextInt(3);
+    out.append(direction == 1 ? "<-[" : "-[").append(variable);
+    if (features.contains(Feature.LABELS) && random.nextBoolean()) {
+      labelExpression(out, EDGE_LABELS);
+    }
+    out.append(direction == 0 ? "]->" : "]-");
+  }
+
+  /**
+   * LabelExpression.Labels = : Labels, with Labels.Label or Labels.LabelDisjunction
+   */
+  private void labelExpression(StringBuilder out, String[] labels) {
+    int label = random.nextInt(labels.length);
+    out.append(':').append(labels[label]);
+    if (random.nextInt(4) == 0) {
+      out.append('|').append(labels[(label + 1 + random.nextInt(labels.length - 1)) % labels.length]);
+    }
+  }
+
+  /**
+   * PathQuantifier.ZeroOrMore, PathQuantifier.OneOrMore and PathQuantifier.BetweenNAndM
+   */
+  private void pathQuantifier(StringBuilder out) {
+    switch (random.nextInt(3)) {
+      case 0:
+        out.append('*');
+        break;
+      case 1:
+        out.append('+');
+        break;
+      default:
+        int min = random.nextInt(3);
+        out.append('{').append(min).append(',').append(min + 1 + random.nextInt(3)).append('}');
+    }
+  }
+
+  /**
+   * GroupByClause.GroupByClause = GROUP BY {ExpAsVar ", "}+
+   */
+  private void groupByClause(StringBuilder out, List<String> groupKeys) {
+    out.append("GROUP BY ");
+    int numKeys = Math.min(size, 3);
+    Set<String> keyExps = new HashSet<>();
+    while (groupKeys.size() < numKeys) {
+      StringBuilder keyExp = new StringBuilder();
+      propertyRef(keyExp, random.nextBoolean() ? STRING_PROPERTIES : NUMERIC_PROPERTIES);
+      if (keyExps.add(keyExp.toString())) {
+        String key = "g" + groupKeys.size();
+        out.append(groupKeys.isEmpty() ? "" : ", ").append(keyExp).append(" AS ").append(key);
+        groupKeys.add(key);
+      }
+    }
+  }
+
+  /**
+   * HavingClause.HavingClause = HAVING Exp, with an aggregate on the left-hand side of each comparison
+   */
+  private void havingClause(StringBuilder out) {
+    out.append("HAVING ");
+    aggregate(out);
+    out.append(' ').append(pick(COMPARISON_OPERATORS)).append(' ');
+    numericLiteral(out);
+  }
+
+  /**
+   * Exp.COUNT, Exp.SUM, Exp.AVG, Exp.MIN and Exp.MAX
+   */
+  private void aggregate(StringBuilder out) {
+    switch (random.nextInt(3)) {
+      case 0:
+        out.append("COUNT(*)");
+        break;
+      case 1:
+        out.append("COUNT(DISTINCT ");
+        propertyRef(out, STRING_PROPERTIES);
+        out.append(')');
+        break;
+      default:
+        out.append(pick(NUMERIC_AGGREGATES)).append('(');
+        numericExp(out, 1);
+        out.append(')');
+    }
+  }
+
+  /**
+   * OrderByClause.OrderByClause = ORDER BY {OrderElem ", "}+
+   *
+   * @param columnsOnly
+   *          whether to only order by SELECT columns, as is required for queries with DISTINCT or GROUP BY
+   */
+  private void orderByClause(StringBuilder out, List<String> columns, boolean columnsOnly) {
+    out.append("ORDER BY ");
+    List<String> shuffledColumns = new ArrayList<>(columns);
+    Collections.shuffle(shuffledColumns, random);
+    int numElems = 1 + random.nextInt(shuffledColumns.size());
+    for (int i = 0; i < numElems; i++) {
+      if (i > 0) {
+        out.append(", ");
+      }
+      if (columnsOnly || random.nextBoolean()) {
+        out.append(shuffledColumns.get(i));
+      } else {
+        propertyRef(out, NUMERIC_PROPERTIES);
+        out.append(' ').append(pick(ARITHMETIC_OPERATORS)).append(' ');
+        numericLiteral(out);
+      }
+      switch (random.nextInt(3)) {
+        case 0:
+          out.append(" ASC");
+          break;
+        case 1:
+          out.append(" DESC");
+          break;
+        default:
+      }
+    }
+  }
+
+  /**
+   * LimitOffsetClauses.LimitOffsetClauses and LimitOffsetClauses.OffsetLimitClauses
+   */
+  private void limitOffsetClauses(StringBuilder out) {
+    int limit = 1 + random.nextInt(100);
+    int offset = random.nextInt(100);
+    switch (random.nextInt(4)) {
+      case 0:
+        out.append("LIMIT ").append(limit);
+        break;
+      case 1:
+        out.append("LIMIT ").append(limit).append(" OFFSET ").append(offset);
+        break;
+      case 2:
+        out.append("OFFSET ").append(offset).append(" LIMIT ").append(limit);
+        break;
+      default:
+        out.append("FETCH FIRST ").append(limit).append(" ROWS ONLY");
+    }
+  }
+
+  /**
+   * A boolean Exp: comparisons, Exp.And, Exp.Or, Exp.Not and, depending on the features, predicates and subqueries
+   */
+  private void booleanExp(StringBuilder out, int depth) {
+    int choice = depth == 0 ? 0 : random.nextInt(7);
+    switch (choice) {
+      case 1:
+        out.append("NOT ");
+        parenthesized(out, () -> booleanExp(out, depth - 1));
+        break;
+      case 2:
+      case 3:
+        parenthesized(out, () -> {
+          booleanExp(out, depth - 1);
+          out.append(random.nextBoolean() ? " AND " : " OR ");
+          booleanExp(out, depth - 1);
+        });
+        break;
+      case 4:
+        if (features.contains(Feature.PREDICATES)) {
+          predicate(out, depth);
+          break;
+        }
+        comparison(out, depth);
+        break;
+      case 5:
+        if (features.contains(Feature.SUBQUERIES)) {
+          exists(out);
+          break;
+        }
+        comparison(out, depth);
+        break;
+      default:
+        comparison(out, depth);
+    }
+  }
+
+  /**
+   * Exp.Eq, Exp.Neq1, Exp.Neq2, Exp.Gt, Exp.Lt, Exp.Gte and Exp.Lte, with a property reference on the left-hand side
+   * so that no two literals are compared
+   */
+  private void comparison(StringBuilder out, int depth) {
+    switch (random.nextInt(5)) {
+      case 0:
+        propertyRef(out, STRING_PROPERTIES);
+        out.append(random.nextBoolean() ? " = " : " <> ");
+        stringExp(out, Math.max(depth - 1, 0));
+        break;
+      case 1:
+        propertyRef(out, BOOLEAN_PROPERTIES);
+        out.append(" = ").append(random.nextBoolean() ? "true" : "false");
+        break;
+      default:
+        propertyRef(out, NUMERIC_PROPERTIES);
+        if (depth > 1 && random.nextBoolean()) {
+          out.append(' ').append(pick(ARITHMETIC_OPERATORS)).append(' ');
+          numericExp(out, depth - 2);
+        }
+        out.append(' ').append(pick(COMPARISON_OPERATORS)).append(' ');
+        numericExp(out, Math.max(depth - 1, 0));
+    }
+  }
+
+  /**
+   * Exp.BetweenPredicate, Exp.InPredicate, Exp.IsNull and Exp.IsNotNull
+   */
+  private void predicate(StringBuilder out, int depth) {
+    switch (random.nextInt(3)) {
+      case 0:
+        parenthesized(out, () -> {
+          propertyRef(out, NUMERIC_PROPERTIES);
+          out.append(" BETWEEN ");
+          numericExp(out, Math.max(depth - 2, 0));
+          out.append(" AND ");
+          numericExp(out, Math.max(depth - 2, 0));
+        });
+        break;
+      case 1:
+        propertyRef(out, NUMERIC_PROPERTIES);
+        out.append(random.nextBoolean() ? " IN (" : " NOT IN (");
+        int numElems = 1 + random.nextInt(5);
+        for (int i = 0; i < numElems; i++) {
+          if (i > 0) {
+            out.append(", ");
+          }
+          out.append(random.nextInt(1000));
+        }
+        out.append(')');
+        break;
+      default:
+        propertyRef(out, random.nextBoolean() ? NUMERIC_PROPERTIES : STRING_PROPERTIES);
+        out.append(random.nextBoolean() ? " IS NULL" : " IS NOT NULL");
+    }
+  }
+
+  /**
+   * Exp.Exists = EXISTS Subquery, with a subquery that continues from a vertex of the outer query
+   */
+  private void exists(StringBuilder out) {
+    int subquery = subqueryCount++;
+    String outerVertex = pick(vertexVariables);
+    String vertex = "s" + subquery;
+    String edge = "se" + subquery;
+    out.append("EXISTS ( SELECT ").append(vertex).append('.').append(pick(NUMERIC_PROPERTIES)).append(" AS sc")
+        .append(subquery).append(" FROM MATCH (").append(outerVertex).append(") -[").append(edge).append("]-> (")
+        .append(vertex).append(") WHERE ").append(vertex).append('.').append(pick(NUMERIC_PROPERTIES)).append(' ')
+        .append(pick(COMPARISON_OPERATORS)).append(' ').append(outerVertex).append('.')
+        .append(pick(NUMERIC_PROPERTIES)).append(" )");
+  }
+
+  /**
+   * A numeric Exp: property references, numeric literals, arithmetic and, depending on the features, function calls,
+   * CAST and CASE
+   */
+  private void numericExp(StringBuilder out, int depth) {
+    int choice = depth == 0 ? random.nextInt(2) : random.nextInt(7);
+    switch (choice) {
+      case 0:
+        propertyRef(out, NUMERIC_PROPERTIES);
+        break;
+      case 1:
+        numericLiteral(out);
+        break;
+      case 2:
+        parenthesized(out, () -> {
+          numericExp(out, depth - 1);
+          out.append(' ').append(pick(ARITHMETIC_OPERATORS)).append(' ');
+          numericExp(out, depth - 1);
+        });
+        break;
+      case 3:
+        out.append("-");
+        parenthesized(out, () -> numericExp(out, depth - 1));
+        break;
+      case 4:
+        if (features.contains(Feature.FUNCTIONS)) {
+          numericFunctionCall(out, depth);
+          break;
+        }
+        propertyRef(out, NUMERIC_PROPERTIES);
+        break;
+      case 5:
+        if (features.contains(Feature.CASE)) {
+          searchedCase(out, depth);
+          break;
+        }
+        numericLiteral(out);
+        break;
+      default:
+        numericExp(out, depth - 1);
+        out.append(' ').append(pick(ARITHMETIC_OPERATORS)).append(' ');
+        numericExp(out, depth - 1);
+    }
+  }
+
+  /**
+   * Exp.FunctionCall and Exp.Cast
+   */
+  private void numericFunctionCall(StringBuilder out, int depth) {
+    switch (random.nextInt(3)) {
+      case 0:
+        out.append("ABS(");
+        numericExp(out, depth - 1);
+        out.append(')');
+        break;
+      case 1:
+        out.append(random.nextBoolean() ? "IN_DEGREE(" : "OUT_DEGREE(").append(pick(vertexVariables)).append(')');
+        break;
+      default:
+        out.append("CAST(");
+        propertyRef(out, STRING_PROPERTIES);
+        out.append(" AS INTEGER)");
+    }
+  }
+
+  /**
+   * Exp.SearchedCase = CASE WhenClause+ ElseClause? END
+   */
+  private void searchedCase(StringBuilder out, int depth) {
+    out.append("CASE");
+    int numWhenClauses = 1 + random.nextInt(2);
+    for (int i = 0; i < numWhenClauses; i++) {
+      out.append(" WHEN ");
+      booleanExp(out, depth - 1);
+      out.append(" THEN ");
+      numericExp(out, depth - 1);
+    }
+    if (random.nextBoolean()) {
+      out.append(" ELSE ");
+      numericExp(out, depth - 1);
+    }
+    out.append(" END");
+  }
+
+  /**
+   * A string Exp: property references, string literals, Exp.Cct and, depending on the features, function calls
+   */
+  private void stringExp(StringBuilder out, int depth) {
+    int choice = depth == 0 ? random.nextInt(2) : random.nextInt(4);
+    switch (choice) {
+      case 0:
+        propertyRef(out, STRING_PROPERTIES);
+        break;
+      case 1:
+        stringLiteral(out);
+        break;
+      case 2:
+        if (features.contains(Feature.FUNCTIONS)) {
+          out.append(random.nextBoolean() ? "UPPER(" : "LOWER(");
+          stringExp(out, depth - 1);
+          out.append(')');
+          break;
+        }
+        propertyRef(out, STRING_PROPERTIES);
+        break;
+      default:
+        stringExp(out, depth - 1);
+        out.append(" || ");
+        stringExp(out, depth - 1);
+    }
+  }
+
+  /**
+   * PropRef.PropRef = VarRef . Property
+   */
+  private void propertyRef(StringBuilder out, String[] properties) {
+    out.append(pick(variables)).append('.').append(pick(properties));
+  }
+
+  /**
+   * Number.Integer and Number.Decimal
+   */
+  private void numericLiteral(StringBuilder out) {
+    if (random.nextInt(3) == 0) {
+      out.append(random.nextInt(1000)).append('.').append(random.nextInt(100));
+    } else {
+      out.append(random.nextInt(1000));
+    }
+  }
+
+  /**
+   * String.String = STRING, sometimes with an escaped quote
+   */
+  private void stringLiteral(StringBuilder out) {
+    out.append('\'').append(pick(VERTEX_LABELS));
+    if (random.nextInt(4) == 0) {
+      out.append("''s");
+    }
+    out.append(random.nextInt(100)).append('\'');
+  }
+
+  private void parenthesized(StringBuilder out, Runnable exp) {
+    out.append('(');
+    exp.run();
+    out.append(')');
+  }
+
+  private String pick(String[] values) {
+    return values[random.nextInt(values.length)];
+  }
+
+  private String pick(List<String> values) {
+    return values.get(random.nextInt(values.size()));
+  }
+}
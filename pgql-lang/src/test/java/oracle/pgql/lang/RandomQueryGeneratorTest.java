@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import oracle.pgql.lang.RandomQueryGenerator.Feature;
+
+public class RandomQueryGeneratorTest extends AbstractPgqlTest {
+
+  private static final int[] SIZES = { 1, 3, 8 };
+
+  private static final int NUM_QUERIES = 20;
+
+  private static final long SEED = 42;
+
+  @Test
+  public void testQueriesWithoutFeatures() throws Exception {
+    assertValid(EnumSet.noneOf(Feature.class));
+  }
+
+  @Test
+  public void testQueriesWithSingleFeature() throws Exception {
+    for (Feature feature : Feature.values()) {
+      assertValid(EnumSet.of(feature));
+    }
+  }
+
+  @Test
+  public void testQueriesWithAllFeatures() throws Exception {
+    assertValid(EnumSet.allOf(Feature.class));
+    assertValid(EnumSet.complementOf(EnumSet.of(Feature.GROUP_BY)));
+  }
+
+  @Test
+  public void testSameSeedGivesSameQueries() {
+    Set<Feature> features = EnumSet.allOf(Feature.class);
+    assertEquals(new RandomQueryGenerator(SEED, 4, features).generate(NUM_QUERIES),
+        new RandomQueryGenerator(SEED, 4, features).generate(NUM_QUERIES));
+    assertNotEquals(new RandomQueryGenerator(SEED, 4, features).generate(NUM_QUERIES),
+        new RandomQueryGenerator(SEED + 1, 4, features).generate(NUM_QUERIES));
+  }
+
+  private void assertValid(Set<Feature> features) throws PgqlException {
+    for (int size : SIZES) {
+      for (String query : new RandomQueryGenerator(SEED, size, features).generate(NUM_QUERIES)) {
+        PgqlResult result = pgql.parse(query);
+        assertTrue(query + "\n" + result.getErrorMessages(), result.isQueryValid());
+      }
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SpoofaxBinaryCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testBinaryIsExtractedOnce() throws Exception {
+    URL binary = writeBinary("binary1", "some binary");
+    String tmpDir = folder.newFolder().getAbsolutePath();
+
+    File file1 = SpoofaxBinaryCache.getSpoofaxBinaryFile(binary, tmpDir, "test.spoofax-language");
+    long lastModified = file1.lastModified();
+    File file2 = SpoofaxBinaryCache.getSpoofaxBinaryFile(binary, tmpDir, "test.spoofax-language");
+
+    assertEquals(file1, file2);
+    assertEquals(lastModified, file2.lastModified());
+    assertArrayEquals("some binary".getBytes(StandardCharsets.UTF_8), FileUtils.readFileToByteArray(file2));
+    assertEquals(1, file1.getParentFile().list().length); // no temporary files left behind
+  }
+
+  @Test
+  public void testDifferentBinariesDoNotShareFile() throws Exception {
+    String tmpDir = folder.newFolder().getAbsolutePath();
+
+    File file1 = SpoofaxBinaryCache.getSpoofaxBinaryFile(writeBinary("binary1", "some binary"), tmpDir, "test");
+    File file2 = SpoofaxBinaryCache.getSpoofaxBinaryFile(writeBinary("binary2", "other binary"), tmpDir, "test");
+
+    assertNotEquals(file1, file2);
+    assertEquals("other binary", FileUtils.readFileToString(file2, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testTruncatedBinaryIsReplaced() throws Exception {
+    URL binary = writeBinary("binary1", "some binary");
+    String tmpDir = folder.newFolder().getAbsolutePath();
+
+    File file = SpoofaxBinaryCache.getSpoofaxBinaryFile(binary, tmpDir, "test");
+    FileUtils.writeStringToFile(file, "some", StandardCharsets.UTF_8); // e.g. a crash during a copy
+
+    file = SpoofaxBinaryCache.getSpoofaxBinaryFile(binary, tmpDir, "test");
+    assertEquals("some binary", FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testChangedBinaryOfSameLengthIsExtracted() throws Exception {
+    URL binary = writeBinary("binary1", "some binary");
+    String tmpDir = folder.newFolder().getAbsolutePath();
+    File file1 = SpoofaxBinaryCache.getSpoofaxBinaryFile(binary, tmpDir, "test");
+
+    // e.g. a rebuilt jar: the same size, but a later modification time
+    File resource = new File(binary.toURI());
+    FileUtils.writeStringToFile(resource, "same length", StandardCharsets.UTF_8);
+    assertTrue(resource.setLastModified(resource.lastModified() + 1000));
+
+    File file2 = SpoofaxBinaryCache.getSpoofaxBinaryFile(binary, tmpDir, "test");
+    assertNotEquals(file1, file2);
+    assertEquals("same length", FileUtils.readFileToString(file2, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testBinaryInJarIsExtractedOnce() throws Exception {
+    File jar = folder.newFile("binaries.jar");
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+      out.putNextEntry(new JarEntry("test.spoofax-language"));
+      out.write("some binary".getBytes(StandardCharsets.UTF_8));
+    }
+    URL binary = new URL("jar:" + jar.toURI().toURL() + "!/test.spoofax-language");
+    String tmpDir = folder.newFolder().getAbsolutePath();
+
+    File file1 = SpoofaxBinaryCache.getSpoofaxBinaryFile(binary, tmpDir, "test.spoofax-language");
+    long lastModified = file1.lastModified();
+    File file2 = SpoofaxBinaryCache.getSpoofaxBinaryFile(binary, tmpDir, "test.spoofax-language");
+
+    assertEquals(file1, file2);
+    assertEquals(lastModified, file2.lastModified());
+    assertTrue(file2.getName().startsWith("test.spoofax-language.11-")); // identified by size, without a hash
+    assertEquals("some binary", FileUtils.readFileToString(file2, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testCacheDirectoryIsPrivate() throws Exception {
+    File tmpDir = folder.newFolder();
+    Assume.assumeTrue(tmpDir.toPath().getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+    File file = SpoofaxBinaryCache.getSpoofaxBinaryFile(writeBinary("binary1", "some binary"),
+        tmpDir.getAbsolutePath(), "test");
+    assertEquals(tmpDir, file.getParentFile().getParentFile());
+    Path cacheDir = file.getParentFile().toPath();
+    assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(cacheDir)));
+  }
+
+  @Test
+  public void testSharedCacheDirectoryIsNotTrusted() throws Exception {
+    File tmpDir = folder.newFolder();
+    Assume.assumeTrue(tmpDir.toPath().getFileSystem().supportedFileAttributeViews().contains("posix"));
+    URL binary = writeBinary("binary1", "some binary");
+
+    // find out the name of the cache directory, and then make it accessible to everyone
+    File file = SpoofaxBinaryCache.getSpoofaxBinaryFile(binary, tmpDir.getAbsolutePath(), "test");
+    Path cacheDir = file.getParentFile().toPath();
+    Files.setPosixFilePermissions(cacheDir, PosixFilePermissions.fromString("rwxrwxrwx"));
+
+    File otherFile = SpoofaxBinaryCache.getSpoofaxBinaryFile(binary, tmpDir.getAbsolutePath(), "test");
+    assertNotEquals(cacheDir, otherFile.getParentFile().toPath());
+    assertEquals("some binary", FileUtils.readFileToString(otherFile, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testOtherVersionsArePruned() throws Exception {
+    String tmpDir = folder.newFolder().getAbsolutePath();
+
+    File file1 = SpoofaxBinaryCache.getSpoofaxBinaryFile(writeBinary("binary1", "some binary"), tmpDir, "test");
+    File file2 = SpoofaxBinaryCache.getSpoofaxBinaryFile(writeBinary("binary2", "other binary"), tmpDir, "test");
+
+    assertFalse(file1.exists());
+    assertTrue(file2.exists());
+    assertEquals(1, file2.getParentFile().list().length);
+  }
+
+  private URL writeBinary(String name, String content) throws Exception {
+    File file = folder.newFile(name);
+    FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+    return file.toURI().toURL();
+  }
+}
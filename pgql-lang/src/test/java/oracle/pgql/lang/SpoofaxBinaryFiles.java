@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Gives benchmarks outside of this package access to the cache of the extracted PGQL Spoofax binary (see
+ * {@link SpoofaxBinaryCache}), which the public API does not expose.
+ */
+public class SpoofaxBinaryFiles {
+
+  private static final String SPOOFAX_BINARIES = "pgql.spoofax-language";
+
+  /**
+   * Looks up the Spoofax binary in the cache under the default temporary directory like a new PGQL instance does, and
+   * extracts it if it is not in the cache.
+   */
+  public static File getSpoofaxBinaryFile() throws IOException {
+    return SpoofaxBinaryCache.getSpoofaxBinaryFile(Pgql.class.getResource("/" + SPOOFAX_BINARIES), null,
+        SPOOFAX_BINARIES);
+  }
+
+  /**
+   * @return the cache directory of the current user under the default temporary directory
+   */
+  public static File getCacheDirectory() {
+    return SpoofaxBinaryCache.getCacheDirectory(FileUtils.getTempDirectory().toPath()).toFile();
+  }
+}
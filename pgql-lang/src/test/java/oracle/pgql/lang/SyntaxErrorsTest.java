@@ -3,11 +3,16 @@
  */
 package oracle.pgql.lang;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.List;
+
 import org.junit.Test;
 
+import oracle.pgql.lang.PgqlDiagnostic.Severity;
+
 import oracle.pgql.lang.ir.GraphQuery;
 
 public class SyntaxErrorsTest extends AbstractPgqlTest {
@@ -28,6 +33,36 @@ public class SyntaxErrorsTest extends AbstractPgqlTest {
     assertTrue(result.getGraphQuery() == null);
   }
 
+  @Test
+  public void testDiagnostics() throws Exception {
+    String query = "SELECT n.prop MATCH (n) ORDER BY ASC(n.prop1),\n DESC(n.prop2)";
+    PgqlResult result = pgql.parse(query);
+    assertFalse(result.isQueryValid());
+    List<PgqlDiagnostic> diagnostics = result.getDiagnostics();
+    assertEquals(2, diagnostics.size());
+
+    PgqlDiagnostic first = diagnostics.get(0);
+    assertEquals(Severity.ERROR, first.getSeverity());
+    assertEquals("Use [n.prop1 ASC] instead of [ASC(n.prop1)]", first.getMessage());
+    assertEquals(1, first.getStartLine());
+    assertEquals(query.indexOf("ASC(n.prop1)"), first.getStartOffset());
+    assertEquals(query.indexOf("ASC(n.prop1)") + 1, first.getStartColumn());
+
+    PgqlDiagnostic second = diagnostics.get(1);
+    assertEquals(2, second.getStartLine());
+    assertTrue(result.getErrorMessages().contains(second.getMessage()));
+  }
+
+  @Test
+  public void testDiagnosticsWithoutRegion() throws Exception {
+    PgqlResult result = pgql.parse("");
+    assertEquals(1, result.getDiagnostics().size());
+    assertFalse(result.getDiagnostics().get(0).hasRegion());
+    assertEquals("Empty query string", result.getDiagnostics().get(0).getMessage());
+
+    assertTrue(pgql.parse("SELECT n FROM MATCH (n)").getDiagnostics().isEmpty());
+  }
+
   @Test
   public void testSelectStarGroupBy() throws Exception {
     PgqlResult result = pgql.parse("SELECT * MATCH (n) GROUP BY n.prop");
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ValidationLevelTest extends AbstractPgqlTest {
+
+  private static final String VALID_QUERY = "SELECT n.name FROM MATCH (n) WHERE n.age > ?";
+
+  private static final String SYNTAX_ERROR = "SELECT n.name FROM MATCH (n) WHERE";
+
+  private static final String SEMANTIC_ERROR = "SELECT x FROM MATCH (n)";
+
+  @Test
+  public void testSyntax() throws Exception {
+    PgqlResult result = pgql.parse(VALID_QUERY, null, ValidationLevel.SYNTAX);
+    assertTrue(result.isQueryValid());
+    assertNull(result.getPgqlStatement());
+
+    result = pgql.parse(SYNTAX_ERROR, null, ValidationLevel.SYNTAX);
+    assertFalse(result.isQueryValid());
+    assertEquals(pgql.parse(SYNTAX_ERROR).getErrorMessages(), result.getErrorMessages());
+
+    // semantic errors go undetected
+    assertTrue(pgql.parse(SEMANTIC_ERROR, null, ValidationLevel.SYNTAX).isQueryValid());
+  }
+
+  @Test
+  public void testSemantic() throws Exception {
+    PgqlResult result = pgql.parse(VALID_QUERY, null, ValidationLevel.SEMANTIC);
+    assertTrue(result.isQueryValid());
+    assertNull(result.getPgqlStatement());
+    assertEquals(PgqlVersion.V_1_3_OR_UP, result.getPgqlVersion());
+    assertEquals(1, result.getBindVariableCount());
+
+    result = pgql.parse(SEMANTIC_ERROR, null, ValidationLevel.SEMANTIC);
+    assertFalse(result.isQueryValid());
+    assertEquals(pgql.parse(SEMANTIC_ERROR).getErrorMessages(), result.getErrorMessages());
+
+    assertTrue(pgql.parse("DROP PROPERTY GRAPH g", null, ValidationLevel.SEMANTIC).isQueryValid());
+  }
+
+  @Test
+  public void testFull() throws Exception {
+    PgqlResult result = pgql.parse(VALID_QUERY, null, ValidationLevel.FULL);
+    assertTrue(result.isQueryValid());
+    assertEquals(pgql.parse(VALID_QUERY).getGraphQuery().toString(), result.getGraphQuery().toString());
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import oracle.pgql.lang.Pgql;
+import oracle.pgql.lang.PgqlException;
+import oracle.pgql.lang.PgqlResult;
+
+/**
+ * Parsing a migration-style script of 300 statements (DDL, INSERTs and SELECTs), either one {@link Pgql#parse(String)}
+ * call at a time or with a single {@link Pgql#parseAll(List)} call that reuses one Spoofax runtime and context.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=oracle.pgql.lang.benchmark.ParseAllBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParseAllBenchmark {
+
+  private static final int NUM_STATEMENTS = 300;
+
+  private Pgql pgql;
+
+  private List<String> statements;
+
+  @Setup(Level.Trial)
+  public void setUp() throws PgqlException {
+    pgql = new Pgql();
+    statements = new ArrayList<>();
+    for (int i = 0; i < NUM_STATEMENTS / 3; i++) {
+      statements.add("CREATE PROPERTY GRAPH g" + i + " VERTEX TABLES ( Person" + i + " ) "
+          + "EDGE TABLES ( knows" + i + " SOURCE Person" + i + " DESTINATION Person" + i + " )");
+      statements.add("INSERT VERTEX v LABELS ( Person ) PROPERTIES ( v.name = 'Person " + i + "', v.age = " + i + " )");
+      statements.add("SELECT n.name, m.name FROM MATCH (n:Person) -[e:knows]-> (m:Person) WHERE n.age > " + i);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pgql.close();
+  }
+
+  @Benchmark
+  public List<PgqlResult> parseOneByOne() throws PgqlException {
+    List<PgqlResult> results = new ArrayList<>(statements.size());
+    for (String statement : statements) {
+      results.add(pgql.parse(statement));
+    }
+    return results;
+  }
+
+  @Benchmark
+  public List<PgqlResult> parseAll() throws PgqlException {
+    return pgql.parseAll(statements);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder() //
+        .include(ParseAllBenchmark.class.getSimpleName()) //
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang.benchmark;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import oracle.pgql.lang.Pgql;
+import oracle.pgql.lang.PgqlException;
+import oracle.pgql.lang.PgqlResult;
+import oracle.pgql.lang.RandomQueryGenerator;
+import oracle.pgql.lang.RandomQueryGenerator.Feature;
+
+/**
+ * Parses per second, and bytes allocated per parse, for randomly generated queries (see {@link RandomQueryGenerator})
+ * of different sizes and feature mixes. Each parse is of the next query in a list of distinct queries, so that
+ * per-query caching does not skew the results. The allocation per parse is reported by the GC profiler as
+ * gc.alloc.rate.norm.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=oracle.pgql.lang.benchmark.ParseThroughputBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParseThroughputBenchmark {
+
+  private static final int NUM_QUERIES = 500;
+
+  private static final long SEED = 42;
+
+  /**
+   * How many queries are generated at most to find the distinct queries; small queries without features repeat often.
+   */
+  private static final int MAX_GENERATED_QUERIES = 100 * NUM_QUERIES;
+
+  public enum FeatureMix {
+
+    NONE(EnumSet.noneOf(Feature.class)),
+
+    TYPICAL(EnumSet.of(Feature.LABELS, Feature.WHERE, Feature.PREDICATES, Feature.ORDER_BY, Feature.LIMIT_OFFSET)),
+
+    ALL(EnumSet.allOf(Feature.class));
+
+    private final Set<Feature> features;
+
+    private FeatureMix(Set<Feature> features) {
+      this.features = features;
+    }
+  }
+
+  /**
+   * The number of vertices, SELECT items and WHERE conjuncts of each query.
+   */
+  @Param({ "1", "4", "16" })
+  public int size;
+
+  @Param({ "NONE", "TYPICAL", "ALL" })
+  public FeatureMix featureMix;
+
+  private Pgql pgql;
+
+  private List<String> queries;
+
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() throws PgqlException {
+    pgql = new Pgql();
+    RandomQueryGenerator generator = new RandomQueryGenerator(SEED, size, featureMix.features);
+    Set<String> distinctQueries = new LinkedHashSet<>();
+    for (int generated = 0; distinctQueries.size() < NUM_QUERIES; generated += NUM_QUERIES) {
+      if (generated >= MAX_GENERATED_QUERIES) {
+        throw new IllegalStateException("Only " + distinctQueries.size() + " distinct queries of size " + size
+            + " with feature mix " + featureMix);
+      }
+      distinctQueries.addAll(generator.generate(NUM_QUERIES));
+    }
+    queries = new ArrayList<>(distinctQueries).subList(0, NUM_QUERIES);
+    for (String query : queries) {
+      PgqlResult result = pgql.parse(query);
+      if (!result.isQueryValid()) {
+        throw new IllegalStateException(query + "\n" + result.getErrorMessages());
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pgql.close();
+  }
+
+  @Benchmark
+  public PgqlResult parse() throws PgqlException {
+    String query = queries.get(next);
+    next = (next + 1) % queries.size();
+    return pgql.parse(query);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder() //
+        .include(ParseThroughputBenchmark.class.getSimpleName()) //
+        .addProfiler(GCProfiler.class) //
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import oracle.pgql.lang.Pgql;
+import oracle.pgql.lang.PgqlException;
+import oracle.pgql.lang.PgqlResult;
+
+/**
+ * Parse throughput as a function of the number of parsing threads. A parser pool size of 1 corresponds to a single,
+ * globally locked Spoofax runtime; a pool size that matches the number of threads lets each thread parse on its own
+ * Spoofax runtime.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=oracle.pgql.lang.benchmark.ParserPoolBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParserPoolBenchmark {
+
+  private static final int[] THREAD_COUNTS = { 1, 2, 4, 8, 16 };
+
+  private static final String QUERY = "SELECT n.name, COUNT(*) AS cnt " //
+      + "FROM MATCH (n:Person) -[e:knows]-> (m:Person) " //
+      + "WHERE n.age > 25 AND m.name <> 'Bob' " //
+      + "GROUP BY n.name " //
+      + "ORDER BY cnt DESC " //
+      + "LIMIT 10";
+
+  @Param({ "1", "16" })
+  public int parserPoolSize;
+
+  private Pgql pgql;
+
+  @Setup(Level.Trial)
+  public void setUp() throws PgqlException {
+    pgql = new Pgql(parserPoolSize);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pgql.close();
+  }
+
+  @Benchmark
+  public PgqlResult parse() throws PgqlException {
+    return pgql.parse(QUERY);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (int threads : THREAD_COUNTS) {
+      Options options = new OptionsBuilder() //
+          .include(ParserPoolBenchmark.class.getSimpleName()) //
+          .threads(threads) //
+          .build();
+      new Runner(options).run();
+    }
+  }
+}
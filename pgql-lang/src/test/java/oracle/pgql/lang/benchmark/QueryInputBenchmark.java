@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.metaborg.spoofax.core.unit.ISpoofaxInputUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import oracle.pgql.lang.Pgql;
+import oracle.pgql.lang.PgqlException;
+import oracle.pgql.lang.PgqlResult;
+import oracle.pgql.lang.QueryInputs;
+
+/**
+ * Per-parse cost of creating the Spoofax input of a query. {@link #temporaryQueryFile()} creates it like every parse
+ * used to before the query text got handed to Spoofax directly: generate a UUID, create a file under the ram://
+ * project directory, write the UTF-8 bytes into it, create the input for that file and delete the file again.
+ * {@link #syntheticQueryFile()} creates it like parses do now, for a file object that is resolved once and then
+ * reused (see {@link QueryInputs}). {@link #parse()} puts both numbers in perspective.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=oracle.pgql.lang.benchmark.QueryInputBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryInputBenchmark {
+
+  private static final String QUERY = "SELECT n.name FROM MATCH (n:Person) -[e:knows]-> (m) WHERE m.age > 30";
+
+  private Pgql pgql;
+
+  private QueryInputs queryInputs;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    pgql = new Pgql();
+    queryInputs = new QueryInputs();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    queryInputs.close();
+    pgql.close();
+  }
+
+  @Benchmark
+  public ISpoofaxInputUnit temporaryQueryFile() throws IOException {
+    return queryInputs.createWithTemporaryFile(QUERY);
+  }
+
+  @Benchmark
+  public ISpoofaxInputUnit syntheticQueryFile() {
+    return queryInputs.create(QUERY);
+  }
+
+  @Benchmark
+  public PgqlResult parse() throws PgqlException {
+    return pgql.parse(QUERY);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder() //
+        .include(QueryInputBenchmark.class.getSimpleName()) //
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import oracle.pgql.lang.Pgql;
+import oracle.pgql.lang.PgqlException;
+import oracle.pgql.lang.PgqlResult;
+
+/**
+ * Measures the heap retained per parse result, with and without {@link Pgql#setCompactResults(boolean)}, by holding on
+ * to the results of a few thousand distinct queries and comparing the used heap after garbage collection. This is the
+ * memory a {@link oracle.pgql.lang.PgqlResultCache} needs per cached result.
+ *
+ * Since it measures memory rather than time, this is a plain program instead of a JMH benchmark.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=oracle.pgql.lang.benchmark.RetainedSizeBenchmark
+ */
+public class RetainedSizeBenchmark {
+
+  private static final int NUM_RESULTS = 2000;
+
+  public static void main(String[] args) throws PgqlException {
+    try (Pgql pgql = new Pgql()) {
+      List<String> queries = new ArrayList<>(NUM_RESULTS);
+      for (int i = 0; i < NUM_RESULTS; i++) {
+        queries.add("SELECT n.name AS name, COUNT(m) AS cnt FROM MATCH (n:Person) -[e:knows]-> (m:Person) "
+            + "WHERE n.age > " + i + " GROUP BY n.name ORDER BY cnt DESC LIMIT 10");
+      }
+
+      // warm up, so that lazily initialized state of the parser is not attributed to the results
+      measure(pgql, queries.subList(0, 100));
+
+      pgql.setCompactResults(false);
+      long fullBytes = measure(pgql, queries);
+      pgql.setCompactResults(true);
+      long compactBytes = measure(pgql, queries);
+
+      System.out.println("Retained bytes per result (full):    " + fullBytes / NUM_RESULTS);
+      System.out.println("Retained bytes per result (compact): " + compactBytes / NUM_RESULTS);
+    }
+  }
+
+  private static long measure(Pgql pgql, List<String> queries) throws PgqlException {
+    long before = usedHeap();
+    List<PgqlResult> results = new ArrayList<>(queries.size());
+    for (String query : queries) {
+      results.add(pgql.parse(query));
+    }
+    long after = usedHeap();
+    if (results.size() != queries.size()) { // keep the results reachable until after the measurement
+      throw new IllegalStateException();
+    }
+    return after - before;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    // a few rounds, since a single System.gc() does not always collect everything
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+    }
+    return used;
+  }
+}
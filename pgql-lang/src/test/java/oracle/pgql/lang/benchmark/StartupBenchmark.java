@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import oracle.pgql.lang.Pgql;
+import oracle.pgql.lang.PgqlException;
+import oracle.pgql.lang.PgqlResult;
+import oracle.pgql.lang.SpoofaxBinaryFiles;
+
+/**
+ * Time to first parse in a fresh JVM: loading the PGQL Spoofax binary, initializing Spoofax and parsing one query. Each
+ * fork measures a single cold start. With {@code extractBinary=true} the cache directory of the Spoofax binary is
+ * deleted first so that the binary has to be extracted again, which is what every start used to do; with
+ * {@code extractBinary=false} the binary that the earlier forks left in the cache is reused.
+ *
+ * {@link #findSpoofaxBinary()} measures only the part of the start that looks up the Spoofax binary in the cache (or
+ * extracts it), also in a fresh JVM, so that its share of the time to first parse can be told apart.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=oracle.pgql.lang.benchmark.StartupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+  private static final String QUERY = "SELECT n.name FROM MATCH (n:Person) -[e:knows]-> (m) WHERE m.age > 30";
+
+  @Param({ "true", "false" })
+  public boolean extractBinary;
+
+  private Pgql pgql;
+
+  @Setup(Level.Iteration)
+  public void setUp() throws IOException {
+    if (extractBinary) {
+      FileUtils.deleteDirectory(SpoofaxBinaryFiles.getCacheDirectory());
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    if (pgql != null) {
+      pgql.close();
+    }
+  }
+
+  @Benchmark
+  public PgqlResult timeToFirstParse() throws PgqlException {
+    pgql = new Pgql();
+    return pgql.parse(QUERY);
+  }
+
+  @Benchmark
+  public File findSpoofaxBinary() throws IOException {
+    return SpoofaxBinaryFiles.getSpoofaxBinaryFile();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder() //
+        .include(StartupBenchmark.class.getSimpleName()) //
+        .build();
+    new Runner(options).run();
+  }
+}
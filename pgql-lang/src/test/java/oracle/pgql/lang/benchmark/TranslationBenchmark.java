@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+
+import oracle.pgql.lang.AnalyzedAsts;
+import oracle.pgql.lang.ExpressionDispatch;
+import oracle.pgql.lang.PgqlException;
+import oracle.pgql.lang.SpoofaxAstToGraphQuery;
+
+/**
+ * Translating the analyzed ASTs of large queries into {@link oracle.pgql.lang.ir.PgqlStatement}s with
+ * {@link SpoofaxAstToGraphQuery#translate(IStrategoTerm)}, without parsing and analysis. The queries are either
+ * expression-heavy or have hundreds of variables and correlated subqueries.
+ *
+ * {@link #dispatchByIdentity()} and {@link #dispatchByName()} isolate the dispatch on the constructors of expressions:
+ * they look up the kind of every constructor in the expression-heavy ASTs, through the identity table that the
+ * translation uses and through the switch on the constructor name that it used before (see
+ * {@link ExpressionDispatch}).
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=oracle.pgql.lang.benchmark.TranslationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TranslationBenchmark {
+
+  private static final int NUM_QUERIES = 10;
+
+  private static final int NUM_TERMS = 100;
+
+  private static final int NUM_VERTICES = 200;
+
+  private static final int NUM_SUBQUERIES = 50;
+
+  private List<IStrategoTerm> asts;
+
+  private List<IStrategoTerm> manyVariablesAsts;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    List<String> queries = new ArrayList<>();
+    List<String> manyVariablesQueries = new ArrayList<>();
+    for (int i = 0; i < NUM_QUERIES; i++) {
+      queries.add(createQuery(i));
+      manyVariablesQueries.add(createManyVariablesQuery(i));
+    }
+    asts = AnalyzedAsts.analyze(queries);
+    manyVariablesAsts = AnalyzedAsts.analyze(manyVariablesQueries);
+  }
+
+  /**
+   * A query with arithmetic, comparisons, CASE expressions, function calls, IN predicates and aggregates.
+   */
+  private static String createQuery(int seed) {
+    StringBuilder select = new StringBuilder("SELECT ");
+    StringBuilder where = new StringBuilder(" WHERE ");
+    for (int i = 0; i < NUM_TERMS; i++) {
+      String prop = "n.prop" + ((seed + i) % 17);
+      if (i > 0) {
+        select.append(", ");
+        where.append(i % 3 == 0 ? " OR " : " AND ");
+      }
+      select.append("SUM(").append(prop).append(" * ").append(i).append(" + m.prop").append(i % 5)
+          .append(" / 2) + COUNT(DISTINCT CASE WHEN ").append(prop).append(" > ").append(i)
+          .append(" THEN 1 ELSE 0 END) AS col").append(i);
+      where.append("(").append(prop).append(" - ").append(i).append(" >= ABS(m.prop").append(i % 7)
+          .append(") OR UPPER(n.name").append(i % 3).append(") IN ('A', 'B', 'C') OR ").append(prop)
+          .append(" IS NULL)");
+    }
+    return select + " FROM MATCH (n) -[e]-> (m)" + where + " GROUP BY n.name0";
+  }
+
+  /**
+   * A path of vertices and edges of which every variable is selected, with EXISTS subqueries that refer to variables of
+   * the outer query.
+   */
+  private static String createManyVariablesQuery(int seed) {
+    StringBuilder select = new StringBuilder("SELECT v0.prop AS v0");
+    StringBuilder match = new StringBuilder(" FROM MATCH (v0)");
+    for (int i = 1; i < NUM_VERTICES; i++) {
+      select.append(", v").append(i).append(".prop AS v").append(i).append(", e").append(i).append(".prop AS e")
+          .append(i);
+      match.append(" -[e").append(i).append("]-> (v").append(i).append(")");
+    }
+    StringBuilder where = new StringBuilder(" WHERE v0.prop > ").append(seed);
+    for (int i = 0; i < NUM_SUBQUERIES; i++) {
+      int v = i * NUM_VERTICES / NUM_SUBQUERIES;
+      where.append(" AND EXISTS ( SELECT 1 FROM MATCH (v").append(v).append(") -[x").append(i).append("]-> (y")
+          .append(i).append(") WHERE y").append(i).append(".prop = e").append(v + 1).append(".prop )");
+    }
+    return select.toString() + match + where;
+  }
+
+  @Benchmark
+  public void translateManyVariables(Blackhole blackhole) throws PgqlException {
+    for (IStrategoTerm ast : manyVariablesAsts) {
+      blackhole.consume(SpoofaxAstToGraphQuery.translate(ast));
+    }
+  }
+
+  @Benchmark
+  public void translate(Blackhole blackhole) throws PgqlException {
+    for (IStrategoTerm ast : asts) {
+      blackhole.consume(SpoofaxAstToGraphQuery.translate(ast));
+    }
+  }
+
+  @Benchmark
+  public long dispatchByIdentity() {
+    return ExpressionDispatch.dispatchByIdentity(asts);
+  }
+
+  @Benchmark
+  public long dispatchByName() {
+    return ExpressionDispatch.dispatchByName(asts);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder() //
+        .include(TranslationBenchmark.class.getSimpleName()) //
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2013 - 2023 Oracle and/or its affiliates. All rights reserved.
+ */
+package oracle.pgql.lang.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import oracle.pgql.lang.Pgql;
+import oracle.pgql.lang.PgqlException;
+import oracle.pgql.lang.PgqlResult;
+import oracle.pgql.lang.metadata.AbstractMetadataProvider;
+import oracle.pgql.lang.metadata.BinaryOperation;
+import oracle.pgql.lang.metadata.EdgeLabel;
+import oracle.pgql.lang.metadata.GraphSchema;
+import oracle.pgql.lang.metadata.Property;
+import oracle.pgql.lang.metadata.TypeRules;
+import oracle.pgql.lang.metadata.UnaryOperation;
+import oracle.pgql.lang.metadata.VertexLabel;
+
+/**
+ * Parsing against a type system of 60 numeric types, with the type rules either asked for per pair of types (and per
+ * operation) or provided in bulk by {@link AbstractMetadataProvider#getTypeRules()}. The provider does not provide a
+ * schema version, so that the metadata is rebuilt for every parse instead of being reused.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=oracle.pgql.lang.benchmark.TypeRulesBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TypeRulesBenchmark {
+
+  private static final int NUM_TYPES = 60;
+
+  private static final String QUERY = "SELECT n.prop1 + n.prop2 AS x, SUM(n.prop3) AS y FROM MATCH (n:Item) "
+      + "WHERE n.prop4 > 10 GROUP BY x";
+
+  private Pgql pgql;
+
+  private AbstractMetadataProvider perPairProvider;
+
+  private AbstractMetadataProvider bulkProvider;
+
+  @Setup(Level.Trial)
+  public void setUp() throws PgqlException {
+    pgql = new Pgql();
+    perPairProvider = new NumericTypesMetadataProvider();
+    bulkProvider = new BulkNumericTypesMetadataProvider();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pgql.close();
+  }
+
+  @Benchmark
+  public PgqlResult perPairTypeRules() throws PgqlException {
+    return pgql.parse(QUERY, perPairProvider);
+  }
+
+  @Benchmark
+  public PgqlResult bulkTypeRules() throws PgqlException {
+    return pgql.parse(QUERY, bulkProvider);
+  }
+
+  private static String type(int i) {
+    return "NUMBER(" + (i + 1) + ")";
+  }
+
+  /**
+   * NUMBER(1) to NUMBER(60), where the union of two types and the result of arithmetic is the wider of the two.
+   */
+  private static class NumericTypesMetadataProvider extends AbstractMetadataProvider {
+
+    @Override
+    public Optional<GraphSchema> getGraphSchema() {
+      List<Property> properties = new ArrayList<>();
+      for (int i = 0; i < NUM_TYPES; i++) {
+        properties.add(new Property("prop" + i, type(i)));
+      }
+      List<VertexLabel> vertexLabels = Collections.singletonList(new VertexLabel("Item", properties));
+      List<EdgeLabel> edgeLabels = Collections.emptyList();
+      return Optional.of(new GraphSchema(vertexLabels, edgeLabels));
+    }
+
+    @Override
+    public Optional<String> getDefaultLongIntegerType() {
+      return Optional.of(type(NUM_TYPES - 1));
+    }
+
+    @Override
+    public Optional<String> getUnionType(String typeA, String typeB) {
+      return Optional.ofNullable(wider(typeA, typeB));
+    }
+
+    @Override
+    public Optional<String> getOperationReturnType(UnaryOperation op, String type) {
+      switch (op) {
+        case UMIN:
+        case SUM:
+        case MIN:
+        case MAX:
+        case AVG:
+          return Optional.ofNullable(precision(type) == -1 ? null : type);
+        default:
+          return Optional.empty();
+      }
+    }
+
+    @Override
+    public Optional<String> getOperationReturnType(BinaryOperation op, String typeA, String typeB) {
+      String wider = wider(typeA, typeB);
+      switch (op) {
+        case ADD:
+        case SUB:
+        case MUL:
+        case DIV:
+        case MOD:
+          return Optional.ofNullable(wider);
+        case EQUAL:
+        case NOT_EQUAL:
+        case GREATER:
+        case GREATER_EQUAL:
+        case LESS:
+        case LESS_EQUAL:
+          return Optional.ofNullable(wider == null ? null : "BOOLEAN");
+        default:
+          return Optional.empty();
+      }
+    }
+
+    private static String wider(String typeA, String typeB) {
+      int precisionA = precision(typeA);
+      int precisionB = precision(typeB);
+      if (precisionA == -1 || precisionB == -1) {
+        return typeA.equals(typeB) ? typeA : null;
+      }
+      return precisionA >= precisionB ? typeA : typeB;
+    }
+
+    private static int precision(String type) {
+      return type.startsWith("NUMBER(") ? Integer.parseInt(type.substring(7, type.length() - 1)) : -1;
+    }
+  }
+
+  /**
+   * The same type system, with the type rules computed once and provided in bulk.
+   */
+  private static class BulkNumericTypesMetadataProvider extends NumericTypesMetadataProvider {
+
+    private final TypeRules typeRules = new TypeRules();
+
+    BulkNumericTypesMetadataProvider() {
+      List<String> types = new ArrayList<>();
+      for (int i = 0; i < NUM_TYPES; i++) {
+        types.add(type(i));
+      }
+      types.add("BOOLEAN");
+      for (String typeA : types) {
+        for (UnaryOperation op : UnaryOperation.values()) {
+          super.getOperationReturnType(op, typeA).ifPresent(type -> typeRules.addOperation(op, typeA, type));
+        }
+        for (String typeB : types) {
+          super.getUnionType(typeA, typeB).ifPresent(type -> typeRules.addUnionType(typeA, typeB, type));
+          for (BinaryOperation op : BinaryOperation.values()) {
+            super.getOperationReturnType(op, typeA, typeB)
+                .ifPresent(type -> typeRules.addOperation(op, typeA, typeB, type));
+          }
+        }
+      }
+    }
+
+    @Override
+    public Optional<TypeRules> getTypeRules() {
+      return Optional.of(typeRules);
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder() //
+        .include(TypeRulesBenchmark.class.getSimpleName()) //
+        .build();
+    new Runner(options).run();
+  }
+}